@@ -14,10 +14,12 @@ package org.sonatype.nexus.blobstore.file;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 import javax.annotation.Nullable;
 
@@ -28,11 +30,19 @@ import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreException;
 import org.sonatype.nexus.blobstore.api.BlobStoreListener;
 import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
+import org.sonatype.nexus.blobstore.api.FileChannelBlob;
 import org.sonatype.nexus.blobstore.file.FileOperations.StreamMetrics;
 import org.sonatype.nexus.common.collect.AutoClosableIterable;
 import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.Striped;
 import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -41,6 +51,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * A {@link BlobStore} that stores its content on the file system, and metadata in a {@link BlobMetadataStore}.
  *
+ * Metadata of recently accessed blobs is kept in a bounded, concurrent, in-memory cache so hot blobs are served
+ * without touching the metadata store. Every mutation goes through to the metadata store first and then refreshes or
+ * invalidates the cached entry; cache misses and mutations of the same blob are serialized by a striped lock so a
+ * concurrent miss can never re-populate the cache with metadata a mutation just replaced. Hit, miss, eviction and size
+ * gauges are published to the shared metrics registry.
+ *
  * @since 3.0
  */
 public class FileBlobStore
@@ -49,6 +65,10 @@ public class FileBlobStore
 {
   public static final String BLOB_CONTENT_SUFFIX = ".blob";
 
+  public static final int DEFAULT_METADATA_CACHE_SIZE = 10000;
+
+  private static final int LOCK_STRIPES = 64;
+
   private final Path root;
 
   private final LocationStrategy locationStrategy;
@@ -57,29 +77,136 @@ public class FileBlobStore
 
   private final BlobMetadataStore metadataStore;
 
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
+  private final Cache<BlobId, BlobMetadata> metadataCache;
+
+  private final Striped<Lock> metadataLocks = Striped.lock(LOCK_STRIPES);
+
   private volatile BlobStoreListener listener;
 
   public FileBlobStore(final Path root,
                        final LocationStrategy locationStrategy,
                        final FileOperations fileOperations,
                        final BlobMetadataStore metadataStore)
+  {
+    this(root, locationStrategy, fileOperations, metadataStore, DEFAULT_METADATA_CACHE_SIZE);
+  }
+
+  /**
+   * @param metadataCacheSize maximum number of blob metadata entries kept in memory, {@code 0} disables caching
+   */
+  public FileBlobStore(final Path root,
+                       final LocationStrategy locationStrategy,
+                       final FileOperations fileOperations,
+                       final BlobMetadataStore metadataStore,
+                       final int metadataCacheSize)
   {
     this.root = checkNotNull(root);
     this.locationStrategy = checkNotNull(locationStrategy);
     this.fileOperations = checkNotNull(fileOperations);
     this.metadataStore = checkNotNull(metadataStore);
+    checkArgument(metadataCacheSize >= 0, "Metadata cache size must not be negative");
+    this.metadataCache = CacheBuilder.newBuilder()
+        .maximumSize(metadataCacheSize)
+        .recordStats()
+        .build();
   }
 
   @Override
   protected void doStart() throws Exception {
     metadataStore.start();
+
+    registerGauge("hits", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return metadataCache.stats().hitCount();
+      }
+    });
+    registerGauge("misses", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return metadataCache.stats().missCount();
+      }
+    });
+    registerGauge("evictions", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return metadataCache.stats().evictionCount();
+      }
+    });
+    registerGauge("size", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return metadataCache.size();
+      }
+    });
   }
 
   @Override
   protected void doStop() throws Exception {
+    metricRegistry.remove(metricName("hits"));
+    metricRegistry.remove(metricName("misses"));
+    metricRegistry.remove(metricName("evictions"));
+    metricRegistry.remove(metricName("size"));
+
+    metadataCache.invalidateAll();
     metadataStore.stop();
   }
 
+  /**
+   * Returns statistics of the blob metadata cache.
+   */
+  public CacheStats getMetadataCacheStats() {
+    return metadataCache.stats();
+  }
+
+  private String metricName(final String name) {
+    return MetricRegistry.name(FileBlobStore.class, root.toString(), "metadataCache", name);
+  }
+
+  private void registerGauge(final String name, final Gauge<Long> gauge) {
+    String metricName = metricName(name);
+    metricRegistry.remove(metricName);
+    metricRegistry.register(metricName, gauge);
+  }
+
+  /**
+   * Returns the metadata of given blob, from the cache when present, otherwise read through the metadata store.
+   *
+   * The cache holds private copies, and callers always get their own instance, so changing the returned metadata
+   * affects no other thread until it is written through {@link #updateMetadata}.
+   */
+  @Nullable
+  private BlobMetadata getMetadata(final BlobId blobId) {
+    BlobMetadata metadata = metadataCache.getIfPresent(blobId);
+    if (metadata != null) {
+      return copyOf(metadata);
+    }
+
+    Lock lock = metadataLocks.get(blobId);
+    lock.lock();
+    try {
+      // a concurrent miss may have populated the entry while we were waiting
+      metadata = metadataCache.asMap().get(blobId);
+      if (metadata != null) {
+        return copyOf(metadata);
+      }
+      metadata = metadataStore.get(blobId);
+      if (metadata != null) {
+        metadataCache.put(blobId, copyOf(metadata));
+      }
+      return metadata;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
   @Override
   public void setBlobStoreListener(@Nullable final BlobStoreListener listener) {
     this.listener = listener;
@@ -128,7 +255,7 @@ public class FileBlobStore
       metadata.setMetrics(metrics);
       // Storing the content went fine, so we can now unmark this for deletion
       metadata.setBlobState(BlobState.ALIVE);
-      metadataStore.update(blobId, metadata);
+      updateMetadata(blobId, metadata);
 
       return blob;
     }
@@ -142,7 +269,7 @@ public class FileBlobStore
   public Blob get(final BlobId blobId) {
     checkNotNull(blobId);
 
-    BlobMetadata metadata = metadataStore.get(blobId);
+    BlobMetadata metadata = getMetadata(blobId);
     if (metadata == null) {
       log.debug("Attempt to access non-existent blob {}", blobId);
       return null;
@@ -166,27 +293,33 @@ public class FileBlobStore
   public boolean delete(final BlobId blobId) {
     checkNotNull(blobId);
 
-    BlobMetadata metadata = metadataStore.get(blobId);
-    if (metadata == null) {
-      log.debug("Attempt to mark-for-delete non-existent blob {}", blobId);
-      return false;
+    Lock lock = metadataLocks.get(blobId);
+    lock.lock();
+    try {
+      BlobMetadata metadata = getMetadata(blobId);
+      if (metadata == null) {
+        log.debug("Attempt to mark-for-delete non-existent blob {}", blobId);
+        return false;
+      }
+      else if (!metadata.isAlive()) {
+        log.debug("Attempt to delete blob {} in state {}", blobId, metadata.getBlobState());
+        return false;
+      }
+
+      metadata.setBlobState(BlobState.MARKED_FOR_DELETION);
+      updateMetadata(blobId, metadata);
+      return true;
     }
-    else if (!metadata.isAlive()) {
-      log.debug("Attempt to delete blob {} in state {}", blobId, metadata.getBlobState());
-      return false;
+    finally {
+      lock.unlock();
     }
-
-    metadata.setBlobState(BlobState.MARKED_FOR_DELETION);
-    // TODO: Handle concurrent modification of metadata
-    metadataStore.update(blobId, metadata);
-    return true;
   }
 
   @Override
   public boolean deleteHard(final BlobId blobId) {
     checkNotNull(blobId);
 
-    BlobMetadata metadata = metadataStore.get(blobId);
+    BlobMetadata metadata = getMetadata(blobId);
     if (metadata == null) {
       log.debug("Attempt to deleteHard non-existent blob {}", blobId);
       return false;
@@ -206,7 +339,15 @@ public class FileBlobStore
         listener.blobDeleted(blobId, "Path: " + path);
       }
 
-      metadataStore.delete(blobId);
+      Lock lock = metadataLocks.get(blobId);
+      lock.lock();
+      try {
+        metadataCache.invalidate(blobId);
+        metadataStore.delete(blobId);
+      }
+      finally {
+        lock.unlock();
+      }
 
       return blobDeleted;
     }
@@ -264,6 +405,32 @@ public class FileBlobStore
     }
   }
 
+  /**
+   * Writes given metadata through to the metadata store, then caches a copy of it. A failed write leaves no cached
+   * entry behind.
+   */
+  private void updateMetadata(final BlobId blobId, final BlobMetadata metadata) {
+    Lock lock = metadataLocks.get(blobId);
+    lock.lock();
+    try {
+      metadataCache.invalidate(blobId);
+      metadataStore.update(blobId, metadata);
+      metadataCache.put(blobId, copyOf(metadata));
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Copies the mutable state of given metadata; headers are never changed once a blob is created, and are shared.
+   */
+  private static BlobMetadata copyOf(final BlobMetadata metadata) {
+    BlobMetadata copy = new BlobMetadata(metadata.getBlobState(), metadata.getHeaders());
+    copy.setMetrics(metadata.getMetrics());
+    return copy;
+  }
+
   private void checkExists(final Path path, final BlobId blobId) throws IOException {
     if (!fileOperations.exists(path)) {
       // I'm not completely happy with this, since it means that blob store clients can get a blob, be satisfied
@@ -273,7 +440,7 @@ public class FileBlobStore
   }
 
   class FileBlob
-      implements Blob
+      implements FileChannelBlob
   {
     private final BlobId blobId;
 
@@ -315,6 +482,17 @@ public class FileBlobStore
       }
     }
 
+    @Override
+    public FileChannel openFileChannel() {
+      try {
+        checkExists(contentPath, blobId);
+        return fileOperations.openFileChannel(contentPath);
+      }
+      catch (IOException e) {
+        throw new BlobStoreException(e, blobId);
+      }
+    }
+
     @Override
     public BlobMetrics getMetrics() {
       return metrics;
@@ -14,6 +14,7 @@ package org.sonatype.nexus.blobstore.file;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 
 /**
@@ -55,6 +56,8 @@ public interface FileOperations
 
   InputStream openInputStream(Path path) throws IOException;
 
+  FileChannel openFileChannel(Path path) throws IOException;
+
   /**
    * Returns true if the file existed before deletion, false otherwise.
    */
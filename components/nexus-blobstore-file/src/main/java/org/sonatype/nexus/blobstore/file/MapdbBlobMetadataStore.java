@@ -18,12 +18,19 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nullable;
 
@@ -33,6 +40,8 @@ import org.sonatype.nexus.common.collect.AutoClosableIterable;
 import org.sonatype.nexus.common.io.DirSupport;
 import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.joda.time.DateTime;
 import org.mapdb.Atomic;
@@ -44,6 +53,7 @@ import org.mapdb.TxBlock;
 import org.mapdb.TxMaker;
 import org.mapdb.TxRollbackException;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static org.sonatype.nexus.blobstore.file.internal.ExternalizationHelper.readNullableLong;
@@ -54,20 +64,48 @@ import static org.sonatype.nexus.blobstore.file.internal.ExternalizationHelper.w
 /**
  * MapDB implementation of {@link BlobMetadataStore}.
  *
+ * Mutations from concurrent callers are group-committed: callers queue their mutation, and whichever caller gets to
+ * commit next applies all queued mutations (up to {@code maxBatchSize}) in a single MapDB transaction, while the
+ * others wait for that commit.  Callers still only return once their mutation is committed.
+ *
  * @since 3.0
  */
 public class MapdbBlobMetadataStore
     extends LifecycleSupport
     implements BlobMetadataStore
 {
+  public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+  public static final long DEFAULT_COMMIT_WINDOW_MILLIS = 0;
+
   private final File file;
 
+  private final int maxBatchSize;
+
+  private final long commitWindowMillis;
+
+  private final boolean syncOnCommit;
+
+  private final Queue<PendingMutation<?>> pendingMutations = new ConcurrentLinkedQueue<>();
+
+  private final Lock commitLock = new ReentrantLock();
+
   private TxMaker database;
 
-  private MapdbBlobMetadataStore(final File directory) {
+  private MapdbBlobMetadataStore(final File directory,
+                                 final int maxBatchSize,
+                                 final long commitWindowMillis,
+                                 final boolean syncOnCommit)
+  {
     checkNotNull(directory);
+    checkArgument(maxBatchSize > 0, "Max batch size must be positive: %s", maxBatchSize);
+    checkArgument(commitWindowMillis >= 0, "Commit window must not be negative: %s", commitWindowMillis);
     this.file = new File(directory, directory.getName() + ".db");
-    log.debug("File: {}", file);
+    this.maxBatchSize = maxBatchSize;
+    this.commitWindowMillis = commitWindowMillis;
+    this.syncOnCommit = syncOnCommit;
+    log.debug("File: {}, max batch size: {}, commit window: {} ms, sync on commit: {}",
+        file, maxBatchSize, commitWindowMillis, syncOnCommit);
   }
 
   /**
@@ -76,7 +114,24 @@ public class MapdbBlobMetadataStore
    * is used for mapdb's serializing/deserializing operations.
    */
   public static BlobMetadataStore create(final File directory) {
-    final MapdbBlobMetadataStore inner = new MapdbBlobMetadataStore(directory);
+    return create(directory, DEFAULT_MAX_BATCH_SIZE, DEFAULT_COMMIT_WINDOW_MILLIS, true);
+  }
+
+  /**
+   * @param maxBatchSize       maximum number of mutations committed together; {@code 1} commits each mutation in its
+   *                           own transaction.
+   * @param commitWindowMillis how long a committer waits for more mutations to join a batch which is not full yet;
+   *                           {@code 0} only batches mutations which queued up while the previous commit ran.
+   * @param syncOnCommit       whether commits are synced to disk; disabling trades durability on OS crash or power
+   *                           loss for throughput.
+   */
+  public static BlobMetadataStore create(final File directory,
+                                         final int maxBatchSize,
+                                         final long commitWindowMillis,
+                                         final boolean syncOnCommit)
+  {
+    final MapdbBlobMetadataStore inner =
+        new MapdbBlobMetadataStore(directory, maxBatchSize, commitWindowMillis, syncOnCommit);
 
     return (BlobMetadataStore) Proxy.newProxyInstance(BlobMetadataStore.class.getClassLoader(),
         new Class[]{BlobMetadataStore.class}, new OsgiCompatibleClassloaderAdvice(inner));
@@ -92,9 +147,12 @@ public class MapdbBlobMetadataStore
   @Override
   protected void doStart() throws Exception {
     DirSupport.mkdir(file.getParentFile());
-    this.database = DBMaker.newFileDB(file)
-        .checksumEnable()
-        .makeTxMaker();
+    DBMaker<?> maker = DBMaker.newFileDB(file)
+        .checksumEnable();
+    if (!syncOnCommit) {
+      maker.commitFileSyncDisable();
+    }
+    this.database = maker.makeTxMaker();
   }
 
   @Override
@@ -281,7 +339,7 @@ public class MapdbBlobMetadataStore
 
     final MetadataRecord record = convert(metadata);
 
-    return database.execute(new Fun.Function1<BlobId, DB>()
+    return mutate(new Fun.Function1<BlobId, DB>()
     {
       @Override
       public BlobId run(final DB db) {
@@ -329,16 +387,17 @@ public class MapdbBlobMetadataStore
     final MetadataRecord record = convert(metadata);
     log.trace("Update: {}={}", id, record);
 
-    database.execute(new TxBlock()
+    mutate(new Fun.Function1<Void, DB>()
     {
       @Override
-      public void tx(final DB db) throws TxRollbackException {
+      public Void run(final DB db) {
         MetadataRecord prev = entries(db).put(id, record);
         checkState(prev != null, "Can not update non-existent blob-id: %s", id);
 
         // replace state
         states(db, prev.state).remove(id);
         states(db, record.state).add(id);
+        return null;
       }
     });
   }
@@ -350,15 +409,16 @@ public class MapdbBlobMetadataStore
 
     log.trace("Delete: {}", id);
 
-    database.execute(new TxBlock()
+    mutate(new Fun.Function1<Void, DB>()
     {
       @Override
-      public void tx(final DB db) throws TxRollbackException {
+      public Void run(final DB db) {
         MetadataRecord prev = entries(db).remove(id);
         checkState(prev != null, "Can not delete non-existent blob-id: %s", id);
 
         // remove state
         states(db, prev.state).remove(id);
+        return null;
       }
     });
   }
@@ -449,6 +509,143 @@ public class MapdbBlobMetadataStore
     });
   }
 
+  /**
+   * Applies a mutation, group-committing it with those of concurrent callers.  Returns once the mutation is committed.
+   */
+  private <T> T mutate(final Fun.Function1<T, DB> mutation) {
+    if (maxBatchSize == 1) {
+      return database.execute(mutation);
+    }
+
+    PendingMutation<T> pending = new PendingMutation<>(mutation);
+    pendingMutations.add(pending);
+
+    // whoever holds the lock commits everything queued so far; by the time we get it ours may be committed already
+    commitLock.lock();
+    try {
+      if (!pending.done) {
+        awaitCommitWindow();
+        while (!pending.done) {
+          commitBatch();
+        }
+      }
+    }
+    finally {
+      commitLock.unlock();
+    }
+
+    return pending.get();
+  }
+
+  private void awaitCommitWindow() {
+    if (commitWindowMillis > 0 && pendingMutations.size() < maxBatchSize) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(commitWindowMillis);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Commits up to {@code maxBatchSize} queued mutations in one transaction.  Should any of them fail, the transaction
+   * is rolled back and the mutations are re-applied one by one, so only the failing ones report failure.  Should
+   * committing fail unexpectedly, every mutation of the batch not yet done reports that failure.
+   */
+  private void commitBatch() {
+    final List<PendingMutation<?>> batch = Lists.newArrayListWithCapacity(maxBatchSize);
+    PendingMutation<?> next;
+    while (batch.size() < maxBatchSize && (next = pendingMutations.poll()) != null) {
+      batch.add(next);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    log.trace("Committing batch of {} mutations", batch.size());
+    Throwable unexpected = null;
+    try {
+      try {
+        database.execute(new TxBlock()
+        {
+          @Override
+          public void tx(final DB db) throws TxRollbackException {
+            for (PendingMutation<?> pending : batch) {
+              pending.apply(db);
+            }
+          }
+        });
+        for (PendingMutation<?> pending : batch) {
+          pending.done = true;
+        }
+      }
+      catch (RuntimeException e) {
+        log.debug("Batch of {} mutations failed, applying individually", batch.size(), e);
+        for (PendingMutation<?> pending : batch) {
+          pending.applyAlone(database);
+        }
+      }
+    }
+    catch (Throwable e) {
+      unexpected = e;
+      throw e;
+    }
+    finally {
+      // never leave callers waiting on a batch that will not be retried
+      for (PendingMutation<?> pending : batch) {
+        if (!pending.done) {
+          pending.fail(unexpected != null ? unexpected : new IllegalStateException("Batch commit aborted"));
+        }
+      }
+    }
+  }
+
+  /**
+   * A mutation waiting to be committed.  Fields are only accessed while holding the commit lock, or after having
+   * held it, which makes them visible to the waiting caller.
+   */
+  private static class PendingMutation<T>
+  {
+    private final Fun.Function1<T, DB> mutation;
+
+    private T result;
+
+    private Throwable failure;
+
+    private boolean done;
+
+    private PendingMutation(final Fun.Function1<T, DB> mutation) {
+      this.mutation = mutation;
+    }
+
+    private void apply(final DB db) {
+      result = mutation.run(db);
+    }
+
+    private void applyAlone(final TxMaker database) {
+      try {
+        result = database.execute(mutation);
+      }
+      catch (RuntimeException e) {
+        failure = e;
+      }
+      done = true;
+    }
+
+    private void fail(final Throwable cause) {
+      failure = cause;
+      done = true;
+    }
+
+    private T get() {
+      if (failure != null) {
+        throw Throwables.propagate(failure);
+      }
+      return result;
+    }
+  }
+
   /**
    * An invocation handler that ensures the context classloader is set up correctly for OSGi before MapDB attempts to
    * use it to resolve classes for serialized/externalized objects.
@@ -467,6 +664,10 @@ public class MapdbBlobMetadataStore
         Thread.currentThread().setContextClassLoader(MapdbBlobMetadataStore.class.getClassLoader());
         return method.invoke(inner, args);
       }
+      catch (InvocationTargetException e) {
+        // surface the store's own exceptions rather than undeclared reflection wrappers
+        throw e.getCause();
+      }
       finally {
         Thread.currentThread().setContextClassLoader(originalClassLoader);
       }
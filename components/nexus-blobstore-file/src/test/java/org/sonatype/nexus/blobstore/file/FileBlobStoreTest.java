@@ -29,14 +29,20 @@ import org.joda.time.DateTime;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -109,10 +115,7 @@ public class FileBlobStoreTest
   @Test
   public void getExistingBlob() throws Exception {
     final BlobId fakeId = new BlobId("fakeId");
-    final BlobMetadata metadata = mock(BlobMetadata.class);
-    when(metadataStore.get(fakeId)).thenReturn(metadata);
-    when(metadata.isAlive()).thenReturn(true);
-    when(metadata.getMetrics()).thenReturn(mock(BlobMetrics.class));
+    when(metadataStore.get(fakeId)).thenReturn(aliveMetadata());
 
     when(locationStrategy.location(fakeId)).thenReturn("fakePath");
     final Path fakePath = root.resolve("fakePath" + FileBlobStore.BLOB_CONTENT_SUFFIX);
@@ -128,26 +131,83 @@ public class FileBlobStoreTest
   @Test
   public void deletingMarksAsDeleted() {
     final BlobId fakeId = new BlobId("fakeId");
-    final BlobMetadata metadata = mock(BlobMetadata.class);
-    when(metadataStore.get(fakeId)).thenReturn(metadata);
-
     // The blob isn't already deleted
-    when(metadata.isAlive()).thenReturn(true);
+    when(metadataStore.get(fakeId)).thenReturn(aliveMetadata());
 
     final boolean deleted = underTest.delete(fakeId);
     assertThat(deleted, is(equalTo(true)));
 
-    verify(metadata).setBlobState(BlobState.MARKED_FOR_DELETION);
+    final ArgumentCaptor<BlobMetadata> updated = ArgumentCaptor.forClass(BlobMetadata.class);
+    verify(metadataStore).update(eq(fakeId), updated.capture());
+    assertThat(updated.getValue().getBlobState(), is(BlobState.MARKED_FOR_DELETION));
   }
 
   @Test
   public void secondDeletionRedundant() {
     final BlobId fakeId = new BlobId("testId");
-    final BlobMetadata metadata = mock(BlobMetadata.class);
+    final BlobMetadata metadata = aliveMetadata();
+    metadata.setBlobState(BlobState.MARKED_FOR_DELETION);
     when(metadataStore.get(fakeId)).thenReturn(metadata);
-    when(metadata.isAlive()).thenReturn(false);
 
     final boolean deleted = underTest.delete(fakeId);
     assertThat(deleted, is(equalTo(false)));
   }
+
+  @Test
+  public void repeatedGetIsServedFromCache() {
+    final BlobId fakeId = new BlobId("fakeId");
+    final BlobMetadata metadata = aliveMetadata();
+    when(metadataStore.get(fakeId)).thenReturn(metadata);
+    when(locationStrategy.location(fakeId)).thenReturn("fakePath");
+
+    assertThat(underTest.get(fakeId), notNullValue());
+    assertThat(underTest.get(fakeId), notNullValue());
+    assertThat(underTest.get(fakeId), notNullValue());
+
+    verify(metadataStore, times(1)).get(fakeId);
+    assertThat(underTest.getMetadataCacheStats().hitCount(), is(2L));
+    assertThat(underTest.getMetadataCacheStats().missCount(), is(1L));
+  }
+
+  @Test
+  public void deleteInvalidatesCachedMetadata() {
+    final BlobId fakeId = new BlobId("fakeId");
+    when(metadataStore.get(fakeId)).thenReturn(aliveMetadata());
+    when(locationStrategy.location(fakeId)).thenReturn("fakePath");
+
+    assertThat(underTest.get(fakeId), notNullValue());
+    assertThat(underTest.delete(fakeId), is(true));
+    assertThat(underTest.get(fakeId), nullValue());
+    assertThat(underTest.delete(fakeId), is(false));
+  }
+
+  @Test
+  public void failedUpdateLeavesNoCachedMetadata() {
+    final BlobId fakeId = new BlobId("fakeId");
+    when(metadataStore.get(fakeId)).thenReturn(aliveMetadata(), aliveMetadata());
+    when(locationStrategy.location(fakeId)).thenReturn("fakePath");
+    doThrow(new IllegalStateException("boom")).when(metadataStore).update(any(BlobId.class), any(BlobMetadata.class));
+
+    assertThat(underTest.get(fakeId), notNullValue());
+    try {
+      underTest.delete(fakeId);
+      fail();
+    }
+    catch (IllegalStateException e) {
+      // expected
+    }
+
+    // store still holds the alive record, which must be read again rather than the rejected change
+    assertThat(underTest.get(fakeId), notNullValue());
+    verify(metadataStore, times(2)).get(fakeId);
+  }
+
+  private BlobMetadata aliveMetadata() {
+    final BlobMetadata metadata = new BlobMetadata(BlobState.ALIVE, ImmutableMap.of(
+        BlobStore.BLOB_NAME_HEADER, "my blob",
+        BlobStore.CREATED_BY_HEADER, "John did this"
+    ));
+    metadata.setMetrics(new BlobMetrics(new DateTime(), "3757y5abc234cfgg", 200L));
+    return metadata;
+  }
 }
@@ -14,6 +14,10 @@ package org.sonatype.nexus.blobstore.file.internal;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.blobstore.file.BlobMetadata;
@@ -24,6 +28,7 @@ import org.sonatype.nexus.common.collect.AutoClosableIterable;
 import org.sonatype.sisu.litmus.testsupport.TestSupport;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import org.junit.After;
 import org.junit.Before;
@@ -32,6 +37,9 @@ import org.junit.Test;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
 
 /**
  * Tests for {@link MapdbBlobMetadataStore}.
@@ -142,6 +150,61 @@ public class MapdbBlobMetadataStoreTest
     underTest.compact();
   }
 
+  @Test
+  public void concurrentMutationsAreAllCommitted() throws Exception {
+    int threads = 8;
+    final int perThread = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<List<BlobId>>> futures = Lists.newArrayList();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<List<BlobId>>()
+        {
+          @Override
+          public List<BlobId> call() throws Exception {
+            List<BlobId> ids = Lists.newArrayList();
+            for (int j = 0; j < perThread; j++) {
+              BlobMetadata md = new BlobMetadata(BlobState.CREATING, ImmutableMap.of("foo", "bar"));
+              BlobId id = underTest.add(md);
+              md.setBlobState(BlobState.ALIVE);
+              underTest.update(id, md);
+              ids.add(id);
+            }
+            return ids;
+          }
+        }));
+      }
+      List<BlobId> ids = Lists.newArrayList();
+      for (Future<List<BlobId>> future : futures) {
+        ids.addAll(future.get());
+      }
+
+      assertThat(ImmutableSet.copyOf(ids), hasSize(threads * perThread));
+      assertThat(underTest.getBlobCount(), is((long) threads * perThread));
+      assertThat(findWithState(BlobState.CREATING), emptyIterable());
+      assertThat(Lists.newArrayList(findWithState(BlobState.ALIVE)), hasSize(threads * perThread));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void failedMutationDoesNotAffectOthers() throws Exception {
+    BlobId id = underTest.add(new BlobMetadata(BlobState.CREATING, ImmutableMap.of("foo", "bar")));
+    underTest.delete(id);
+    try {
+      underTest.delete(id);
+      fail();
+    }
+    catch (IllegalStateException e) {
+      // expected
+    }
+
+    BlobId other = underTest.add(new BlobMetadata(BlobState.CREATING, ImmutableMap.of("foo", "bar")));
+    assertThat(findWithState(BlobState.CREATING), contains(other));
+  }
+
   private void dumpStates() throws Exception {
     for (BlobState state : BlobState.values()) {
       log(state);
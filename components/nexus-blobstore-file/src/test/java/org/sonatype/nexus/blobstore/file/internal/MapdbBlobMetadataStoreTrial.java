@@ -0,0 +1,91 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file.internal;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.file.BlobMetadata;
+import org.sonatype.nexus.blobstore.file.BlobMetadataStore;
+import org.sonatype.nexus.blobstore.file.BlobState;
+import org.sonatype.nexus.blobstore.file.MapdbBlobMetadataStore;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+/**
+ * Throughput trials of {@link MapdbBlobMetadataStore} commit modes, mimicking the add/update pair done by every
+ * {@code FileBlobStore.create}.
+ */
+public class MapdbBlobMetadataStoreTrial
+  extends TestSupport
+{
+  private static final int THREADS = 16;
+
+  private static final int BLOBS_PER_THREAD = 200;
+
+  @Test
+  public void compareCommitModes() throws Exception {
+    run("transaction per mutation", 1, 0, true);
+    run("group commit", MapdbBlobMetadataStore.DEFAULT_MAX_BATCH_SIZE, 0, true);
+    run("group commit, 2ms window", MapdbBlobMetadataStore.DEFAULT_MAX_BATCH_SIZE, 2, true);
+    run("group commit, no sync", MapdbBlobMetadataStore.DEFAULT_MAX_BATCH_SIZE, 0, false);
+  }
+
+  private void run(final String name, final int maxBatchSize, final long commitWindowMillis,
+                   final boolean syncOnCommit) throws Exception
+  {
+    File dir = new File(util.createTempDir("databases"), "trial");
+    final BlobMetadataStore store = MapdbBlobMetadataStore.create(dir, maxBatchSize, commitWindowMillis, syncOnCommit);
+    store.start();
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      Stopwatch watch = Stopwatch.createStarted();
+      List<Future<?>> futures = Lists.newArrayList();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception {
+            for (int j = 0; j < BLOBS_PER_THREAD; j++) {
+              BlobMetadata md = new BlobMetadata(BlobState.CREATING, ImmutableMap.of("foo", "bar"));
+              BlobId id = store.add(md);
+              md.setBlobState(BlobState.ALIVE);
+              store.update(id, md);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      long elapsed = watch.elapsed(TimeUnit.MILLISECONDS);
+      int blobs = THREADS * BLOBS_PER_THREAD;
+      log("{}: {} blobs in {} ms, {} blobs/s", name, blobs, elapsed, blobs * 1000L / Math.max(1, elapsed));
+    }
+    finally {
+      executor.shutdownNow();
+      store.stop();
+    }
+  }
+}
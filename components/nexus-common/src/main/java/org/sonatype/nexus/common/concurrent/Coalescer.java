@@ -0,0 +1,129 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Coalesces concurrent calls for the same key, so that only one of them (the leader) does the work while the others
+ * wait for, and share, its outcome.
+ *
+ * Outcomes are not retained: once the leader completes, the next call for the same key does the work again.
+ * Re-entrant calls for the same key made by the leader itself are not coalesced, they simply do the work.
+ *
+ * @since 3.0
+ */
+public class Coalescer<K, V>
+{
+  private final ConcurrentMap<K, Flight<V>> inflight = new ConcurrentHashMap<>();
+
+  private final AtomicLong leaderCount = new AtomicLong();
+
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  /**
+   * Returns the outcome of {@code callable}, invoking it only if there is no call for the same key in flight.
+   *
+   * Unchecked exceptions thrown while doing the work are rethrown as-is to all callers.
+   *
+   * @throws ExecutionException if a checked exception was thrown while doing the work
+   */
+  public V get(final K key, final Callable<? extends V> callable) throws ExecutionException {
+    checkNotNull(key);
+    checkNotNull(callable);
+
+    Flight<V> flight = new Flight<>(Thread.currentThread());
+    Flight<V> existing = inflight.putIfAbsent(key, flight);
+    if (existing != null) {
+      if (existing.leader == Thread.currentThread()) {
+        return call(callable);
+      }
+      coalescedCount.incrementAndGet();
+      return await(existing.future);
+    }
+
+    leaderCount.incrementAndGet();
+    try {
+      flight.future.set(callable.call());
+    }
+    catch (Throwable e) {
+      flight.future.setException(e);
+    }
+    finally {
+      inflight.remove(key, flight);
+    }
+    return await(flight.future);
+  }
+
+  /**
+   * Returns {@code true} if a call for the given key is currently in flight.
+   */
+  public boolean isInflight(final K key) {
+    return inflight.containsKey(checkNotNull(key));
+  }
+
+  /**
+   * Returns the number of calls that did the work themselves.
+   */
+  public long getLeaderCount() {
+    return leaderCount.get();
+  }
+
+  /**
+   * Returns the number of calls that were served by the outcome of a concurrent call.
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  private V call(final Callable<? extends V> callable) throws ExecutionException {
+    try {
+      return callable.call();
+    }
+    catch (Exception e) {
+      Throwables.propagateIfPossible(e);
+      throw new ExecutionException(e);
+    }
+  }
+
+  private V await(final SettableFuture<V> future) throws ExecutionException {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    }
+    catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw e;
+    }
+  }
+
+  private static class Flight<V>
+  {
+    private final Thread leader;
+
+    private final SettableFuture<V> future = SettableFuture.create();
+
+    private Flight(final Thread leader) {
+      this.leader = leader;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.concurrent
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.junit.Test
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import static org.junit.Assert.fail
+
+/**
+ * Tests for {@link Coalescer}
+ */
+class CoalescerTest
+  extends TestSupport
+{
+  private Coalescer<String, String> underTest = new Coalescer<>()
+
+  @Test
+  void 'concurrent calls share one outcome'() {
+    def calls = new AtomicInteger()
+    def started = new CountDownLatch(1)
+    def release = new CountDownLatch(1)
+    def executor = Executors.newFixedThreadPool(8)
+    try {
+      def leader = executor.submit({
+        underTest.get('foo', {
+          calls.incrementAndGet()
+          started.countDown()
+          release.await()
+          return 'bar'
+        } as Callable<String>)
+      } as Callable<String>)
+
+      started.await()
+      def followers = (1..7).collect {
+        executor.submit({
+          underTest.get('foo', {
+            calls.incrementAndGet()
+            return 'baz'
+          } as Callable<String>)
+        } as Callable<String>)
+      }
+
+      // wait until all followers have joined the leader
+      while (underTest.coalescedCount < 7) {
+        Thread.sleep(10)
+      }
+      release.countDown()
+
+      assert leader.get(5, TimeUnit.SECONDS) == 'bar'
+      followers.each { assert it.get(5, TimeUnit.SECONDS) == 'bar' }
+      assert calls.get() == 1
+      assert underTest.leaderCount == 1
+      assert underTest.coalescedCount == 7
+      assert !underTest.isInflight('foo')
+    }
+    finally {
+      executor.shutdownNow()
+    }
+  }
+
+  @Test
+  void 'sequential calls are not coalesced'() {
+    assert underTest.get('foo', { 'a' } as Callable<String>) == 'a'
+    assert underTest.get('foo', { 'b' } as Callable<String>) == 'b'
+    assert underTest.leaderCount == 2
+    assert underTest.coalescedCount == 0
+  }
+
+  @Test
+  void 'checked exceptions are wrapped'() {
+    try {
+      underTest.get('foo', { throw new IOException('boom') } as Callable<String>)
+      fail()
+    }
+    catch (ExecutionException e) {
+      assert e.cause instanceof IOException
+    }
+    assert !underTest.isInflight('foo')
+  }
+
+  @Test
+  void 'unchecked exceptions are rethrown'() {
+    try {
+      underTest.get('foo', { throw new IllegalStateException('boom') } as Callable<String>)
+      fail()
+    }
+    catch (IllegalStateException e) {
+      // expected
+    }
+  }
+}
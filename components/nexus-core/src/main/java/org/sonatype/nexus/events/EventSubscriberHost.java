@@ -13,6 +13,9 @@
 package org.sonatype.nexus.events;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
@@ -24,11 +27,13 @@ import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.sonatype.nexus.common.property.SystemPropertiesHelper;
+import org.sonatype.nexus.events.SubscriberDispatcher.OverflowPolicy;
 import org.sonatype.nexus.threads.NexusExecutorService;
 import org.sonatype.nexus.threads.NexusThreadFactory;
 import org.sonatype.sisu.goodies.eventbus.EventBus;
 import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
 
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
@@ -39,6 +44,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * A default host for {@link EventSubscriber}. This is an internal Nexus component and should not be used in
  * any plugin code, and hence, is subject of change without prior notice.
  *
+ * By default {@link Asynchronous} subscribers share one pool using direct hand-off, and when that pool is saturated,
+ * they run on the thread that posted the event. With dispatch mode {@code queued}, each subscriber class gets its own
+ * pool with a bounded queue instead, and a configurable {@link OverflowPolicy} decides what happens once it is full.
+ * Queue depth, wait and handler times of queued subscribers are published to the shared metrics registry.
+ *
  * @since 2.7.0
  */
 @Named
@@ -49,6 +59,19 @@ public class EventSubscriberHost
   private final int HOST_THREAD_POOL_SIZE = SystemPropertiesHelper.getInteger(
       EventSubscriberHost.class.getName() + ".poolSize", 500);
 
+  private final boolean QUEUED_DISPATCH = "queued".equals(SystemPropertiesHelper.getString(
+      EventSubscriberHost.class.getName() + ".dispatchMode", "shared"));
+
+  private final int SUBSCRIBER_THREADS = SystemPropertiesHelper.getInteger(
+      EventSubscriberHost.class.getName() + ".subscriberThreads", 4);
+
+  private final int SUBSCRIBER_QUEUE_SIZE = SystemPropertiesHelper.getInteger(
+      EventSubscriberHost.class.getName() + ".subscriberQueueSize", 1000);
+
+  private final OverflowPolicy SUBSCRIBER_OVERFLOW_POLICY = OverflowPolicy.valueOf(SystemPropertiesHelper.getString(
+      EventSubscriberHost.class.getName() + ".overflowPolicy", OverflowPolicy.CALLER_RUNS.name()).toUpperCase(
+      Locale.ENGLISH));
+
   private final EventBus eventBus;
 
   private final List<Provider<EventSubscriber>> eventSubscriberProviders;
@@ -57,6 +80,10 @@ public class EventSubscriberHost
 
   private final com.google.common.eventbus.AsyncEventBus asyncBus;
 
+  // dispatchers of queued mode, keyed by subscriber class
+  private final ConcurrentMap<Class<?>, SubscriberDispatcher> dispatchers =
+      new ConcurrentHashMap<Class<?>, SubscriberDispatcher>();
+
   @Inject
   public EventSubscriberHost(final EventBus eventBus, final List<Provider<EventSubscriber>> eventSubscriberProviders) {
     this.eventBus = checkNotNull(eventBus);
@@ -70,7 +97,13 @@ public class EventSubscriberHost
     this.asyncBus = new com.google.common.eventbus.AsyncEventBus("esh-async", hostThreadPool);
 
     eventBus.register(this);
-    log.info("Initialized");
+    if (QUEUED_DISPATCH) {
+      log.info("Initialized, queued dispatch: {} threads, queue of {}, on overflow {} per subscriber class",
+          SUBSCRIBER_THREADS, SUBSCRIBER_QUEUE_SIZE, SUBSCRIBER_OVERFLOW_POLICY);
+    }
+    else {
+      log.info("Initialized");
+    }
   }
 
   @Override
@@ -110,10 +143,22 @@ public class EventSubscriberHost
     catch (InterruptedException e) {
       log.debug("Interrupted while waiting for termination", e);
     }
+    for (SubscriberDispatcher dispatcher : dispatchers.values()) {
+      try {
+        dispatcher.shutdown(5L, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException e) {
+        log.debug("Interrupted while waiting for termination", e);
+      }
+    }
+    dispatchers.clear();
   }
 
   public void register(final Object object) {
-    if (object instanceof Asynchronous) {
+    if (object instanceof Asynchronous && QUEUED_DISPATCH) {
+      dispatcherFor(object.getClass()).register(object);
+    }
+    else if (object instanceof Asynchronous) {
       asyncBus.register(object);
     }
     else {
@@ -123,7 +168,13 @@ public class EventSubscriberHost
   }
 
   public void unregister(final Object object) {
-    if (object instanceof Asynchronous) {
+    if (object instanceof Asynchronous && QUEUED_DISPATCH) {
+      final SubscriberDispatcher dispatcher = dispatchers.get(object.getClass());
+      if (dispatcher != null) {
+        dispatcher.unregister(object);
+      }
+    }
+    else if (object instanceof Asynchronous) {
       asyncBus.unregister(object);
     }
     else {
@@ -138,6 +189,11 @@ public class EventSubscriberHost
   @VisibleForTesting
   public boolean isCalmPeriod() {
     // "calm period" is when we have no queued nor active threads
+    for (SubscriberDispatcher dispatcher : dispatchers.values()) {
+      if (!dispatcher.isCalm()) {
+        return false;
+      }
+    }
     return ((ThreadPoolExecutor) hostThreadPool.getTargetExecutorService()).getQueue().isEmpty()
         && ((ThreadPoolExecutor) hostThreadPool.getTargetExecutorService()).getActiveCount() == 0;
   }
@@ -146,5 +202,21 @@ public class EventSubscriberHost
   @AllowConcurrentEvents
   public void onEvent(final Object evt) {
     asyncBus.post(evt);
+    for (SubscriberDispatcher dispatcher : dispatchers.values()) {
+      dispatcher.post(evt);
+    }
+  }
+
+  private SubscriberDispatcher dispatcherFor(final Class<?> subscriberClass) {
+    // registration is rare, and a dispatcher must not be created twice as it owns a pool and metrics
+    synchronized (dispatchers) {
+      SubscriberDispatcher dispatcher = dispatchers.get(subscriberClass);
+      if (dispatcher == null) {
+        dispatcher = new SubscriberDispatcher(subscriberClass, SUBSCRIBER_THREADS, SUBSCRIBER_QUEUE_SIZE,
+            SUBSCRIBER_OVERFLOW_POLICY, SharedMetricRegistries.getOrCreate("nexus"));
+        dispatchers.put(subscriberClass, dispatcher);
+      }
+      return dispatcher;
+    }
   }
 }
@@ -0,0 +1,212 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.events;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.threads.NexusExecutorService;
+import org.sonatype.nexus.threads.NexusThreadFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.eventbus.AsyncEventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Dispatches events to the {@link Asynchronous} subscribers of one class, using a dedicated thread pool with a bounded
+ * queue. Subscribers of one class thus can not starve others, and what happens when the queue is full is decided by
+ * the {@link OverflowPolicy}. Queue depth, time spent waiting in queue, handler time and overflows are published as
+ * metrics named after the subscriber class.
+ *
+ * @since 3.0
+ */
+class SubscriberDispatcher
+{
+  /**
+   * What to do with an event when the queue of the subscriber class is full.
+   */
+  enum OverflowPolicy
+  {
+    /**
+     * Run the subscriber on the thread that posted the event.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Block the thread that posted the event until there is room in the queue.
+     */
+    BLOCK,
+
+    /**
+     * Drop the event for this subscriber class.
+     */
+    DISCARD
+  }
+
+  private static final Logger log = LoggerFactory.getLogger(SubscriberDispatcher.class);
+
+  private final String name;
+
+  private final MetricRegistry metricRegistry;
+
+  private final ThreadPoolExecutor executor;
+
+  private final NexusExecutorService subjectExecutor;
+
+  private final AsyncEventBus eventBus;
+
+  private final Timer waitTimer;
+
+  private final Timer handlerTimer;
+
+  private final Counter overflows;
+
+  SubscriberDispatcher(final Class<?> subscriberClass,
+                       final int threads,
+                       final int queueSize,
+                       final OverflowPolicy overflowPolicy,
+                       final MetricRegistry metricRegistry)
+  {
+    checkNotNull(subscriberClass);
+    checkArgument(threads > 0, "Threads must be positive");
+    checkArgument(queueSize > 0, "Queue size must be positive");
+    checkNotNull(overflowPolicy);
+    this.name = subscriberClass.getName();
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.waitTimer = metricRegistry.timer(metricName("wait"));
+    this.handlerTimer = metricRegistry.timer(metricName("handler"));
+    this.overflows = metricRegistry.counter(metricName("overflows"));
+
+    this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize),
+        new NexusThreadFactory("esh-" + subscriberClass.getSimpleName(), "Event Subscriber Host"),
+        rejectionHandler(overflowPolicy));
+    executor.allowCoreThreadTimeOut(true);
+    this.subjectExecutor = NexusExecutorService.forCurrentSubject(executor);
+    this.eventBus = new AsyncEventBus("esh-" + name, new Executor()
+    {
+      @Override
+      public void execute(final Runnable command) {
+        subjectExecutor.execute(new TimedRunnable(command));
+      }
+    });
+
+    metricRegistry.remove(metricName("queueDepth"));
+    metricRegistry.register(metricName("queueDepth"), new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return executor.getQueue().size();
+      }
+    });
+  }
+
+  void register(final Object subscriber) {
+    eventBus.register(subscriber);
+  }
+
+  void unregister(final Object subscriber) {
+    eventBus.unregister(subscriber);
+  }
+
+  void post(final Object event) {
+    eventBus.post(event);
+  }
+
+  /**
+   * Returns {@code true} if there are no queued events nor running handlers.
+   */
+  boolean isCalm() {
+    return executor.getQueue().isEmpty() && executor.getActiveCount() == 0;
+  }
+
+  void shutdown(final long timeout, final TimeUnit unit) throws InterruptedException {
+    subjectExecutor.shutdown();
+    subjectExecutor.awaitTermination(timeout, unit);
+    metricRegistry.remove(metricName("queueDepth"));
+  }
+
+  private String metricName(final String metric) {
+    return MetricRegistry.name(EventSubscriberHost.class, name, metric);
+  }
+
+  private RejectedExecutionHandler rejectionHandler(final OverflowPolicy overflowPolicy) {
+    final CallerRunsPolicy callerRuns = new CallerRunsPolicy();
+    return new RejectedExecutionHandler()
+    {
+      @Override
+      public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+        overflows.inc();
+        switch (overflowPolicy) {
+          case CALLER_RUNS:
+            callerRuns.rejectedExecution(r, executor);
+            break;
+          case BLOCK:
+            if (!executor.isShutdown()) {
+              try {
+                executor.getQueue().put(r);
+              }
+              catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting to dispatch event to {}, dropped", name);
+              }
+            }
+            break;
+          case DISCARD:
+            log.debug("Event queue of {} full, dropped event", name);
+            break;
+          default:
+            throw new IllegalStateException("Unknown overflow policy: " + overflowPolicy);
+        }
+      }
+    };
+  }
+
+  /**
+   * Records time spent in queue and time spent in the handler.
+   */
+  private class TimedRunnable
+      implements Runnable
+  {
+    private final Runnable delegate;
+
+    private final long queuedNanos = System.nanoTime();
+
+    private TimedRunnable(final Runnable delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void run() {
+      final long startNanos = System.nanoTime();
+      waitTimer.update(startNanos - queuedNanos, TimeUnit.NANOSECONDS);
+      try {
+        delegate.run();
+      }
+      finally {
+        handlerTimer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+}
@@ -53,10 +53,28 @@ public class BlobStoreManagerImpl
 
   private final Map<String,BlobStore> stores = Maps.newHashMap();
 
+  private final int metadataMaxBatchSize;
+
+  private final long metadataCommitWindowMillis;
+
+  private final boolean metadataSyncOnCommit;
+
+  private final int metadataCacheSize;
+
   @Inject
-  public BlobStoreManagerImpl(final ApplicationDirectories directories) {
+  public BlobStoreManagerImpl(
+      final ApplicationDirectories directories,
+      final @Named("${nexus.blobstore.metadata.maxBatchSize:-64}") int metadataMaxBatchSize,
+      final @Named("${nexus.blobstore.metadata.commitWindowMillis:-0}") long metadataCommitWindowMillis,
+      final @Named("${nexus.blobstore.metadata.syncOnCommit:-true}") boolean metadataSyncOnCommit,
+      final @Named("${nexus.blobstore.metadata.cacheSize:-10000}") int metadataCacheSize)
+  {
     checkNotNull(directories);
     this.basedir = directories.getWorkDirectory(BASEDIR).toPath();
+    this.metadataMaxBatchSize = metadataMaxBatchSize;
+    this.metadataCommitWindowMillis = metadataCommitWindowMillis;
+    this.metadataSyncOnCommit = metadataSyncOnCommit;
+    this.metadataCacheSize = metadataCacheSize;
   }
 
   // TODO: read configuration for blob-stores and start
@@ -116,13 +134,15 @@ public class BlobStoreManagerImpl
     Path root = basedir.resolve(name);
     Path content = root.resolve("content");
     Path metadata = root.resolve("metadata");
-    BlobMetadataStore metadataStore = MapdbBlobMetadataStore.create(metadata.toFile());
+    BlobMetadataStore metadataStore = MapdbBlobMetadataStore.create(metadata.toFile(),
+        metadataMaxBatchSize, metadataCommitWindowMillis, metadataSyncOnCommit);
 
     return new FileBlobStore(
         content,
         new VolumeChapterLocationStrategy(),
         new SimpleFileOperations(),
-        metadataStore
+        metadataStore,
+        metadataCacheSize
     );
   }
 }
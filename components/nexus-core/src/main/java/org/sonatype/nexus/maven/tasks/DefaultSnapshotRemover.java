@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -32,8 +33,6 @@ import org.sonatype.nexus.proxy.item.RepositoryItemUid;
 import org.sonatype.nexus.proxy.item.StorageCollectionItem;
 import org.sonatype.nexus.proxy.item.StorageFileItem;
 import org.sonatype.nexus.proxy.item.StorageItem;
-import org.sonatype.nexus.proxy.maven.MavenHostedRepository;
-import org.sonatype.nexus.proxy.maven.MavenProxyRepository;
 import org.sonatype.nexus.proxy.maven.MavenRepository;
 import org.sonatype.nexus.proxy.maven.RecreateMavenMetadataWalkerProcessor;
 import org.sonatype.nexus.proxy.maven.RepositoryPolicy;
@@ -56,6 +55,9 @@ import org.sonatype.nexus.proxy.wastebasket.DeleteOperation;
 import org.sonatype.nexus.scheduling.CancelableSupport;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -89,6 +91,9 @@ public class DefaultSnapshotRemover
 
   private VersionScheme versionScheme = new GenericVersionScheme();
 
+  private final Timer removalTimer = SharedMetricRegistries.getOrCreate("nexus")
+      .timer(MetricRegistry.name(SnapshotRemover.class, "removeSnapshots"));
+
   @Inject
   public DefaultSnapshotRemover(final RepositoryRegistry repositoryRegistry,
                                 final Walker walker,
@@ -110,23 +115,45 @@ public class DefaultSnapshotRemover
 
     logDetails(request);
 
-    if (request.getRepositoryId() != null) {
-      Repository repository = getRepositoryRegistry().getRepository(request.getRepositoryId());
+    final Timer.Context timer = removalTimer.time();
+    try {
+      if (request.getRepositoryId() != null) {
+        Repository repository = getRepositoryRegistry().getRepository(request.getRepositoryId());
 
-      if (!process(request, result, repository)) {
-        throw new IllegalArgumentException("The repository with ID=" + repository.getId()
-            + " is not valid for Snapshot Removal Task!");
+        if (!process(request, result, repository)) {
+          throw new IllegalArgumentException("The repository with ID=" + repository.getId()
+              + " is not valid for Snapshot Removal Task!");
+        }
+      }
+      else {
+        for (Repository repository : getRepositoryRegistry().getRepositories()) {
+          process(request, result, repository);
+        }
       }
     }
-    else {
-      for (Repository repository : getRepositoryRegistry().getRepositories()) {
-        process(request, result, repository);
+    finally {
+      final long elapsed = timer.stop();
+      if (log.isDebugEnabled()) {
+        final ReleaseCounterpartIndex index = request.getReleaseCounterpartIndex();
+        log.debug("Snapshot removal took {} ms, looked up {} release counterparts in {} release repositories",
+            TimeUnit.NANOSECONDS.toMillis(elapsed), index != null ? index.size() : 0,
+            index != null ? index.getReleaseRepositoryCount() : 0);
       }
     }
 
     return result;
   }
 
+  /**
+   * Returns the release counterpart index of the removal run, creating it on first use.
+   */
+  private ReleaseCounterpartIndex getReleaseCounterpartIndex(final SnapshotRemovalRequest request) {
+    if (request.getReleaseCounterpartIndex() == null) {
+      request.setReleaseCounterpartIndex(new ReleaseCounterpartIndex(getRepositoryRegistry()));
+    }
+    return request.getReleaseCounterpartIndex();
+  }
+
   private void process(SnapshotRemovalRequest request, SnapshotRemovalResult result, GroupRepository group) {
     for (Repository repository : group.getMemberRepositories()) {
       process(request, result, repository);
@@ -622,67 +649,7 @@ public class DefaultSnapshotRemover
     }
 
     public boolean releaseExistsForSnapshot(Gav snapshotGav, RequestContext context) {
-      long releaseTimestamp = -1;
-
-      for (Repository repository : repositoryRegistry.getRepositories()) {
-        // we need to filter for:
-        // repository that is MavenRepository and is hosted or proxy
-        // repository that has release policy
-        if (repository.getRepositoryKind().isFacetAvailable(MavenHostedRepository.class)
-            || repository.getRepositoryKind().isFacetAvailable(MavenProxyRepository.class)) {
-          // actually, we don't care is it proxy or hosted, we only need to filter out groups and other
-          // "composite" reposes like shadows
-          MavenRepository mrepository = repository.adaptToFacet(MavenRepository.class);
-
-          // look in release reposes only
-          if (mrepository.isUserManaged()
-              && RepositoryPolicy.RELEASE.equals(mrepository.getRepositoryPolicy())) {
-            try {
-              String releaseVersion = null;
-
-              // NEXUS-3148
-              if (snapshotGav.getBaseVersion().endsWith("-SNAPSHOT")) {
-                // "-SNAPSHOT" :== 9 chars
-                releaseVersion =
-                    snapshotGav.getBaseVersion().substring(0,
-                        snapshotGav.getBaseVersion().length() - 9);
-              }
-              else {
-                // "SNAPSHOT" :== 8 chars
-                releaseVersion =
-                    snapshotGav.getBaseVersion().substring(0,
-                        snapshotGav.getBaseVersion().length() - 8);
-              }
-
-              Gav releaseGav =
-                  new Gav(snapshotGav.getGroupId(), snapshotGav.getArtifactId(), releaseVersion,
-                      snapshotGav.getClassifier(), snapshotGav.getExtension(), null, null, null, false,
-                      null, false, null);
-
-              String path = mrepository.getGavCalculator().gavToPath(releaseGav);
-
-              final ResourceStoreRequest req = new ResourceStoreRequest(path, true, false);
-              req.getRequestContext().setParentContext(context);
-
-              log.debug("Checking for release counterpart in repository '{}' and path '{}'",
-                  mrepository.getId(), req.toString());
-
-              final StorageItem item = mrepository.retrieveItem(false, req);
-
-              releaseTimestamp = item.getCreated();
-
-              break;
-            }
-            catch (ItemNotFoundException e) {
-              // nothing
-            }
-            catch (Exception e) {
-              // nothing
-              log.debug("Unexpected exception!", e);
-            }
-          }
-        }
-      }
+      long releaseTimestamp = getReleaseCounterpartIndex(request).getReleaseTimestamp(snapshotGav, context);
 
       return releaseTimestamp == 0  // 0 when item creation day is unknown
           || (releaseTimestamp > 0 && startTime > releaseTimestamp + gracePeriodInMillis);
@@ -0,0 +1,224 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.maven.tasks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sonatype.nexus.proxy.ItemNotFoundException;
+import org.sonatype.nexus.proxy.RequestContext;
+import org.sonatype.nexus.proxy.ResourceStoreRequest;
+import org.sonatype.nexus.proxy.item.StorageCollectionItem;
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.maven.MavenHostedRepository;
+import org.sonatype.nexus.proxy.maven.MavenProxyRepository;
+import org.sonatype.nexus.proxy.maven.MavenRepository;
+import org.sonatype.nexus.proxy.maven.RepositoryPolicy;
+import org.sonatype.nexus.proxy.maven.gav.Gav;
+import org.sonatype.nexus.proxy.registry.RepositoryRegistry;
+import org.sonatype.nexus.proxy.repository.Repository;
+import org.sonatype.nexus.proxy.utils.PathUtils;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Index of release GA:V to release creation time, used by snapshot removal to check for release counterparts of
+ * snapshots. Built up during one snapshot removal run: the version directories of a GA are listed once per release
+ * repository when the GA is first looked up, and the creation time of a release is retrieved once per GA:V. This
+ * replaces retrieving the release POM from every release repository for every snapshot POM considered.
+ *
+ * @since 3.0
+ */
+class ReleaseCounterpartIndex
+    extends ComponentSupport
+{
+  /**
+   * Returned when no release exists.
+   */
+  static final long NO_RELEASE = -1;
+
+  private final List<MavenRepository> releaseRepositories;
+
+  /**
+   * Release GA:V (plus classifier and extension) to creation time, or {@link #NO_RELEASE}.
+   */
+  private final Map<String, Long> releaseTimestamps = Maps.newHashMap();
+
+  /**
+   * Repository ID and GA directory to version directories present in it.
+   */
+  private final Map<String, Set<String>> versionDirectories = Maps.newHashMap();
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  private final Timer lookups;
+
+  ReleaseCounterpartIndex(final RepositoryRegistry repositoryRegistry) {
+    this.releaseRepositories = Lists.newArrayList();
+    for (Repository repository : repositoryRegistry.getRepositories()) {
+      // we need to filter for:
+      // repository that is MavenRepository and is hosted or proxy
+      // repository that has release policy
+      if (repository.getRepositoryKind().isFacetAvailable(MavenHostedRepository.class)
+          || repository.getRepositoryKind().isFacetAvailable(MavenProxyRepository.class)) {
+        // actually, we don't care is it proxy or hosted, we only need to filter out groups and other
+        // "composite" reposes like shadows
+        MavenRepository mrepository = repository.adaptToFacet(MavenRepository.class);
+
+        // look in release reposes only
+        if (mrepository.isUserManaged() && RepositoryPolicy.RELEASE.equals(mrepository.getRepositoryPolicy())) {
+          releaseRepositories.add(mrepository);
+        }
+      }
+    }
+
+    final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+    this.hits = metricRegistry.counter(MetricRegistry.name(SnapshotRemover.class, "releaseIndexHits"));
+    this.misses = metricRegistry.counter(MetricRegistry.name(SnapshotRemover.class, "releaseIndexMisses"));
+    this.lookups = metricRegistry.timer(MetricRegistry.name(SnapshotRemover.class, "releaseLookups"));
+  }
+
+  /**
+   * Returns the creation time of the release counterpart of given snapshot GAV, as found in first release repository
+   * having it, or {@link #NO_RELEASE}.
+   */
+  long getReleaseTimestamp(final Gav snapshotGav, final RequestContext context) {
+    final Gav releaseGav = toReleaseGav(snapshotGav);
+    final String key = releaseGav.getGroupId() + ":" + releaseGav.getArtifactId() + ":" + releaseGav.getVersion()
+        + ":" + releaseGav.getClassifier() + ":" + releaseGav.getExtension();
+
+    Long releaseTimestamp = releaseTimestamps.get(key);
+    if (releaseTimestamp != null) {
+      hits.inc();
+      return releaseTimestamp;
+    }
+
+    misses.inc();
+    final Timer.Context timer = lookups.time();
+    try {
+      releaseTimestamp = lookupReleaseTimestamp(releaseGav, context);
+    }
+    finally {
+      timer.stop();
+    }
+    releaseTimestamps.put(key, releaseTimestamp);
+    return releaseTimestamp;
+  }
+
+  private long lookupReleaseTimestamp(final Gav releaseGav, final RequestContext context) {
+    for (MavenRepository repository : releaseRepositories) {
+      try {
+        final String path = repository.getGavCalculator().gavToPath(releaseGav);
+
+        if (!containsVersionDirectory(repository, PathUtils.getParentPath(path), context)) {
+          continue;
+        }
+
+        final ResourceStoreRequest req = new ResourceStoreRequest(path, true, false);
+        req.getRequestContext().setParentContext(context);
+
+        log.debug("Checking for release counterpart in repository '{}' and path '{}'",
+            repository.getId(), req.toString());
+
+        return repository.retrieveItem(false, req).getCreated();
+      }
+      catch (ItemNotFoundException e) {
+        // nothing
+      }
+      catch (Exception e) {
+        // nothing
+        log.debug("Unexpected exception!", e);
+      }
+    }
+    return NO_RELEASE;
+  }
+
+  /**
+   * Checks for the version directory in the listing of its GA directory, listing every GA directory of a
+   * repository only once.
+   */
+  private boolean containsVersionDirectory(final MavenRepository repository, final String versionDirectory,
+                                           final RequestContext context)
+  {
+    final String gaDirectory = PathUtils.getParentPath(versionDirectory);
+    final String key = repository.getId() + ":" + gaDirectory;
+
+    Set<String> versions = versionDirectories.get(key);
+    if (versions == null) {
+      versions = Sets.newHashSet();
+      try {
+        final ResourceStoreRequest req = new ResourceStoreRequest(gaDirectory, true, false);
+        req.getRequestContext().setParentContext(context);
+        for (StorageItem item : repository.list(false, req)) {
+          if (item instanceof StorageCollectionItem) {
+            versions.add(item.getPath());
+          }
+        }
+      }
+      catch (ItemNotFoundException e) {
+        // no release of this GA here
+      }
+      catch (Exception e) {
+        log.debug("Unexpected exception!", e);
+      }
+      versionDirectories.put(key, versions);
+    }
+    return versions.contains(versionDirectory);
+  }
+
+  private static Gav toReleaseGav(final Gav snapshotGav) {
+    String releaseVersion = null;
+
+    // NEXUS-3148
+    if (snapshotGav.getBaseVersion().endsWith("-SNAPSHOT")) {
+      // "-SNAPSHOT" :== 9 chars
+      releaseVersion =
+          snapshotGav.getBaseVersion().substring(0,
+              snapshotGav.getBaseVersion().length() - 9);
+    }
+    else {
+      // "SNAPSHOT" :== 8 chars
+      releaseVersion =
+          snapshotGav.getBaseVersion().substring(0,
+              snapshotGav.getBaseVersion().length() - 8);
+    }
+
+    return new Gav(snapshotGav.getGroupId(), snapshotGav.getArtifactId(), releaseVersion,
+        snapshotGav.getClassifier(), snapshotGav.getExtension(), null, null, null, false,
+        null, false, null);
+  }
+
+  /**
+   * Returns count of release repositories being indexed.
+   */
+  int getReleaseRepositoryCount() {
+    return releaseRepositories.size();
+  }
+
+  /**
+   * Returns count of GA:Vs looked up.
+   */
+  int size() {
+    return releaseTimestamps.size();
+  }
+}
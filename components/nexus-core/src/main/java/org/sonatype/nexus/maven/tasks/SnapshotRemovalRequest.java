@@ -33,6 +33,8 @@ public class SnapshotRemovalRequest
 
   private final boolean useLastRequestedTimestamp;
 
+  private ReleaseCounterpartIndex releaseCounterpartIndex;
+
   /**
    * Old behavior without changing trash or delete (always trash).
    * <p/>
@@ -116,4 +118,15 @@ public class SnapshotRemovalRequest
     return useLastRequestedTimestamp;
   }
 
+  /**
+   * The release counterpart index of this removal run, if created yet.
+   */
+  ReleaseCounterpartIndex getReleaseCounterpartIndex() {
+    return releaseCounterpartIndex;
+  }
+
+  void setReleaseCounterpartIndex(final ReleaseCounterpartIndex releaseCounterpartIndex) {
+    this.releaseCounterpartIndex = releaseCounterpartIndex;
+  }
+
 }
@@ -15,11 +15,13 @@ package org.sonatype.nexus.proxy.access;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.nexus.common.property.SystemPropertiesHelper;
 import org.sonatype.nexus.proxy.NoSuchRepositoryException;
 import org.sonatype.nexus.proxy.ResourceStoreRequest;
 import org.sonatype.nexus.proxy.registry.RepositoryRegistry;
@@ -27,13 +29,31 @@ import org.sonatype.nexus.proxy.repository.GroupRepository;
 import org.sonatype.nexus.proxy.repository.Repository;
 import org.sonatype.nexus.proxy.targets.TargetMatch;
 import org.sonatype.nexus.proxy.targets.TargetSet;
+import org.sonatype.nexus.security.SecurityConfigurationChanged;
 import org.sonatype.nexus.security.SecuritySystem;
+import org.sonatype.nexus.security.UserPrincipalsExpired;
+import org.sonatype.nexus.security.authz.AuthorizationConfigurationChanged;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.eventbus.Subscribe;
+import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.subject.Subject;
 
 /**
  * Default implementation of Nexus Authorizer, that relies onto JSecurity.
+ *
+ * Permission decisions are cached per subject principals and permission, as a build downloading thousands of files
+ * would otherwise have the same target permissions resolved over and over again. The cache is bounded, entries expire
+ * after a short while to pick up changes made outside of Nexus (like external realms), and it is flushed whenever the
+ * security or authorization configuration changes, or user principals are expired.
  */
 @Named
 @Singleton
@@ -41,16 +61,32 @@ public class DefaultNexusItemAuthorizer
     extends ComponentSupport
     implements NexusItemAuthorizer
 {
+  private static final int DECISION_CACHE_SIZE = SystemPropertiesHelper.getInteger(
+      "nexus.authorizer.decisionCacheSize", 10000);
+
+  private static final int DECISION_CACHE_TTL_SECONDS = SystemPropertiesHelper.getInteger(
+      "nexus.authorizer.decisionCacheTtlSeconds", 60);
+
   private final SecuritySystem securitySystem;
 
   private final RepositoryRegistry repoRegistry;
 
+  private final Cache<DecisionKey, Boolean> decisions;
+
   @Inject
   public DefaultNexusItemAuthorizer(final SecuritySystem securitySystem,
-                                    final RepositoryRegistry repoRegistry)
+                                    final RepositoryRegistry repoRegistry,
+                                    final EventBus eventBus)
   {
     this.securitySystem = securitySystem;
     this.repoRegistry = repoRegistry;
+    this.decisions = CacheBuilder.newBuilder()
+        .maximumSize(DECISION_CACHE_SIZE)
+        .expireAfterWrite(DECISION_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+    registerGauges(SharedMetricRegistries.getOrCreate("nexus"));
+    eventBus.register(this);
   }
 
   public boolean authorizePath(final Repository repository, final ResourceStoreRequest request, final Action action) {
@@ -158,8 +194,7 @@ public class DefaultNexusItemAuthorizer
       log.trace("Checking if subject '{}' has one of these permissions: {}", subject.getPrincipal(), perms);
     }
     for (String perm : perms) {
-      if (subject.isPermitted(perm)) {
-        // TODO: we should remember/cache these decisions per-thread and not re-evaluate it always from Security
+      if (isPermitted(subject, perm)) {
         if (trace) {
           log.trace("Subject '{}' has permission: {}; allowing", subject.getPrincipal(), perm);
         }
@@ -173,4 +208,115 @@ public class DefaultNexusItemAuthorizer
 
     return false;
   }
+
+  /**
+   * Returns the decision for given subject and permission, cached if the subject has principals.
+   */
+  private boolean isPermitted(final Subject subject, final String perm) {
+    final PrincipalCollection principals = subject.getPrincipals();
+    if (principals == null || principals.isEmpty()) {
+      return subject.isPermitted(perm);
+    }
+
+    final DecisionKey key = new DecisionKey(principals, perm);
+    Boolean decision = decisions.getIfPresent(key);
+    if (decision == null) {
+      decision = subject.isPermitted(perm);
+      decisions.put(key, decision);
+    }
+    return decision;
+  }
+
+  /**
+   * Returns statistics of the permission decision cache.
+   */
+  public CacheStats getDecisionCacheStats() {
+    return decisions.stats();
+  }
+
+  private void invalidateDecisions() {
+    log.debug("Invalidating {} cached permission decisions", decisions.size());
+    decisions.invalidateAll();
+  }
+
+  @Subscribe
+  public void on(final AuthorizationConfigurationChanged event) {
+    invalidateDecisions();
+  }
+
+  @Subscribe
+  public void on(final SecurityConfigurationChanged event) {
+    invalidateDecisions();
+  }
+
+  @Subscribe
+  public void on(final UserPrincipalsExpired event) {
+    invalidateDecisions();
+  }
+
+  private void registerGauges(final MetricRegistry metricRegistry) {
+    registerGauge(metricRegistry, "hits", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return decisions.stats().hitCount();
+      }
+    });
+    registerGauge(metricRegistry, "misses", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return decisions.stats().missCount();
+      }
+    });
+    registerGauge(metricRegistry, "evictions", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return decisions.stats().evictionCount();
+      }
+    });
+    registerGauge(metricRegistry, "size", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return decisions.size();
+      }
+    });
+  }
+
+  private void registerGauge(final MetricRegistry metricRegistry, final String name, final Gauge<Long> gauge) {
+    final String metricName = MetricRegistry.name(NexusItemAuthorizer.class, "decisions", name);
+    metricRegistry.remove(metricName);
+    metricRegistry.register(metricName, gauge);
+  }
+
+  private static class DecisionKey
+  {
+    private final PrincipalCollection principals;
+
+    private final String permission;
+
+    private DecisionKey(final PrincipalCollection principals, final String permission) {
+      this.principals = principals;
+      this.permission = permission;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      DecisionKey that = (DecisionKey) o;
+      return principals.equals(that.principals) && permission.equals(that.permission);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(principals, permission);
+    }
+  }
 }
@@ -12,9 +12,6 @@
  */
 package org.sonatype.nexus.proxy.item;
 
-import java.lang.ref.WeakReference;
-import java.util.WeakHashMap;
-
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -53,8 +50,7 @@ public class DefaultRepositoryItemUidFactory
 
   private final ResourceLockFactory sisuLockFactory;
 
-  private final WeakHashMap<DefaultRepositoryItemUidLock, WeakReference<DefaultRepositoryItemUidLock>> locks =
-      new WeakHashMap<DefaultRepositoryItemUidLock, WeakReference<DefaultRepositoryItemUidLock>>();
+  private final LockResourceRegistry locks;
 
   @Inject
   public DefaultRepositoryItemUidFactory(final EventBus eventBus, final RepositoryRegistry repositoryRegistry,
@@ -63,6 +59,7 @@ public class DefaultRepositoryItemUidFactory
     this.eventBus = checkNotNull(eventBus);
     this.repositoryRegistry = checkNotNull(repositoryRegistry);
     this.sisuLockFactory = sisuLockFactory;
+    this.locks = new LockResourceRegistry(sisuLockFactory);
     log.debug("Lock factory: {}", sisuLockFactory);
     eventBus.register(this);
   }
@@ -110,34 +107,19 @@ public class DefaultRepositoryItemUidFactory
   
   @Override
   public DefaultRepositoryItemUidLock createUidLock(final RepositoryItemUid uid) {
-    final String key = new String(uid.getKey());
-
-    return doCreateUidLockForKey(key);
+    return doCreateUidLockForKey(uid.getKey());
   }
 
-  protected synchronized DefaultRepositoryItemUidLock doCreateUidLockForKey(final String key) {
-    final LockResource lockResource;
-    if (sisuLockFactory != null) {
-      lockResource = new SisuLockResource(sisuLockFactory.getResourceLock(key));
-    }
-    else {
-      lockResource = new SimpleLockResource();
-    }
-    final DefaultRepositoryItemUidLock newLock = new DefaultRepositoryItemUidLock(key, lockResource);
-    final WeakReference<DefaultRepositoryItemUidLock> oldLockRef = locks.get(newLock);
-    if (oldLockRef != null) {
-      final RepositoryItemUidLock oldLock = oldLockRef.get();
-
-      if (oldLock != null) {
-        return oldLockRef.get();
-      }
-    }
-    locks.put(newLock, new WeakReference<DefaultRepositoryItemUidLock>(newLock));
-    return newLock;
+  /**
+   * Creates a lock for given key. Locks of same key share the underlying lock resource, which is registered only
+   * while some thread holds it, hence creating locks does not contend nor retain anything.
+   */
+  protected DefaultRepositoryItemUidLock doCreateUidLockForKey(final String key) {
+    return new DefaultRepositoryItemUidLock(key, locks.lockResource(key));
   }
 
   /**
-   * For UTs, not to be used in production code!
+   * For UTs, not to be used in production code! Returns the number of keys currently locked.
    */
   protected int locksInMap() {
     return locks.size();
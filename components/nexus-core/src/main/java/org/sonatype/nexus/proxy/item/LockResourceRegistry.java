@@ -0,0 +1,175 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.item;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.sisu.locks.ResourceLockFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Registry of {@link LockResource}s keyed by UID key, holding a resource only while some thread has it locked.
+ *
+ * Entries are reference counted: every lock acquisition increments the count of the entry for the key (creating the
+ * entry if needed), every unlock decrements it, and the entry is removed once the count drops to zero. As long as any
+ * thread holds the lock of a key, every acquisition for that key resolves to the very same resource. There is no
+ * global monitor, lookups go through a concurrent map and counting synchronizes on the entry of the key only.
+ *
+ * @since 3.0
+ */
+class LockResourceRegistry
+{
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+  private final ResourceLockFactory sisuLockFactory;
+
+  LockResourceRegistry(final @Nullable ResourceLockFactory sisuLockFactory) {
+    this.sisuLockFactory = sisuLockFactory;
+  }
+
+  /**
+   * Returns a {@link LockResource} for given key, that registers the shared resource of the key only while locked.
+   */
+  LockResource lockResource(final String key) {
+    return new RegisteredLockResource(checkNotNull(key));
+  }
+
+  /**
+   * Returns the number of keys currently having a registered resource.
+   */
+  int size() {
+    return entries.size();
+  }
+
+  private LockResource newLockResource(final String key) {
+    if (sisuLockFactory != null) {
+      return new SisuLockResource(sisuLockFactory.getResourceLock(key));
+    }
+    else {
+      return new SimpleLockResource();
+    }
+  }
+
+  private Entry acquire(final String key) {
+    for (;;) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        final Entry created = new Entry(key, newLockResource(key));
+        entry = entries.putIfAbsent(key, created);
+        if (entry == null) {
+          return created;
+        }
+      }
+      synchronized (entry) {
+        if (entry.holds > 0) {
+          entry.holds++;
+          return entry;
+        }
+      }
+      // entry was released and removed meanwhile, start over
+    }
+  }
+
+  private void release(final Entry entry) {
+    synchronized (entry) {
+      if (--entry.holds == 0) {
+        entries.remove(entry.key, entry);
+      }
+    }
+  }
+
+  private static class Entry
+  {
+    private final String key;
+
+    private final LockResource resource;
+
+    // guarded by this
+    private int holds = 1;
+
+    private Entry(final String key, final LockResource resource) {
+      this.key = key;
+      this.resource = resource;
+    }
+  }
+
+  private class RegisteredLockResource
+      implements LockResource
+  {
+    private final String key;
+
+    private RegisteredLockResource(final String key) {
+      this.key = key;
+    }
+
+    @Override
+    public void lockShared() {
+      final Entry entry = acquire(key);
+      boolean locked = false;
+      try {
+        entry.resource.lockShared();
+        locked = true;
+      }
+      finally {
+        if (!locked) {
+          release(entry);
+        }
+      }
+    }
+
+    @Override
+    public void lockExclusively() {
+      final Entry entry = acquire(key);
+      boolean locked = false;
+      try {
+        entry.resource.lockExclusively();
+        locked = true;
+      }
+      finally {
+        if (!locked) {
+          release(entry);
+        }
+      }
+    }
+
+    @Override
+    public void unlock() {
+      // the entry cannot go away while the caller still holds the lock
+      final Entry entry = entries.get(key);
+      if (entry == null) {
+        throw new IllegalMonitorStateException("Lock not held: " + key);
+      }
+      entry.resource.unlock();
+      release(entry);
+    }
+
+    @Override
+    public boolean hasLocksHeld() {
+      final Entry entry = entries.get(key);
+      return entry != null && entry.resource.hasLocksHeld();
+    }
+
+    /**
+     * Mainly for debug purposes, see DefaultRepositoryItemUidIT UT how is this used to verify conditions.
+     */
+    @Override
+    public String toString() {
+      final Entry entry = entries.get(key);
+      return entry != null ? entry.resource.toString() : "[Write locks = 0, Read locks = 0]";
+    }
+  }
+}
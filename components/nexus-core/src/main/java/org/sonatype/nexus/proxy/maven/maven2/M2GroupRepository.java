@@ -24,6 +24,7 @@ import javax.enterprise.inject.Typed;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.common.property.SystemPropertiesHelper;
 import org.sonatype.nexus.configuration.Configurator;
 import org.sonatype.nexus.configuration.model.CRepository;
 import org.sonatype.nexus.configuration.model.CRepositoryExternalConfigurationHolderFactory;
@@ -32,6 +33,10 @@ import org.sonatype.nexus.proxy.ItemNotFoundException;
 import org.sonatype.nexus.proxy.LocalStorageException;
 import org.sonatype.nexus.proxy.ResourceStoreRequest;
 import org.sonatype.nexus.proxy.StorageException;
+import org.sonatype.nexus.proxy.events.RepositoryItemEvent;
+import org.sonatype.nexus.proxy.events.RepositoryItemEventCache;
+import org.sonatype.nexus.proxy.events.RepositoryItemEventDelete;
+import org.sonatype.nexus.proxy.events.RepositoryItemEventStore;
 import org.sonatype.nexus.proxy.events.RepositoryItemValidationEvent;
 import org.sonatype.nexus.proxy.item.ByteArrayContentLocator;
 import org.sonatype.nexus.proxy.item.ContentLocator;
@@ -56,7 +61,14 @@ import org.sonatype.nexus.proxy.registry.ContentClass;
 import org.sonatype.nexus.proxy.repository.GroupRepository;
 import org.sonatype.nexus.proxy.storage.UnsupportedStorageOperationException;
 import org.sonatype.nexus.proxy.utils.RepositoryStringUtils;
-
+import org.sonatype.nexus.proxy.walker.WalkerFilter;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
 import com.google.common.hash.Hashing;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
@@ -76,6 +88,12 @@ public class M2GroupRepository
    */
   public static final String ID = Maven2ContentClass.ID;
 
+  /**
+   * Maximum number of merged maven-metadata.xml files remembered per group.
+   */
+  private static final int MERGED_METADATA_CACHE_SIZE = SystemPropertiesHelper.getInteger(
+      M2GroupRepository.class.getName() + ".mergedMetadataCacheSize", 1000);
+
   private final ContentClass contentClass;
 
   /**
@@ -88,6 +106,16 @@ public class M2GroupRepository
    */
   private final M2GroupRepositoryConfigurator m2GroupRepositoryConfigurator;
 
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
+  /**
+   * Result of last metadata merge per request path. Entries are only reused while the member items they were
+   * merged from are unchanged, and are evicted when metadata on their path is stored or deleted in any repository.
+   */
+  private final Cache<String, MergedMetadata> mergedMetadataCache = CacheBuilder.newBuilder()
+      .maximumSize(MERGED_METADATA_CACHE_SIZE)
+      .build();
+
   @Inject
   public M2GroupRepository(final @Named(Maven2ContentClass.ID) ContentClass contentClass, 
                            final @Named("maven2") GavCalculator gavCalculator,
@@ -153,6 +181,41 @@ public class M2GroupRepository
     return super.doRetrieveItem(request);
   }
 
+  @Override
+  protected boolean doExpireCaches(final ResourceStoreRequest request, final WalkerFilter filter) {
+    mergedMetadataCache.invalidateAll();
+    return super.doExpireCaches(request, filter);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final RepositoryItemEventStore evt) {
+    maybeInvalidateMergedMetadata(evt);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final RepositoryItemEventCache evt) {
+    maybeInvalidateMergedMetadata(evt);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final RepositoryItemEventDelete evt) {
+    maybeInvalidateMergedMetadata(evt);
+  }
+
+  /**
+   * Evicts merged metadata of the event item path. Membership is not checked, as items of nested group members are
+   * relevant too and eviction of an unrelated path costs a single merge at most.
+   */
+  private void maybeInvalidateMergedMetadata(final RepositoryItemEvent evt) {
+    final String path = evt.getItemUid().getPath();
+    if (M2ArtifactRecognizer.isMetadata(path) && !M2ArtifactRecognizer.isChecksum(path)) {
+      mergedMetadataCache.invalidate(path);
+    }
+  }
+
   /**
    * Parse a maven Metadata object from a storage file item
    */
@@ -216,97 +279,151 @@ public class M2GroupRepository
       return items.get(0);
     }
 
-    List<Metadata> existingMetadatas = new ArrayList<Metadata>();
-
     try {
-      for (StorageItem item : items) {
-        if (!(item instanceof StorageFileItem)) {
-          break;
-        }
+      List<String> sources = getMergedMetadataSources(items);
+      MergedMetadata merged = mergedMetadataCache.getIfPresent(request.getRequestPath());
+      boolean hit = merged != null && merged.sources.equals(sources);
+      if (hit) {
+        metricRegistry.counter(MetricRegistry.name(GroupRepository.class, getId(), "mergedMetadataHits")).inc();
+      }
+      else {
+        metricRegistry.counter(MetricRegistry.name(GroupRepository.class, getId(), "mergedMetadataMisses")).inc();
+        merged = mergeMetadata(request, items, sources);
+        mergedMetadataCache.put(request.getRequestPath(), merged);
+      }
 
-        StorageFileItem fileItem = (StorageFileItem) item;
+      StorageItem item = createMergedMetadataItem(request, merged.content, items);
+      // lets groups containing this group recognize unchanged merge results
+      item.getRepositoryItemAttributes().put(StorageFileItem.DIGEST_SHA1_KEY, merged.sha1);
 
-        try {
-          existingMetadatas.add(parseMetadata(fileItem));
-        }
-        catch (IOException e) {
-          log.warn(
-              "IOException during parse of metadata UID=\"" + fileItem.getRepositoryItemUid().toString()
-                  + "\", will be skipped from aggregation!", e);
+      // build checksum files, unchanged merge result only needs them restored if they went missing
+      if (!hit || !containsMergedMetadataItemDigest(request, "MD5")) {
+        storeMergedMetadataItemDigest(request, merged.md5, items, "MD5");
+      }
+      if (!hit || !containsMergedMetadataItemDigest(request, "SHA1")) {
+        storeMergedMetadataItemDigest(request, merged.sha1, items, "SHA1");
+      }
 
-          eventBus().post(
-              newMetadataFailureEvent(fileItem,
-                  "Invalid metadata served by repository. If repository is proxy, please check out what is it serving!"));
-        }
-        catch (MetadataException e) {
-          log.warn(
-              "Metadata exception during parse of metadata from UID=\""
-                  + fileItem.getRepositoryItemUid().toString() + "\", will be skipped from aggregation!", e);
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "Item for path " + request.toString() + " merged from " + Integer.toString(items.size())
+                + " found items" + (hit ? " (unchanged)." : "."));
+      }
 
-          eventBus().post(
-              newMetadataFailureEvent(fileItem,
-                  "Invalid metadata served by repository. If repository is proxy, please check out what is it serving!"));
-        }
+      return item;
+
+    }
+    catch (IOException e) {
+      throw new LocalStorageException("Got IOException during M2 metadata merging.", e);
+    }
+    catch (MetadataException e) {
+      throw new LocalStorageException("Got MetadataException during M2 metadata merging.", e);
+    }
+  }
+
+  /**
+   * Identifies the member metadata items a merge is built from: originating repository, its policy (as it filters
+   * versions) and the item content digest, or its modification time and length if the digest is not known.
+   */
+  private List<String> getMergedMetadataSources(List<StorageItem> items) {
+    List<String> sources = new ArrayList<String>(items.size());
+    for (StorageItem item : items) {
+      if (!(item instanceof StorageFileItem)) {
+        break;
       }
 
-      if (existingMetadatas.isEmpty()) {
-        throw new ItemNotFoundException(reasonFor(request, this,
-            "Metadata %s not parseable in any of the members of %s.", request.getRequestPath(),
-            RepositoryStringUtils.getHumanizedNameString(this)));
+      StorageFileItem fileItem = (StorageFileItem) item;
+      MavenRepository repo = fileItem.getRepositoryItemUid().getRepository().adaptToFacet(MavenRepository.class);
+      String digest = fileItem.getRepositoryItemAttributes().get(StorageFileItem.DIGEST_SHA1_KEY);
+      if (digest == null) {
+        digest = fileItem.getModified() + ":" + fileItem.getLength();
       }
+      sources.add(repo.getId() + ":" + repo.getRepositoryPolicy() + ":" + digest);
+    }
+    return sources;
+  }
 
-      Metadata result = existingMetadatas.get(0);
+  /**
+   * Parses and merges member metadata items.
+   */
+  private MergedMetadata mergeMetadata(ResourceStoreRequest request, List<StorageItem> items, List<String> sources)
+      throws IOException, MetadataException, ItemNotFoundException
+  {
+    List<Metadata> existingMetadatas = new ArrayList<Metadata>();
 
-      // do a merge if necessary
-      if (existingMetadatas.size() > 1) {
-        List<MetadataOperation> ops = new ArrayList<MetadataOperation>();
+    for (StorageItem item : items) {
+      if (!(item instanceof StorageFileItem)) {
+        break;
+      }
 
-        for (int i = 1; i < existingMetadatas.size(); i++) {
-          ops.add(new NexusMergeOperation(new MetadataOperand(existingMetadatas.get(i))));
-        }
+      StorageFileItem fileItem = (StorageFileItem) item;
 
-        final Collection<MetadataException> metadataExceptions =
-            MetadataBuilder.changeMetadataIgnoringFailures(result, ops);
-        if (metadataExceptions != null && !metadataExceptions.isEmpty()) {
-          for (final MetadataException metadataException : metadataExceptions) {
-            log.warn(
-                "Ignored exception during M2 metadata merging: " + metadataException.getMessage()
-                    + " (request " + request.getRequestPath() + ")", metadataException);
-          }
-        }
+      try {
+        existingMetadatas.add(parseMetadata(fileItem));
       }
+      catch (IOException e) {
+        log.warn(
+            "IOException during parse of metadata UID=\"" + fileItem.getRepositoryItemUid().toString()
+                + "\", will be skipped from aggregation!", e);
+
+        eventBus().post(
+            newMetadataFailureEvent(fileItem,
+                "Invalid metadata served by repository. If repository is proxy, please check out what is it serving!"));
+      }
+      catch (MetadataException e) {
+        log.warn(
+            "Metadata exception during parse of metadata from UID=\""
+                + fileItem.getRepositoryItemUid().toString() + "\", will be skipped from aggregation!", e);
+
+        eventBus().post(
+            newMetadataFailureEvent(fileItem,
+                "Invalid metadata served by repository. If repository is proxy, please check out what is it serving!"));
+      }
+    }
 
-      // build the result item
-      ByteArrayOutputStream resultOutputStream = new ByteArrayOutputStream();
+    if (existingMetadatas.isEmpty()) {
+      throw new ItemNotFoundException(reasonFor(request, this,
+          "Metadata %s not parseable in any of the members of %s.", request.getRequestPath(),
+          RepositoryStringUtils.getHumanizedNameString(this)));
+    }
 
-      MetadataBuilder.write(result, resultOutputStream);
+    Metadata result = existingMetadatas.get(0);
 
-      StorageItem item = createMergedMetadataItem(request, resultOutputStream.toByteArray(), items);
+    // do a merge if necessary
+    if (existingMetadatas.size() > 1) {
+      List<MetadataOperation> ops = new ArrayList<MetadataOperation>();
 
-      // build checksum files
-      String md5Digest = Hashing.md5().hashBytes(resultOutputStream.toByteArray()).toString();
-      String sha1Digest = Hashing.sha1().hashBytes(resultOutputStream.toByteArray()).toString();
+      for (int i = 1; i < existingMetadatas.size(); i++) {
+        ops.add(new NexusMergeOperation(new MetadataOperand(existingMetadatas.get(i))));
+      }
 
-      storeMergedMetadataItemDigest(request, md5Digest, items, "MD5");
-      storeMergedMetadataItemDigest(request, sha1Digest, items, "SHA1");
+      final Collection<MetadataException> metadataExceptions =
+          MetadataBuilder.changeMetadataIgnoringFailures(result, ops);
+      if (metadataExceptions != null && !metadataExceptions.isEmpty()) {
+        for (final MetadataException metadataException : metadataExceptions) {
+          log.warn(
+              "Ignored exception during M2 metadata merging: " + metadataException.getMessage()
+                  + " (request " + request.getRequestPath() + ")", metadataException);
+        }
+      }
+    }
 
-      resultOutputStream.close();
+    // build the result content
+    ByteArrayOutputStream resultOutputStream = new ByteArrayOutputStream();
 
-      if (log.isDebugEnabled()) {
-        log.debug(
-            "Item for path " + request.toString() + " merged from " + Integer.toString(items.size())
-                + " found items.");
-      }
+    MetadataBuilder.write(result, resultOutputStream);
 
-      return item;
+    byte[] content = resultOutputStream.toByteArray();
 
-    }
-    catch (IOException e) {
-      throw new LocalStorageException("Got IOException during M2 metadata merging.", e);
-    }
-    catch (MetadataException e) {
-      throw new LocalStorageException("Got MetadataException during M2 metadata merging.", e);
-    }
+    return new MergedMetadata(sources, content, Hashing.md5().hashBytes(content).toString(),
+        Hashing.sha1().hashBytes(content).toString());
+  }
+
+  private boolean containsMergedMetadataItemDigest(ResourceStoreRequest request, String algorithm)
+      throws LocalStorageException
+  {
+    ResourceStoreRequest req = new ResourceStoreRequest(request.getRequestPath() + "." + algorithm.toLowerCase());
+    return getLocalStorage().containsItem(this, req);
   }
 
   protected void storeMergedMetadataItemDigest(ResourceStoreRequest request, String digest,
@@ -364,4 +481,25 @@ public class M2GroupRepository
   private RepositoryItemValidationEvent newMetadataFailureEvent(StorageFileItem item, String msg) {
     return new MavenRepositoryMetadataValidationEventFailed(this, item, msg);
   }
+
+  /**
+   * Merged maven-metadata.xml content with its digests, and the member items it was merged from.
+   */
+  private static class MergedMetadata
+  {
+    final List<String> sources;
+
+    final byte[] content;
+
+    final String md5;
+
+    final String sha1;
+
+    MergedMetadata(List<String> sources, byte[] content, String md5, String sha1) {
+      this.sources = sources;
+      this.content = content;
+      this.md5 = md5;
+      this.sha1 = sha1;
+    }
+  }
 }
@@ -29,9 +29,11 @@ import org.sonatype.nexus.proxy.maven.routing.Config;
 import org.sonatype.nexus.proxy.maven.routing.discovery.DiscoveryResult;
 import org.sonatype.nexus.proxy.maven.routing.discovery.LocalContentDiscoverer;
 import org.sonatype.nexus.proxy.maven.routing.internal.task.CancelableUtil;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
 import org.sonatype.nexus.proxy.walker.AbstractWalkerProcessor;
 import org.sonatype.nexus.proxy.walker.DefaultStoreWalkerFilter;
 import org.sonatype.nexus.proxy.walker.DefaultWalkerContext;
+import org.sonatype.nexus.proxy.walker.EntryWalkerProcessor;
 import org.sonatype.nexus.proxy.walker.ParentOMatic;
 import org.sonatype.nexus.proxy.walker.Walker;
 import org.sonatype.nexus.proxy.walker.WalkerContext;
@@ -136,6 +138,7 @@ public class LocalContentDiscovererImpl
 
   protected static class PrefixCollectorProcessor
       extends AbstractWalkerProcessor
+      implements EntryWalkerProcessor
   {
     private final ParentOMatic parentOMatic;
 
@@ -170,5 +173,19 @@ public class LocalContentDiscovererImpl
         }
       }
     }
+
+    @Override
+    public void processEntry(final WalkerContext context, final LocalStorageEntry entry)
+        throws Exception
+    {
+      // cancelation
+      CancelableUtil.checkInterruption();
+      // only paths are needed, no need to load the item
+      if (entry.getPathDepth() == 0) {
+        parentOMatic.addPath(entry.getPath());
+      } else {
+        parentOMatic.addPath(entry.getParentPath());
+      }
+    }
   }
 }
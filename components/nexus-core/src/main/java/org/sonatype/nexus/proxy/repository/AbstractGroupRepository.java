@@ -18,9 +18,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.inject.Inject;
 
+import org.sonatype.nexus.common.property.SystemPropertiesHelper;
 import org.sonatype.nexus.proxy.AccessDeniedException;
 import org.sonatype.nexus.proxy.IllegalOperationException;
 import org.sonatype.nexus.proxy.ItemNotFoundException;
@@ -41,9 +49,14 @@ import org.sonatype.nexus.proxy.item.StorageItem;
 import org.sonatype.nexus.proxy.item.uid.IsGroupLocalOnlyAttribute;
 import org.sonatype.nexus.proxy.mapping.RequestRepositoryMapper;
 import org.sonatype.nexus.proxy.registry.RepositoryRegistry;
+import org.sonatype.nexus.proxy.repository.threads.ThreadPoolManager;
 import org.sonatype.nexus.proxy.utils.RepositoryStringUtils;
 import org.sonatype.nexus.proxy.walker.WalkerFilter;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
 
@@ -59,20 +72,39 @@ public abstract class AbstractGroupRepository
     extends AbstractRepository
     implements GroupRepository
 {
+  /**
+   * When enabled, {@link #doRetrieveItems(ResourceStoreRequest)} retrieves the item from all members concurrently,
+   * using the repository thread pool, if none of the members is a group.
+   */
+  private final boolean concurrentRetrieveItems = SystemPropertiesHelper.getBoolean(
+      "nexus.group.concurrentRetrieveItems", false);
+
+  /**
+   * Time, in seconds, concurrently retrieved members have to respond before they are skipped.
+   */
+  private final long memberRetrieveTimeoutSeconds = SystemPropertiesHelper.getLong(
+      "nexus.group.memberRetrieveTimeoutSeconds", 60);
+
   // == these below are injected
 
   private RepositoryRegistry repoRegistry;
 
   private RequestRepositoryMapper requestRepositoryMapper;
 
+  private ThreadPoolManager poolManager;
+
   // ==
 
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
   @Inject
   public void populateAbstractGroupRepository(
-      final RepositoryRegistry repoRegistry, final RequestRepositoryMapper requestRepositoryMapper)
+      final RepositoryRegistry repoRegistry, final RequestRepositoryMapper requestRepositoryMapper,
+      final ThreadPoolManager poolManager)
   {
     this.repoRegistry = checkNotNull(repoRegistry);
     this.requestRepositoryMapper = requestRepositoryMapper;
+    this.poolManager = checkNotNull(poolManager);
   }
 
   @Override
@@ -442,42 +474,49 @@ public abstract class AbstractGroupRepository
     final HashMap<Repository, Throwable> memberThrowables = Maps.newLinkedHashMap();
 
     if (!isRequestGroupLocalOnly) {
-      for (Repository repository : getRequestRepositories(request)) {
-        if (!request.getProcessedRepositories().contains(repository.getId())) {
-          try {
-            StorageItem item = repository.retrieveItem(false, request);
+      final List<Repository> requestRepositories = getRequestRepositories(request);
 
-            items.add(item);
-          }
-          catch (ItemNotFoundException e) {
-            // ignored, but bookkeeping happens now
-            memberThrowables.put(repository, e);
+      if (concurrentRetrieveItems && canRetrieveItemsConcurrently(requestRepositories)) {
+        retrieveItemsConcurrently(request, requestRepositories, items, memberThrowables);
+      }
+      else {
+        for (Repository repository : requestRepositories) {
+          if (!request.getProcessedRepositories().contains(repository.getId())) {
+            try {
+              StorageItem item = retrieveMemberItem(repository, request);
+
+              items.add(item);
+            }
+            catch (ItemNotFoundException e) {
+              // ignored, but bookkeeping happens now
+              memberThrowables.put(repository, e);
+            }
+            catch (RepositoryNotAvailableException e) {
+              if (log.isDebugEnabled()) {
+                log.debug(
+                    RepositoryStringUtils.getFormattedMessage(
+                        "Member repository %s is not available, request failed.", e.getRepository()));
+              }
+              // ignored, but bookkeeping happens now
+              memberThrowables.put(repository, e);
+            }
+            catch (StorageException e) {
+              throw e;
+            }
+            catch (IllegalOperationException e) {
+              log.warn("Member repository request failed", e);
+              // ignored, but bookkeeping happens now
+              memberThrowables.put(repository, e);
+            }
           }
-          catch (RepositoryNotAvailableException e) {
+          else {
             if (log.isDebugEnabled()) {
               log.debug(
-                  RepositoryStringUtils.getFormattedMessage(
-                      "Member repository %s is not available, request failed.", e.getRepository()));
+                  String.format(
+                      "Repository %s member of group %s was already processed during this request! Skipping it from processing. Request: %s",
+                      RepositoryStringUtils.getHumanizedNameString(repository),
+                      RepositoryStringUtils.getHumanizedNameString(this), request.toString()));
             }
-            // ignored, but bookkeeping happens now
-            memberThrowables.put(repository, e);
-          }
-          catch (StorageException e) {
-            throw e;
-          }
-          catch (IllegalOperationException e) {
-            log.warn("Member repository request failed", e);
-            // ignored, but bookkeeping happens now
-            memberThrowables.put(repository, e);
-          }
-        }
-        else {
-          if (log.isDebugEnabled()) {
-            log.debug(
-                String.format(
-                    "Repository %s member of group %s was already processed during this request! Skipping it from processing. Request: %s",
-                    RepositoryStringUtils.getHumanizedNameString(repository),
-                    RepositoryStringUtils.getHumanizedNameString(this), request.toString()));
           }
         }
       }
@@ -497,6 +536,139 @@ public abstract class AbstractGroupRepository
     return items;
   }
 
+  /**
+   * Members may be retrieved concurrently if there is more than one of them and none is a group, as nested groups
+   * rely on members processed earlier in the same request being skipped.
+   */
+  private boolean canRetrieveItemsConcurrently(final List<Repository> repositories) {
+    if (repositories.size() < 2) {
+      return false;
+    }
+    for (Repository repository : repositories) {
+      if (repository.getRepositoryKind().isFacetAvailable(GroupRepository.class)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves the item from all members using the repository thread pool, each member with its own copy of the
+   * request. Found items are added in member order, members failing to respond in time are skipped.
+   */
+  private void retrieveItemsConcurrently(final ResourceStoreRequest request, final List<Repository> repositories,
+                                         final List<StorageItem> items,
+                                         final Map<Repository, Throwable> memberThrowables)
+      throws StorageException
+  {
+    final ExecutorService executor = poolManager.getRepositoryThreadPool(this);
+    final Map<Repository, ResourceStoreRequest> memberRequests = Maps.newLinkedHashMap();
+    final Map<Repository, Future<StorageItem>> futures = Maps.newLinkedHashMap();
+
+    for (final Repository repository : repositories) {
+      if (!request.getProcessedRepositories().contains(repository.getId())) {
+        final ResourceStoreRequest memberRequest = request.cloneAndDetach();
+        memberRequests.put(repository, memberRequest);
+        futures.put(repository, executor.submit(new Callable<StorageItem>()
+        {
+          @Override
+          public StorageItem call() throws Exception {
+            return retrieveMemberItem(repository, memberRequest);
+          }
+        }));
+      }
+      else {
+        if (log.isDebugEnabled()) {
+          log.debug(
+              String.format(
+                  "Repository %s member of group %s was already processed during this request! Skipping it from processing. Request: %s",
+                  RepositoryStringUtils.getHumanizedNameString(repository),
+                  RepositoryStringUtils.getHumanizedNameString(this), request.toString()));
+        }
+      }
+    }
+
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(memberRetrieveTimeoutSeconds);
+    try {
+      for (Map.Entry<Repository, Future<StorageItem>> entry : futures.entrySet()) {
+        final Repository repository = entry.getKey();
+        try {
+          items.add(entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        }
+        catch (TimeoutException e) {
+          entry.getValue().cancel(true);
+          log.warn("Member repository {} of group {} did not respond within {} seconds, request: {}",
+              repository.getId(), getId(), memberRetrieveTimeoutSeconds, request.getRequestPath());
+          // ignored, but bookkeeping happens now
+          memberThrowables.put(repository, new ItemNotFoundException(reasonFor(request, repository,
+              "Member repository %s did not respond within %s seconds.", repository, memberRetrieveTimeoutSeconds)));
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new LocalStorageException("Interrupted while retrieving items from members of " + getId(), e);
+        }
+        catch (ExecutionException e) {
+          final Throwable cause = e.getCause();
+          if (cause instanceof ItemNotFoundException) {
+            // ignored, but bookkeeping happens now
+            memberThrowables.put(repository, cause);
+          }
+          else if (cause instanceof RepositoryNotAvailableException) {
+            if (log.isDebugEnabled()) {
+              log.debug(
+                  RepositoryStringUtils.getFormattedMessage(
+                      "Member repository %s is not available, request failed.",
+                      ((RepositoryNotAvailableException) cause).getRepository()));
+            }
+            // ignored, but bookkeeping happens now
+            memberThrowables.put(repository, cause);
+          }
+          else if (cause instanceof StorageException) {
+            throw (StorageException) cause;
+          }
+          else if (cause instanceof IllegalOperationException) {
+            log.warn("Member repository request failed", cause);
+            // ignored, but bookkeeping happens now
+            memberThrowables.put(repository, cause);
+          }
+          else {
+            throw Throwables.propagate(cause);
+          }
+        }
+      }
+    }
+    finally {
+      for (Future<StorageItem> future : futures.values()) {
+        future.cancel(true);
+      }
+      // members processed on behalf of this request, same as if they were retrieved one by one
+      for (ResourceStoreRequest memberRequest : memberRequests.values()) {
+        for (String repositoryId : memberRequest.getProcessedRepositories()) {
+          if (!request.getProcessedRepositories().contains(repositoryId)) {
+            request.addProcessedRepository(repositoryId);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Retrieves item from a member, recording member latency.
+   */
+  private StorageItem retrieveMemberItem(final Repository repository, final ResourceStoreRequest request)
+      throws IllegalOperationException, ItemNotFoundException, StorageException
+  {
+    final Timer.Context timer =
+        metricRegistry.timer(MetricRegistry.name(GroupRepository.class, getId(), "memberRetrieval", repository.getId()))
+            .time();
+    try {
+      return repository.retrieveItem(false, request);
+    }
+    finally {
+      timer.stop();
+    }
+  }
+
   // ===================================================================================
   // Inner stuff
 
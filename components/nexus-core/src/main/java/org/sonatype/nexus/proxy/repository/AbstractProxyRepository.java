@@ -19,11 +19,14 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLPeerUnverifiedException;
 
+import org.sonatype.nexus.common.concurrent.Coalescer;
 import org.sonatype.nexus.common.property.SystemPropertiesHelper;
 import org.sonatype.nexus.common.sequence.ConstantNumberSequence;
 import org.sonatype.nexus.common.sequence.FibonacciNumberSequence;
@@ -66,6 +69,8 @@ import org.sonatype.nexus.proxy.walker.DefaultWalkerContext;
 import org.sonatype.nexus.proxy.walker.WalkerException;
 import org.sonatype.nexus.proxy.walker.WalkerFilter;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -159,6 +164,13 @@ public abstract class AbstractProxyRepository
   private volatile NumberSequence remoteStatusRetainTimeSequence = new ConstantNumberSequence(
       REMOTE_STATUS_RETAIN_TIME);
 
+  /**
+   * Concurrent retrievals of the same path going remote, keyed by item UID path.
+   */
+  private final Coalescer<String, StorageItem> remoteRetrievals = new Coalescer<>();
+
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
   @Inject
   public void populateAbstractProxyRepository(ThreadPoolManager poolManager) {
     this.poolManager = checkNotNull(poolManager);
@@ -980,11 +992,9 @@ public abstract class AbstractProxyRepository
         // Reason: a previous thread may still _downloading_ the stuff we want to
         // serve to another client, so we have to _wait_ for download, but for download
         // only.
-        AbstractStorageItem localItem = null;
-
         if (!request.isRequestRemoteOnly()) {
           try {
-            localItem = (AbstractStorageItem) super.doRetrieveItem(request);
+            AbstractStorageItem localItem = (AbstractStorageItem) super.doRetrieveItem(request);
 
             if (localItem != null && !request.isRequestAsExpired() && !isOld(localItem)) {
               // local copy is just fine, so, we are proxy but we have valid local copy in cache
@@ -992,42 +1002,111 @@ public abstract class AbstractProxyRepository
             }
           }
           catch (ItemNotFoundException e) {
-            localItem = null;
+            // need to go remote
           }
         }
 
-        // we are a proxy, and we either don't have local copy or is stale, we need to
-        // go remote and potentially check for new version of file, but we still don't know
-        // will we actually fetch it (since aging != remote file changed!)
-        // BUT, from this point on, we want to _serialize_ access, so upgrade to CREATE lock
+        if (!isCoalescable(request)) {
+          return doRetrieveItemExclusively(request, itemUidLock);
+        }
+      }
+    }
+    finally {
+      itemUidLock.unlock();
+    }
+
+    // shared lock is released here, as the thread doing the retrieval needs to upgrade to exclusive lock
+    return doRetrieveItemCoalesced(request, itemUid);
+  }
+
+  /**
+   * Only plain requests that may go remote are coalesced, as requests with special flags need their own retrieval.
+   */
+  private boolean isCoalescable(final ResourceStoreRequest request) {
+    return !request.isRequestLocalOnly() && !request.isRequestRemoteOnly() && !request.isRequestAsExpired();
+  }
+
+  /**
+   * Retrieves the item as {@link #doRetrieveItemExclusively(ResourceStoreRequest, RepositoryItemUidLock)} does, but
+   * coalesces concurrent retrievals of the same path: only one thread goes remote (and takes the exclusive lock) while
+   * the others wait for it, and are then served from local storage under shared lock.
+   */
+  private StorageItem doRetrieveItemCoalesced(final ResourceStoreRequest request, final RepositoryItemUid itemUid)
+      throws IllegalOperationException, ItemNotFoundException, StorageException
+  {
+    final RepositoryItemUidLock itemUidLock = itemUid.getLock();
+    final AtomicBoolean retrievedByThisThread = new AtomicBoolean();
+    try {
+      StorageItem item = remoteRetrievals.get(itemUid.getPath(), new Callable<StorageItem>()
+      {
+        @Override
+        public StorageItem call() throws Exception {
+          retrievedByThisThread.set(true);
+          return doRetrieveItemExclusively(request, itemUidLock);
+        }
+      });
+      if (retrievedByThisThread.get()) {
+        metricRegistry.counter(MetricRegistry.name(ProxyRepository.class, getId(), "retrievals")).inc();
+        return item;
+      }
+    }
+    catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IllegalOperationException.class);
+      Throwables.propagateIfInstanceOf(e.getCause(), ItemNotFoundException.class);
+      Throwables.propagateIfInstanceOf(e.getCause(), StorageException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+
+    // a concurrent retrieval of the same path completed, serve what it left in local storage
+    metricRegistry.counter(MetricRegistry.name(ProxyRepository.class, getId(), "coalescedRetrievals")).inc();
+    itemUidLock.lock(Action.read);
+    try {
+      try {
+        return super.doRetrieveItem(request);
+      }
+      catch (ItemNotFoundException e) {
+        log.debug("Item {} not in local storage after coalesced retrieval, retrieving it again", request);
+        return doRetrieveItemExclusively(request, itemUidLock);
+      }
+    }
+    finally {
+      itemUidLock.unlock();
+    }
+  }
 
-        itemUidLock.lock(Action.create);
+  private StorageItem doRetrieveItemExclusively(final ResourceStoreRequest request,
+                                                final RepositoryItemUidLock itemUidLock)
+      throws IllegalOperationException, ItemNotFoundException, StorageException
+  {
+    // we are a proxy, and we either don't have local copy or is stale, we need to
+    // go remote and potentially check for new version of file, but we still don't know
+    // will we actually fetch it (since aging != remote file changed!)
+    // BUT, from this point on, we want to _serialize_ access, so upgrade to CREATE lock
+
+    itemUidLock.lock(Action.create);
 
+    try {
+      AbstractStorageItem localItem = null;
+
+      // check local copy again, we were maybe blocked for a download, and we need to
+      // recheck local copy after we acquired exclusive lock
+      if (!request.isRequestRemoteOnly()) {
         try {
-          // check local copy again, we were maybe blocked for a download, and we need to
-          // recheck local copy after we acquired exclusive lock
-          if (!request.isRequestRemoteOnly()) {
-            try {
-              localItem = (AbstractStorageItem) super.doRetrieveItem(request);
+          localItem = (AbstractStorageItem) super.doRetrieveItem(request);
 
-              if (localItem != null && !request.isRequestAsExpired() && !isOld(localItem)) {
-                // local copy is just fine (downloaded by a thread holding us blocked on acquiring
-                // exclusive lock)
-                return localItem;
-              }
-            }
-            catch (ItemNotFoundException e) {
-              localItem = null;
-            }
+          if (localItem != null && !request.isRequestAsExpired() && !isOld(localItem)) {
+            // local copy is just fine (downloaded by a thread holding us blocked on acquiring
+            // exclusive lock)
+            return localItem;
           }
-
-          // this whole method happens with exclusive lock on UID
-          return doRetrieveItem0(request, localItem);
         }
-        finally {
-          itemUidLock.unlock();
+        catch (ItemNotFoundException e) {
+          localItem = null;
         }
       }
+
+      // this whole method happens with exclusive lock on UID
+      return doRetrieveItem0(request, localItem);
     }
     finally {
       itemUidLock.unlock();
@@ -0,0 +1,118 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.storage.local;
+
+import org.sonatype.nexus.proxy.ItemNotFoundException;
+import org.sonatype.nexus.proxy.LocalStorageException;
+import org.sonatype.nexus.proxy.ResourceStoreRequest;
+import org.sonatype.nexus.proxy.item.RepositoryItemUid;
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.repository.Repository;
+import org.sonatype.nexus.proxy.utils.PathUtils;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lightweight local storage directory entry, carrying the path and the basic file system attributes only. Unlike
+ * listing {@link StorageItem}s, creating entries does not read item attributes nor content. The full item is loaded
+ * lazily by {@link #getItem()}.
+ *
+ * @since 3.0
+ */
+public class LocalStorageEntry
+{
+  private final Repository repository;
+
+  private final String path;
+
+  private final boolean collection;
+
+  private final long modified;
+
+  private final long length;
+
+  private volatile StorageItem item;
+
+  public LocalStorageEntry(final Repository repository, final String path, final boolean collection,
+                           final long modified, final long length)
+  {
+    this.repository = checkNotNull(repository);
+    this.path = checkNotNull(path);
+    this.collection = collection;
+    this.modified = modified;
+    this.length = length;
+  }
+
+  public Repository getRepository() {
+    return repository;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public String getName() {
+    return path.substring(path.lastIndexOf(RepositoryItemUid.PATH_SEPARATOR) + 1);
+  }
+
+  public String getParentPath() {
+    return PathUtils.getParentPath(path);
+  }
+
+  public int getPathDepth() {
+    return PathUtils.getPathDepth(path);
+  }
+
+  public RepositoryItemUid getRepositoryItemUid() {
+    return repository.createUid(path);
+  }
+
+  /**
+   * Returns {@code true} if this entry is a directory.
+   */
+  public boolean isCollection() {
+    return collection;
+  }
+
+  /**
+   * Returns the file system last modification time.
+   */
+  public long getModified() {
+    return modified;
+  }
+
+  /**
+   * Returns the file system size, meaningless for collections.
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the full item from local storage, loading it and its attributes on first invocation. Note that files
+   * might turn out to be links.
+   */
+  public StorageItem getItem()
+      throws ItemNotFoundException, LocalStorageException
+  {
+    if (item == null) {
+      item = repository.getLocalStorage().retrieveItem(repository, new ResourceStoreRequest(path, true));
+    }
+    return item;
+  }
+
+  @Override
+  public String toString() {
+    return repository.getId() + ":" + path;
+  }
+}
@@ -21,10 +21,12 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -57,6 +59,7 @@ import org.sonatype.nexus.proxy.repository.Repository;
 import org.sonatype.nexus.proxy.storage.UnsupportedStorageOperationException;
 import org.sonatype.nexus.proxy.storage.local.AbstractLocalRepositoryStorage;
 import org.sonatype.nexus.proxy.storage.local.LocalStorageContext;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
 import org.sonatype.nexus.proxy.utils.PathUtils;
 import org.sonatype.nexus.proxy.utils.RepositoryStringUtils;
 import org.sonatype.nexus.proxy.wastebasket.Wastebasket;
@@ -500,6 +503,34 @@ public class DefaultFSLocalRepositoryStorage
     return result;
   }
 
+  /**
+   * Lists the collection as {@link LocalStorageEntry}s, that carry the path and file system attributes only. Unlike
+   * {@link #listItems(Repository, ResourceStoreRequest)}, no item attributes are loaded (nor last requested
+   * timestamps updated), and no content is probed for links. Returns {@code null} if request points to a file.
+   *
+   * @since 3.0
+   */
+  public List<LocalStorageEntry> listEntries(Repository repository, ResourceStoreRequest request)
+      throws ItemNotFoundException, LocalStorageException
+  {
+    File target = getFileFromBase(repository, request);
+
+    Map<String, BasicFileAttributes> entries =
+        getFSPeer().listEntries(repository, getBaseDir(repository, request), request, target);
+
+    if (entries == null) {
+      return null;
+    }
+
+    List<LocalStorageEntry> result = new ArrayList<LocalStorageEntry>(entries.size());
+    for (Map.Entry<String, BasicFileAttributes> entry : entries.entrySet()) {
+      BasicFileAttributes attributes = entry.getValue();
+      result.add(new LocalStorageEntry(repository, PathUtils.concatPaths(request.getRequestPath(), entry.getKey()),
+          attributes.isDirectory(), attributes.lastModifiedTime().toMillis(), attributes.size()));
+    }
+    return result;
+  }
+
   private static File getFileFromUrl(String urlPath) {
     if (validFileUrl(urlPath)) {
       try {
@@ -20,11 +20,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -51,6 +57,7 @@ import org.sonatype.sisu.goodies.common.Throwables2;
 import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.proxy.ItemNotFoundException.reasonFor;
@@ -306,6 +313,56 @@ public class DefaultFSPeer
     }
   }
 
+  @Override
+  public Map<String, BasicFileAttributes> listEntries(final Repository repository, final File repositoryBaseDir,
+                                                     final ResourceStoreRequest request, final File target)
+      throws ItemNotFoundException, LocalStorageException
+  {
+    if (target.isDirectory()) {
+      final Path directory = target.toPath();
+      final Map<String, BasicFileAttributes> result = Maps.newLinkedHashMap();
+      try {
+        // depth of 1 visits the members only, handing over the attributes read by the directory stream
+        Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 1, new SimpleFileVisitor<Path>()
+        {
+          @Override
+          public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+            final String name = file.getFileName().toString();
+            if (!name.endsWith(HIDDEN_TARGET_SUFFIX) && (attrs.isRegularFile() || attrs.isDirectory())) {
+              result.put(name, attrs);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(final Path file, final IOException e)
+              throws IOException
+          {
+            if (directory.equals(file)) {
+              throw e;
+            }
+            // member removed in the meantime, skip it
+            log.debug("Cannot read attributes of {} while listing directory", file, e);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+      }
+      catch (IOException e) {
+        throw new LocalStorageException("Cannot list directory in repository " + repository + ", path "
+            + target.getAbsolutePath(), e);
+      }
+      return result;
+    }
+    else if (target.isFile()) {
+      return null;
+    }
+    else {
+      throw new ItemNotFoundException(reasonFor(request, repository,
+          "Path %s not found in local storage of repository %s", request.getRequestPath(),
+          RepositoryStringUtils.getHumanizedNameString(repository)));
+    }
+  }
+
   // ==
 
   protected File getHiddenTarget(final Repository repository, final File repositoryBaseDir, final File target,
@@ -13,7 +13,9 @@
 package org.sonatype.nexus.proxy.storage.local.fs;
 
 import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
+import java.util.Map;
 
 import org.sonatype.nexus.proxy.ItemNotFoundException;
 import org.sonatype.nexus.proxy.LocalStorageException;
@@ -52,4 +54,14 @@ public interface FSPeer
   public Collection<File> listItems(Repository repository, File repositoryBaseDir, ResourceStoreRequest request,
                                     File target)
       throws ItemNotFoundException, LocalStorageException;
+
+  /**
+   * Lists the same directory members as {@link #listItems(Repository, File, ResourceStoreRequest, File)}, but with
+   * their basic file attributes, keyed by file name. Returns {@code null} if target is a file.
+   *
+   * @since 3.0
+   */
+  public Map<String, BasicFileAttributes> listEntries(Repository repository, File repositoryBaseDir,
+                                                     ResourceStoreRequest request, File target)
+      throws ItemNotFoundException, LocalStorageException;
 }
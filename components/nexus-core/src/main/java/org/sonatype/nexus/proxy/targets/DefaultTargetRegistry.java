@@ -21,6 +21,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -63,7 +65,11 @@ public class DefaultTargetRegistry
 
   // a cache view of "live" targets, keyed by target ID
   // eagerly rebuilt on every configuration change
-  private Map<String, Target> targets;
+  private volatile Map<String, Target> targets;
+
+  // compiled matchers of "live" targets compatible with a content class, keyed by content class ID
+  // lazily built, dropped on every configuration change
+  private volatile ConcurrentMap<String, TargetMatcher> matchers = new ConcurrentHashMap<String, TargetMatcher>();
 
   @Inject
   public DefaultTargetRegistry(EventBus eventBus,
@@ -116,7 +122,31 @@ public class DefaultTargetRegistry
         }
       }
       targets = newView;
+      matchers = new ConcurrentHashMap<String, TargetMatcher>();
+    }
+  }
+
+  /**
+   * Returns the compiled matcher of live targets compatible with given content class.
+   */
+  private TargetMatcher matcherFor(ContentClass contentClass) {
+    // read matchers before targets, so a matcher is never cached in a map newer than the targets it was built from
+    final ConcurrentMap<String, TargetMatcher> current = matchers;
+    TargetMatcher matcher = current.get(contentClass.getId());
+    if (matcher == null) {
+      final List<Target> compatible = new ArrayList<Target>();
+      for (Target t : getRepositoryTargets()) {
+        if (t.isContentClassCompatible(contentClass)) {
+          compatible.add(t);
+        }
+      }
+      matcher = new TargetMatcher(compatible);
+      final TargetMatcher existing = current.putIfAbsent(contentClass.getId(), matcher);
+      if (existing != null) {
+        matcher = existing;
+      }
     }
+    return matcher;
   }
 
   // ==
@@ -216,13 +246,7 @@ public class DefaultTargetRegistry
   public Set<Target> getTargetsForContentClassPath(ContentClass contentClass, String path) {
     log.debug("Resolving targets for contentClass='{}' for path='{}'", contentClass.getId(), path);
 
-    final Set<Target> result = new HashSet<Target>();
-    for (Target t : getRepositoryTargets()) {
-      if (t.isPathContained(contentClass, path)) {
-        result.add(t);
-      }
-    }
-    return result;
+    return new HashSet<Target>(matcherFor(contentClass).matches(path));
   }
 
   @Override
@@ -230,10 +254,8 @@ public class DefaultTargetRegistry
     log.debug("Resolving targets for repository='{}' for path='{}'", repository.getId(), path);
 
     final TargetSet result = new TargetSet();
-    for (Target t : getRepositoryTargets()) {
-      if (t.isPathContained(repository.getRepositoryContentClass(), path)) {
-        result.addTargetMatch(new TargetMatch(t, repository));
-      }
+    for (Target t : matcherFor(repository.getRepositoryContentClass()).matches(path)) {
+      result.addTargetMatch(new TargetMatch(t, repository));
     }
     return result;
   }
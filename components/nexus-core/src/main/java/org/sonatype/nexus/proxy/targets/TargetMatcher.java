@@ -0,0 +1,160 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.targets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compiled matcher over the patterns of a collection of {@link Target}s, resolving every target containing a path in
+ * one pass.
+ *
+ * Patterns are indexed in a trie by their literal prefix, the leading characters that can only match themselves, so a
+ * path is only tried against patterns whose literal prefix it starts with. Patterns without a usable literal prefix
+ * (like {@code .*}) are always tried. Once a target matched, its remaining patterns are skipped. Instances are
+ * immutable and safe to share between threads.
+ *
+ * @since 3.0
+ */
+class TargetMatcher
+{
+  private static final String METACHARS = ".[]{}()*+?^$|\\";
+
+  private static final String QUANTIFIERS = "*+?{";
+
+  private final List<Target> targets;
+
+  private final Node root = new Node();
+
+  TargetMatcher(final Collection<Target> targets) {
+    this.targets = new ArrayList<>(checkNotNull(targets));
+    for (int i = 0; i < this.targets.size(); i++) {
+      for (Pattern pattern : this.targets.get(i).getPatterns()) {
+        root.insert(literalPrefix(pattern.pattern()), new Candidate(i, pattern));
+      }
+    }
+  }
+
+  /**
+   * Returns the targets having at least one pattern matching the given path, in the order they were given.
+   */
+  List<Target> matches(final String path) {
+    List<Candidate> candidates = new ArrayList<>();
+    Node node = root;
+    int depth = 0;
+    while (node != null) {
+      candidates.addAll(node.candidates);
+      node = depth < path.length() ? node.children.get(path.charAt(depth++)) : null;
+    }
+    if (candidates.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    boolean[] matched = new boolean[targets.size()];
+    int count = 0;
+    for (Candidate candidate : candidates) {
+      if (!matched[candidate.target] && candidate.pattern.matcher(path).matches()) {
+        matched[candidate.target] = true;
+        count++;
+      }
+    }
+
+    List<Target> result = new ArrayList<>(count);
+    for (int i = 0; i < matched.length; i++) {
+      if (matched[i]) {
+        result.add(targets.get(i));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the literal prefix every string matching the given regular expression starts with, possibly empty.
+   */
+  static String literalPrefix(final String regex) {
+    // top-level alternation may bypass any prefix, nested ones are not worth telling apart
+    if (regex.indexOf('|') >= 0) {
+      return "";
+    }
+
+    StringBuilder prefix = new StringBuilder();
+    int i = regex.startsWith("^") ? 1 : 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      char literal;
+      int next;
+      if (c == '\\') {
+        // escaped punctuation is literal, escaped letters and digits are classes, quotes or back-references
+        if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          break;
+        }
+        literal = regex.charAt(i + 1);
+        next = i + 2;
+      }
+      else if (METACHARS.indexOf(c) >= 0) {
+        break;
+      }
+      else {
+        literal = c;
+        next = i + 1;
+      }
+
+      // a quantified literal may be absent or repeated
+      if (next < regex.length() && QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+        break;
+      }
+      prefix.append(literal);
+      i = next;
+    }
+    return prefix.toString();
+  }
+
+  private static class Candidate
+  {
+    private final int target;
+
+    private final Pattern pattern;
+
+    private Candidate(final int target, final Pattern pattern) {
+      this.target = target;
+      this.pattern = pattern;
+    }
+  }
+
+  private static class Node
+  {
+    private final Map<Character, Node> children = new HashMap<>();
+
+    private final List<Candidate> candidates = new ArrayList<>();
+
+    private void insert(final String prefix, final Candidate candidate) {
+      Node node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        Node child = node.children.get(prefix.charAt(i));
+        if (child == null) {
+          child = new Node();
+          node.children.put(prefix.charAt(i), child);
+        }
+        node = child;
+      }
+      node.candidates.add(candidate);
+    }
+  }
+}
@@ -14,6 +14,7 @@ package org.sonatype.nexus.proxy.walker;
 
 import org.sonatype.nexus.proxy.item.StorageCollectionItem;
 import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
 
 /**
  * The affirmative implementation of StoraWalkerFilter that is used when no filter is supplied. It will process all
@@ -22,12 +23,16 @@ import org.sonatype.nexus.proxy.item.StorageItem;
  * @author cstamas
  */
 public class AffirmativeStoreWalkerFilter
-    implements WalkerFilter
+    implements EntryWalkerFilter
 {
   public boolean shouldProcess(WalkerContext ctx, StorageItem item) {
     return true;
   }
 
+  public boolean shouldProcess(WalkerContext ctx, LocalStorageEntry entry) {
+    return true;
+  }
+
   public boolean shouldProcessRecursively(WalkerContext ctx, StorageCollectionItem coll) {
     return true;
   }
@@ -15,14 +15,19 @@ package org.sonatype.nexus.proxy.walker;
 import org.sonatype.nexus.proxy.item.StorageCollectionItem;
 import org.sonatype.nexus.proxy.item.StorageItem;
 import org.sonatype.nexus.proxy.item.uid.IsHiddenAttribute;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
 
 public class DefaultStoreWalkerFilter
-    implements WalkerFilter
+    implements EntryWalkerFilter
 {
   public boolean shouldProcess(WalkerContext context, StorageItem item) {
     return !isHidden(context, item);
   }
 
+  public boolean shouldProcess(WalkerContext context, LocalStorageEntry entry) {
+    return !entry.getRepositoryItemUid().getBooleanAttributeValue(IsHiddenAttribute.class);
+  }
+
   public boolean shouldProcessRecursively(WalkerContext context, StorageCollectionItem coll) {
     return !isHidden(context, coll);
   }
@@ -14,28 +14,56 @@ package org.sonatype.nexus.proxy.walker;
 
 import java.util.Collections;
 import java.util.List;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.nexus.proxy.AccessDeniedException;
 import org.sonatype.nexus.proxy.IllegalOperationException;
 import org.sonatype.nexus.proxy.ItemNotFoundException;
+import org.sonatype.nexus.proxy.LocalStorageException;
+import org.sonatype.nexus.proxy.ResourceStoreRequest;
 import org.sonatype.nexus.proxy.StorageException;
+import org.sonatype.nexus.proxy.events.NexusStoppedEvent;
 import org.sonatype.nexus.proxy.item.RepositoryItemUid;
 import org.sonatype.nexus.proxy.item.StorageCollectionItem;
 import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.repository.GroupRepository;
 import org.sonatype.nexus.proxy.repository.LocalStatus;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
+import org.sonatype.nexus.proxy.storage.local.fs.DefaultFSLocalRepositoryStorage;
 import org.sonatype.nexus.proxy.utils.RepositoryStringUtils;
 import org.sonatype.nexus.proxy.walker.WalkerContext.TraversalType;
+import org.sonatype.nexus.scheduling.CancelableSupport;
+import org.sonatype.nexus.scheduling.CancelableSupport.CancelableFlagHolder;
 import org.sonatype.nexus.scheduling.TaskInterruptedException;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
 
 import com.google.common.collect.Lists;
+import com.google.common.eventbus.Subscribe;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * The Class Walker.
  *
+ * When parallelism ({@code nexus.walker.parallelism}) is greater than 1, walks that consist only of
+ * {@link ThreadSafeWalkerProcessor}s are performed by fork/join over sub-collections, see
+ * {@link #isParallelWalk(WalkerContext)}. All other walks remain sequential. Walks that consist only of
+ * {@link EntryWalkerProcessor}s list directories without loading item attributes, see
+ * {@link #isEntryWalk(WalkerContext)}.
+ *
  * @author cstamas
  */
 @Named
@@ -50,6 +78,35 @@ public class DefaultWalker
 
   public static final String WALKER_THROTTLE_INFO = Walker.class.getSimpleName() + ".throttleInfo";
 
+  private final EventBus eventBus;
+
+  private final int parallelism;
+
+  // guarded by this
+  private ForkJoinPool pool;
+
+  // written while holding this, so no pool is created once stopped
+  private volatile boolean stopped;
+
+  @Inject
+  public DefaultWalker(final EventBus eventBus, final @Named("${nexus.walker.parallelism:-1}") int parallelism) {
+    this.eventBus = checkNotNull(eventBus);
+    this.parallelism = parallelism;
+    eventBus.register(this);
+  }
+
+  @Subscribe
+  public void on(final NexusStoppedEvent e) {
+    eventBus.unregister(this);
+    synchronized (this) {
+      stopped = true;
+      if (pool != null) {
+        pool.shutdownNow();
+        pool = null;
+      }
+    }
+  }
+
   @Override
   public void walk(WalkerContext context)
       throws WalkerException
@@ -84,7 +141,13 @@ public class DefaultWalker
               context.getFilter() != null ? context.getFilter() : new DefaultStoreWalkerFilter();
           try {
             if (StorageCollectionItem.class.isAssignableFrom(item.getClass())) {
-              int collCount = walkRecursive(0, context, filter, (StorageCollectionItem) item);
+              int collCount;
+              if (isParallelWalk(context)) {
+                collCount = walkParallel(context, filter, (StorageCollectionItem) item);
+              }
+              else {
+                collCount = walkRecursive(0, context, filter, (StorageCollectionItem) item);
+              }
               context.getContext().put(WALKER_WALKED_COLLECTION_COUNT, collCount);
             }
             else {
@@ -187,10 +250,9 @@ public class DefaultWalker
     final List<StorageCollectionItem> collections = Lists.newArrayList();
     if (shouldProcessRecursively) {
       try {
-        final List<StorageItem> ls = Lists.newArrayList(context.getRepository().list(false, coll));
-
-        if (context.getItemComparator() != null) {
-          Collections.sort(ls, context.getItemComparator());
+        final List<StorageItem> ls = listItems(context, filter, coll);
+        if (context.isStopped()) {
+          return collCount;
         }
 
         for (StorageItem i : ls) {
@@ -237,6 +299,285 @@ public class DefaultWalker
     return collCount;
   }
 
+  /**
+   * Lists the members of collection to be walked. In entry walks, members that are not collections are walked as
+   * {@link LocalStorageEntry}s by this method, and only the collections are returned.
+   */
+  private List<StorageItem> listItems(final WalkerContext context, final WalkerFilter filter,
+                                      final StorageCollectionItem coll)
+      throws AccessDeniedException, IllegalOperationException, ItemNotFoundException, StorageException
+  {
+    if (isEntryWalk(context)) {
+      final List<StorageItem> collections = Lists.newArrayList();
+      final List<LocalStorageEntry> entries = ((DefaultFSLocalRepositoryStorage) context.getRepository()
+          .getLocalStorage()).listEntries(context.getRepository(), new ResourceStoreRequest(coll));
+      if (entries != null) {
+        for (LocalStorageEntry entry : entries) {
+          if (entry.isCollection()) {
+            try {
+              collections.add(entry.getItem());
+            }
+            catch (ItemNotFoundException e) {
+              log.debug("ItemNotFound not found while walking it, skipping.", e);
+            }
+          }
+          else {
+            walkEntry(context, filter, entry);
+            if (context.isStopped()) {
+              break;
+            }
+          }
+        }
+      }
+      return collections;
+    }
+
+    final List<StorageItem> ls = Lists.newArrayList(context.getRepository().list(false, coll));
+
+    if (context.getItemComparator() != null) {
+      Collections.sort(ls, context.getItemComparator());
+    }
+    return ls;
+  }
+
+  /**
+   * Returns {@code true} if non-collection items may be walked as lightweight {@link LocalStorageEntry}s: all
+   * processors are {@link EntryWalkerProcessor}s, no item ordering is imposed, and the repository is not a group
+   * and is backed by {@link DefaultFSLocalRepositoryStorage}.
+   */
+  protected boolean isEntryWalk(final WalkerContext context) {
+    if (context.getItemComparator() != null || context.getProcessors().isEmpty()
+        || !(context.getRepository().getLocalStorage() instanceof DefaultFSLocalRepositoryStorage)
+        || context.getRepository().getRepositoryKind().isFacetAvailable(GroupRepository.class)) {
+      return false;
+    }
+    for (WalkerProcessor processor : context.getProcessors()) {
+      if (!(processor instanceof EntryWalkerProcessor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if the walk may be performed in parallel: parallelism is enabled, the traversal is
+   * {@link TraversalType#DEPTH_FIRST} with no item ordering imposed, and all processors are
+   * {@link ThreadSafeWalkerProcessor}s. Once Nexus is stopped and the pool shut down, all walks are sequential.
+   */
+  protected boolean isParallelWalk(final WalkerContext context) {
+    if (stopped || parallelism < 2 || context.getTraversalType() != TraversalType.DEPTH_FIRST
+        || context.getItemComparator() != null || context.getProcessors().isEmpty()) {
+      return false;
+    }
+    for (WalkerProcessor processor : context.getProcessors()) {
+      if (!(processor instanceof ThreadSafeWalkerProcessor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Walks the collection by forking a task per sub-collection. Processor callbacks are made in same order as by
+   * {@link #walkRecursive(int, WalkerContext, WalkerFilter, StorageCollectionItem)} within one collection, but
+   * sibling collections are walked concurrently. Returns the count of walked collections. Should the walker be stopped
+   * meanwhile, the collection is walked sequentially.
+   */
+  protected final int walkParallel(final WalkerContext context, final WalkerFilter filter,
+                                   final StorageCollectionItem coll)
+      throws AccessDeniedException, IllegalOperationException, StorageException
+  {
+    final ForkJoinPool current = getPool();
+    if (current != null) {
+      final AtomicInteger collCount = new AtomicInteger();
+      try {
+        current.invoke(new CollectionWalk(context, filter, collCount, coll));
+        return collCount.get();
+      }
+      catch (RejectedExecutionException e) {
+        // pool shut down before the walk was started
+        log.debug("Parallel walk rejected, walking sequentially", e);
+      }
+    }
+    return walkRecursive(0, context, filter, coll);
+  }
+
+  /**
+   * Returns the pool, created on first use, or {@code null} once stopped.
+   */
+  @Nullable
+  private synchronized ForkJoinPool getPool() {
+    if (stopped) {
+      return null;
+    }
+    if (pool == null) {
+      log.info("Parallel walking enabled with parallelism {}", parallelism);
+      pool = new ForkJoinPool(parallelism, new ForkJoinWorkerThreadFactory()
+      {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+          final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName("nxwalker-" + count.incrementAndGet());
+          return thread;
+        }
+      }, null, false);
+    }
+    return pool;
+  }
+
+  /**
+   * Walks one collection, and forks itself for each sub-collection. Worker threads inherit the cancellation flag and
+   * Shiro subject of the thread that started the walk.
+   */
+  private class CollectionWalk
+      extends RecursiveAction
+  {
+    private final WalkerContext context;
+
+    private final WalkerFilter filter;
+
+    private final AtomicInteger collCount;
+
+    private final StorageCollectionItem coll;
+
+    private final CancelableFlagHolder cancelableFlagHolder;
+
+    private final Subject subject;
+
+    CollectionWalk(final WalkerContext context, final WalkerFilter filter, final AtomicInteger collCount,
+                   final StorageCollectionItem coll)
+    {
+      this(context, filter, collCount, coll, CancelableSupport.getCurrent(), ThreadContext.getSubject());
+    }
+
+    private CollectionWalk(final WalkerContext context, final WalkerFilter filter, final AtomicInteger collCount,
+                           final StorageCollectionItem coll, final CancelableFlagHolder cancelableFlagHolder,
+                           final Subject subject)
+    {
+      this.context = context;
+      this.filter = filter;
+      this.collCount = collCount;
+      this.coll = coll;
+      this.cancelableFlagHolder = cancelableFlagHolder;
+      this.subject = subject;
+    }
+
+    private CollectionWalk fork(final StorageCollectionItem child) {
+      return new CollectionWalk(context, filter, collCount, child, cancelableFlagHolder, subject);
+    }
+
+    @Override
+    protected void compute() {
+      final CancelableFlagHolder previous = CancelableSupport.getCurrent();
+      CancelableSupport.setCurrent(cancelableFlagHolder);
+      try {
+        if (subject != null) {
+          subject.execute(new Runnable()
+          {
+            @Override
+            public void run() {
+              walkCollection();
+            }
+          });
+        }
+        else {
+          walkCollection();
+        }
+      }
+      catch (Exception e) {
+        context.stop(e);
+      }
+      finally {
+        CancelableSupport.setCurrent(previous);
+      }
+    }
+
+    private void walkCollection() {
+      if (context.isStopped()) {
+        return;
+      }
+      final boolean shouldProcess = filter.shouldProcess(context, coll);
+      final boolean shouldProcessRecursively = filter.shouldProcessRecursively(context, coll);
+      if (!shouldProcess && !shouldProcessRecursively) {
+        return;
+      }
+
+      // user may call stop()
+      if (shouldProcess) {
+        onCollectionEnter(context, coll);
+        collCount.incrementAndGet();
+      }
+
+      if (context.isStopped()) {
+        return;
+      }
+
+      if (shouldProcessRecursively) {
+        final List<CollectionWalk> children = Lists.newArrayList();
+        try {
+          final List<StorageItem> ls = listItems(context, filter, coll);
+          if (context.isStopped()) {
+            return;
+          }
+
+          for (StorageItem i : ls) {
+            if (context.isProcessCollections() || !(i instanceof StorageCollectionItem)) {
+              walkItem(context, filter, i);
+              if (context.isStopped()) {
+                return;
+              }
+            }
+
+            if (i instanceof StorageCollectionItem) {
+              children.add(fork((StorageCollectionItem) i));
+            }
+          }
+        }
+        catch (ItemNotFoundException e) {
+          log.debug("ItemNotFound not found while walking it, skipping.", e);
+        }
+        catch (Exception e) {
+          context.stop(e);
+          return;
+        }
+
+        invokeAll(children);
+        if (context.isStopped()) {
+          return;
+        }
+      }
+
+      // user may call stop()
+      if (shouldProcess) {
+        onCollectionExit(context, coll);
+      }
+    }
+  }
+
+  protected void walkEntry(WalkerContext context, WalkerFilter filter, LocalStorageEntry entry) {
+    try {
+      final boolean shouldProcess;
+      if (filter instanceof EntryWalkerFilter) {
+        shouldProcess = ((EntryWalkerFilter) filter).shouldProcess(context, entry);
+      }
+      else {
+        shouldProcess = filter.shouldProcess(context, entry.getItem());
+      }
+      if (shouldProcess) {
+        // user may call stop()
+        processEntry(context, entry);
+      }
+    }
+    catch (ItemNotFoundException e) {
+      log.debug("ItemNotFound not found while walking it, skipping.", e);
+    }
+    catch (LocalStorageException e) {
+      context.stop(e);
+    }
+  }
+
   protected void walkItem(WalkerContext context, WalkerFilter filter, StorageItem i) {
     if (filter.shouldProcess(context, i)) {
       // user may call stop()
@@ -298,25 +639,59 @@ public class DefaultWalker
 
       info.exitProcessItem();
 
-      if (!context.isStopped() && context.getThrottleController().isThrottled()) {
-        final long throttleTime = context.getThrottleController().throttleTime(info);
+      throttle(context, info);
+    }
+    catch (Exception e) {
+      context.stop(e);
+    }
+  }
 
-        if (throttleTime > 0) {
-          try {
-            Thread.sleep(throttleTime);
-          }
-          catch (InterruptedException e) {
-            throw new TaskInterruptedException("Thread \"" + Thread.currentThread().getName()
-                + "\" is interrupted!", false);
+  protected void processEntry(WalkerContext context, LocalStorageEntry entry) {
+    try {
+      final DefaultThrottleInfo info = (DefaultThrottleInfo) context.getContext().get(WALKER_THROTTLE_INFO);
+
+      info.enterProcessItem();
+
+      for (WalkerProcessor processor : context.getProcessors()) {
+        if (processor.isActive()) {
+          ((EntryWalkerProcessor) processor).processEntry(context, entry);
+
+          if (context.isStopped()) {
+            break;
           }
         }
       }
+
+      info.exitProcessItem();
+
+      throttle(context, info);
     }
     catch (Exception e) {
       context.stop(e);
     }
   }
 
+  private void throttle(final WalkerContext context, final DefaultThrottleInfo info) {
+    final WalkerThrottleController throttleController = context.getThrottleController();
+    if (!context.isStopped() && throttleController.isThrottled()) {
+      // controllers are not thread safe, and parallel walks share one
+      final long throttleTime;
+      synchronized (throttleController) {
+        throttleTime = throttleController.throttleTime(info);
+      }
+
+      if (throttleTime > 0) {
+        try {
+          Thread.sleep(throttleTime);
+        }
+        catch (InterruptedException e) {
+          throw new TaskInterruptedException("Thread \"" + Thread.currentThread().getName()
+              + "\" is interrupted!", false);
+        }
+      }
+    }
+  }
+
   protected void onCollectionExit(WalkerContext context, StorageCollectionItem coll) {
     try {
       for (WalkerProcessor processor : context.getProcessors()) {
@@ -0,0 +1,32 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.walker;
+
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
+
+/**
+ * A {@link WalkerFilter} that is able to filter lightweight {@link LocalStorageEntry}s, see
+ * {@link EntryWalkerProcessor}. Filters not implementing this interface will be invoked with the fully loaded
+ * {@link StorageItem} of the entry.
+ *
+ * @since 3.0
+ */
+public interface EntryWalkerFilter
+    extends WalkerFilter
+{
+  /**
+   * Same as {@link #shouldProcess(WalkerContext, StorageItem)} but for a non-collection entry.
+   */
+  boolean shouldProcess(WalkerContext context, LocalStorageEntry entry);
+}
@@ -0,0 +1,40 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.walker;
+
+import org.sonatype.nexus.proxy.item.StorageCollectionItem;
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
+
+/**
+ * A {@link WalkerProcessor} that is able to process lightweight {@link LocalStorageEntry}s instead of fully loaded
+ * {@link StorageItem}s. When all processors of a walk without item comparator are entry processors, and the walked
+ * repository is not a group and is backed by file system local storage, {@link DefaultWalker} lists directories
+ * without loading item attributes, and passes non-collection members to
+ * {@link #processEntry(WalkerContext, LocalStorageEntry)} instead of
+ * {@link #processItem(WalkerContext, StorageItem)}. Collections are still passed as {@link StorageCollectionItem}s.
+ * Entries reflect local storage content only, virtual items (like checksums of maven proxy repositories) are not
+ * walked.
+ *
+ * @since 3.0
+ */
+public interface EntryWalkerProcessor
+    extends WalkerProcessor
+{
+  /**
+   * Invoked for each visited non-collection entry. The full item, if needed, is available from
+   * {@link LocalStorageEntry#getItem()}.
+   */
+  void processEntry(WalkerContext context, LocalStorageEntry entry)
+      throws Exception;
+}
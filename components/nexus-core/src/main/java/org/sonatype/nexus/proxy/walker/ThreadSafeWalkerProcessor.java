@@ -0,0 +1,32 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.walker;
+
+import org.sonatype.nexus.proxy.item.StorageCollectionItem;
+import org.sonatype.nexus.proxy.walker.WalkerContext.TraversalType;
+
+/**
+ * Marker for {@link WalkerProcessor}s that may be invoked concurrently from multiple threads. When all processors of
+ * a {@link TraversalType#DEPTH_FIRST} walk without item comparator are thread safe, and parallel walking is enabled,
+ * {@link DefaultWalker} walks sibling collections in parallel. Calls to
+ * {@link #onCollectionEnter(WalkerContext, StorageCollectionItem)} and
+ * {@link #onCollectionExit(WalkerContext, StorageCollectionItem)} are still nested for one collection and its
+ * children, but subtrees of different collections interleave. Implementations must not keep per-walk state in
+ * unsynchronized fields nor modify {@link WalkerContext#getContext()} while walking.
+ *
+ * @since 3.0
+ */
+public interface ThreadSafeWalkerProcessor
+    extends WalkerProcessor
+{
+}
@@ -16,21 +16,24 @@ import java.util.Collection;
 
 import org.sonatype.nexus.proxy.ItemNotFoundException;
 import org.sonatype.nexus.proxy.LocalStorageException;
+import org.sonatype.nexus.proxy.ResourceStoreRequest;
 import org.sonatype.nexus.proxy.item.StorageCollectionItem;
 import org.sonatype.nexus.proxy.item.StorageFileItem;
 import org.sonatype.nexus.proxy.item.StorageItem;
 import org.sonatype.nexus.proxy.storage.UnsupportedStorageOperationException;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
 import org.sonatype.nexus.proxy.walker.AbstractWalkerProcessor;
+import org.sonatype.nexus.proxy.walker.EntryWalkerProcessor;
 import org.sonatype.nexus.proxy.walker.SilentWalker;
+import org.sonatype.nexus.proxy.walker.ThreadSafeWalkerProcessor;
 import org.sonatype.nexus.proxy.walker.WalkerContext;
-import org.sonatype.nexus.proxy.walker.WalkerProcessor;
 
 public class WastebasketWalker
     extends AbstractWalkerProcessor
-    implements WalkerProcessor, SilentWalker
+    implements ThreadSafeWalkerProcessor, EntryWalkerProcessor, SilentWalker
 {
 
-  private long age;
+  private final long age;
 
   public WastebasketWalker(long age) {
     this.age = age;
@@ -38,23 +41,37 @@ public class WastebasketWalker
 
   @Override
   public void processItem(WalkerContext ctx, StorageItem item) {
-    long now = System.currentTimeMillis();
-    long limitDate = now - age;
+    if (item instanceof StorageFileItem && isExpired(item.getModified())) {
+      shred(ctx, item.getResourceStoreRequest());
+    }
+  }
 
-    if (item instanceof StorageFileItem && //
-        (age == DefaultWastebasket.ALL || item.getModified() < limitDate)) {
-      try {
-        ctx.getRepository().getLocalStorage().shredItem(ctx.getRepository(), item.getResourceStoreRequest());
-      }
-      catch (ItemNotFoundException e) {
-        // silent
-      }
-      catch (UnsupportedStorageOperationException e) {
-        // silent?
-      }
-      catch (LocalStorageException e) {
-        // silent?
-      }
+  /**
+   * Trashed files need their modification time only, which is the file system one on local storage.
+   */
+  @Override
+  public void processEntry(WalkerContext ctx, LocalStorageEntry entry) {
+    if (isExpired(entry.getModified())) {
+      shred(ctx, new ResourceStoreRequest(entry.getPath(), true));
+    }
+  }
+
+  private boolean isExpired(long modified) {
+    return age == DefaultWastebasket.ALL || modified < System.currentTimeMillis() - age;
+  }
+
+  private void shred(WalkerContext ctx, ResourceStoreRequest request) {
+    try {
+      ctx.getRepository().getLocalStorage().shredItem(ctx.getRepository(), request);
+    }
+    catch (ItemNotFoundException e) {
+      // silent
+    }
+    catch (UnsupportedStorageOperationException e) {
+      // silent?
+    }
+    catch (LocalStorageException e) {
+      // silent?
     }
   }
 
@@ -0,0 +1,160 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.events.SubscriberDispatcher.OverflowPolicy;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SubscriberDispatcher}.
+ */
+public class SubscriberDispatcherTest
+    extends TestSupport
+{
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private SubscriberDispatcher underTest;
+
+  @Before
+  public void bindSubject() {
+    // dispatch runs handlers as the subject that posted the event
+    final Subject subject = mock(Subject.class);
+    when(subject.associateWith(any(Runnable.class))).thenAnswer(returnsFirstArg());
+    ThreadContext.bind(subject);
+  }
+
+  @After
+  public void shutdown() throws Exception {
+    if (underTest != null) {
+      underTest.shutdown(5, TimeUnit.SECONDS);
+    }
+    ThreadContext.unbindSubject();
+  }
+
+  @Test
+  public void eventsAreDispatchedAndTimed() throws Exception {
+    final GatedSubscriber subscriber = new GatedSubscriber(new CountDownLatch(0));
+    underTest = new SubscriberDispatcher(GatedSubscriber.class, 2, 10, OverflowPolicy.CALLER_RUNS, metricRegistry);
+    underTest.register(subscriber);
+
+    underTest.post("a");
+    underTest.post(1L);
+    awaitCalm();
+
+    assertThat(subscriber.received, contains((Object) "a"));
+    assertThat(timerCount("wait"), is(1L));
+    assertThat(timerCount("handler"), is(1L));
+    assertThat(metricRegistry.getGauges().get(metricName("queueDepth")).getValue(), is((Object) 0));
+  }
+
+  @Test
+  public void discardDropsEventsWhenQueueIsFull() throws Exception {
+    final CountDownLatch gate = new CountDownLatch(1);
+    final GatedSubscriber subscriber = new GatedSubscriber(gate);
+    underTest = new SubscriberDispatcher(GatedSubscriber.class, 1, 1, OverflowPolicy.DISCARD, metricRegistry);
+    underTest.register(subscriber);
+
+    underTest.post("running");
+    subscriber.started.await(5, TimeUnit.SECONDS);
+    underTest.post("queued");
+    underTest.post("dropped");
+    gate.countDown();
+    awaitCalm();
+
+    assertThat(subscriber.received, contains((Object) "running", "queued"));
+    assertThat(metricRegistry.counter(metricName("overflows")).getCount(), is(1L));
+  }
+
+  @Test
+  public void callerRunsWhenQueueIsFull() throws Exception {
+    final CountDownLatch gate = new CountDownLatch(1);
+    final GatedSubscriber subscriber = new GatedSubscriber(gate);
+    underTest = new SubscriberDispatcher(GatedSubscriber.class, 1, 1, OverflowPolicy.CALLER_RUNS, metricRegistry);
+    underTest.register(subscriber);
+
+    underTest.post("running");
+    subscriber.started.await(5, TimeUnit.SECONDS);
+    underTest.post("queued");
+    // handler is not gated for this one, as it runs right here
+    underTest.post("caller");
+    gate.countDown();
+    awaitCalm();
+
+    assertThat(subscriber.threads.contains(Thread.currentThread()), is(true));
+    assertThat(metricRegistry.counter(metricName("overflows")).getCount(), is(1L));
+  }
+
+  private void awaitCalm() throws InterruptedException {
+    for (int i = 0; i < 500 && !underTest.isCalm(); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(underTest.isCalm(), is(true));
+  }
+
+  private long timerCount(final String name) {
+    return metricRegistry.timer(metricName(name)).getCount();
+  }
+
+  private String metricName(final String name) {
+    return MetricRegistry.name(EventSubscriberHost.class, GatedSubscriber.class.getName(), name);
+  }
+
+  public static class GatedSubscriber
+      implements Asynchronous
+  {
+    private final CountDownLatch gate;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final List<Object> received = new CopyOnWriteArrayList<>();
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+    public GatedSubscriber(final CountDownLatch gate) {
+      this.gate = gate;
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void on(final String event) throws InterruptedException {
+      started.countDown();
+      threads.add(Thread.currentThread());
+      if (!"caller".equals(event)) {
+        gate.await(5, TimeUnit.SECONDS);
+      }
+      received.add(event);
+    }
+  }
+}
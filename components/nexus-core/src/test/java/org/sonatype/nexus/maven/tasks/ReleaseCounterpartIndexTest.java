@@ -0,0 +1,169 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.maven.tasks;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.sonatype.nexus.proxy.ItemNotFoundException;
+import org.sonatype.nexus.proxy.RequestContext;
+import org.sonatype.nexus.proxy.ResourceStoreRequest;
+import org.sonatype.nexus.proxy.item.StorageCollectionItem;
+import org.sonatype.nexus.proxy.item.StorageFileItem;
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.maven.MavenHostedRepository;
+import org.sonatype.nexus.proxy.maven.MavenRepository;
+import org.sonatype.nexus.proxy.maven.RepositoryPolicy;
+import org.sonatype.nexus.proxy.maven.gav.M2GavCalculator;
+import org.sonatype.nexus.proxy.registry.RepositoryRegistry;
+import org.sonatype.nexus.proxy.repository.Repository;
+import org.sonatype.nexus.proxy.repository.RepositoryKind;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * UT for {@link ReleaseCounterpartIndex}.
+ */
+public class ReleaseCounterpartIndexTest
+    extends TestSupport
+{
+  private final M2GavCalculator gavCalculator = new M2GavCalculator();
+
+  private MavenRepository releases;
+
+  private MavenRepository thirdparty;
+
+  private ReleaseCounterpartIndex underTest;
+
+  @Before
+  public void prepare()
+      throws Exception
+  {
+    releases = mockReleaseRepository("releases");
+    thirdparty = mockReleaseRepository("thirdparty");
+
+    final RepositoryRegistry repositoryRegistry = mock(RepositoryRegistry.class);
+    when(repositoryRegistry.getRepositories()).thenReturn(Arrays.<Repository>asList(releases, thirdparty));
+
+    // releases has 1.0 released, thirdparty has 1.0 and 2.0
+    mockVersions(releases, "/org/foo/bar", "/org/foo/bar/1.0");
+    mockRelease(releases, "/org/foo/bar/1.0/bar-1.0.pom", 1000L);
+    mockVersions(thirdparty, "/org/foo/bar", "/org/foo/bar/1.0", "/org/foo/bar/2.0");
+    mockRelease(thirdparty, "/org/foo/bar/1.0/bar-1.0.pom", 2000L);
+    mockRelease(thirdparty, "/org/foo/bar/2.0/bar-2.0.pom", 3000L);
+
+    underTest = new ReleaseCounterpartIndex(repositoryRegistry);
+  }
+
+  @Test
+  public void releaseFoundInFirstRepository() {
+    assertThat(lookup("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150101.120000-1.pom"), is(1000L));
+    assertThat(lookup("/org/foo/bar/2.0-SNAPSHOT/bar-2.0-20150101.120000-1.pom"), is(3000L));
+    assertThat(lookup("/org/foo/bar/3.0-SNAPSHOT/bar-3.0-20150101.120000-1.pom"),
+        is(ReleaseCounterpartIndex.NO_RELEASE));
+    assertThat(underTest.getReleaseRepositoryCount(), is(2));
+  }
+
+  @Test
+  public void repositoriesAreQueriedOncePerGav()
+      throws Exception
+  {
+    for (int i = 1; i <= 10; i++) {
+      assertThat(lookup("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150101.120000-" + i + ".pom"), is(1000L));
+      assertThat(lookup("/org/foo/bar/2.0-SNAPSHOT/bar-2.0-20150101.120000-" + i + ".pom"), is(3000L));
+      assertThat(lookup("/org/foo/bar/3.0-SNAPSHOT/bar-3.0-20150101.120000-" + i + ".pom"),
+          is(ReleaseCounterpartIndex.NO_RELEASE));
+    }
+
+    assertThat(underTest.size(), is(3));
+    // GA directory is listed once per repository
+    verify(releases, times(1)).list(eq(false), any(ResourceStoreRequest.class));
+    verify(thirdparty, times(1)).list(eq(false), any(ResourceStoreRequest.class));
+    // only existing releases are retrieved, once
+    verify(releases, times(1)).retrieveItem(eq(false), any(ResourceStoreRequest.class));
+    verify(thirdparty, times(1)).retrieveItem(eq(false), any(ResourceStoreRequest.class));
+  }
+
+  private long lookup(final String snapshotPomPath) {
+    return underTest.getReleaseTimestamp(gavCalculator.pathToGav(snapshotPomPath), new RequestContext());
+  }
+
+  private MavenRepository mockReleaseRepository(final String id)
+      throws Exception
+  {
+    final MavenRepository repository = mock(MavenRepository.class);
+    final RepositoryKind repositoryKind = mock(RepositoryKind.class);
+    when(repository.getId()).thenReturn(id);
+    when(repository.getRepositoryKind()).thenReturn(repositoryKind);
+    when(repositoryKind.isFacetAvailable(MavenHostedRepository.class)).thenReturn(true);
+    when(repository.adaptToFacet(MavenRepository.class)).thenReturn(repository);
+    when(repository.isUserManaged()).thenReturn(true);
+    when(repository.getRepositoryPolicy()).thenReturn(RepositoryPolicy.RELEASE);
+    when(repository.getGavCalculator()).thenReturn(gavCalculator);
+    when(repository.list(eq(false), any(ResourceStoreRequest.class))).thenReturn(
+        Collections.<StorageItem>emptyList());
+    when(repository.retrieveItem(eq(false), any(ResourceStoreRequest.class))).thenThrow(
+        new ItemNotFoundException(ItemNotFoundException.reasonFor(new ResourceStoreRequest("/"), "not found")));
+    return repository;
+  }
+
+  private void mockVersions(final MavenRepository repository, final String gaPath, final String... versionPaths)
+      throws Exception
+  {
+    final StorageItem[] versions = new StorageItem[versionPaths.length];
+    for (int i = 0; i < versionPaths.length; i++) {
+      versions[i] = mock(StorageCollectionItem.class);
+      when(versions[i].getPath()).thenReturn(versionPaths[i]);
+    }
+    when(repository.list(eq(false), argThat(new RequestPathMatcher(gaPath)))).thenReturn(Arrays.asList(versions));
+  }
+
+  private void mockRelease(final MavenRepository repository, final String path, final long created)
+      throws Exception
+  {
+    final StorageFileItem item = mock(StorageFileItem.class);
+    when(item.getCreated()).thenReturn(created);
+    // doReturn, as the catch-all stub throws
+    doReturn(item).when(repository).retrieveItem(eq(false), argThat(new RequestPathMatcher(path)));
+  }
+
+  private static class RequestPathMatcher
+      extends ArgumentMatcher<ResourceStoreRequest>
+  {
+    private final String path;
+
+    private RequestPathMatcher(final String path) {
+      this.path = path;
+    }
+
+    @Override
+    public boolean matches(final Object argument) {
+      return argument instanceof ResourceStoreRequest
+          && path.equals(((ResourceStoreRequest) argument).getRequestPath());
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.access;
+
+import org.sonatype.nexus.proxy.registry.RepositoryRegistry;
+import org.sonatype.nexus.security.SecuritySystem;
+import org.sonatype.nexus.security.UserPrincipalsExpired;
+import org.sonatype.nexus.security.authz.AuthorizationConfigurationChanged;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DefaultNexusItemAuthorizer}.
+ */
+public class DefaultNexusItemAuthorizerTest
+    extends TestSupport
+{
+  private static final String PERMISSION = "nexus:target:1:central:read";
+
+  @Mock
+  private SecuritySystem securitySystem;
+
+  @Mock
+  private RepositoryRegistry repositoryRegistry;
+
+  @Mock
+  private EventBus eventBus;
+
+  @Mock
+  private Subject subject;
+
+  private DefaultNexusItemAuthorizer underTest;
+
+  @Before
+  public void setUp() {
+    when(securitySystem.getSubject()).thenReturn(subject);
+    when(subject.getPrincipals()).thenReturn(new SimplePrincipalCollection("jdoe", "realm"));
+    when(subject.isPermitted(PERMISSION)).thenReturn(true);
+    underTest = new DefaultNexusItemAuthorizer(securitySystem, repositoryRegistry, eventBus);
+  }
+
+  @Test
+  public void decisionsAreCachedPerPrincipals() {
+    assertThat(underTest.authorizePermission(PERMISSION), is(true));
+    assertThat(underTest.authorizePermission(PERMISSION), is(true));
+    assertThat(underTest.authorizePermission("nexus:target:1:central:delete"), is(false));
+    assertThat(underTest.authorizePermission("nexus:target:1:central:delete"), is(false));
+
+    verify(subject, times(1)).isPermitted(PERMISSION);
+    verify(subject, times(1)).isPermitted("nexus:target:1:central:delete");
+    assertThat(underTest.getDecisionCacheStats().hitCount(), is(2L));
+
+    // another user does not share decisions
+    when(subject.getPrincipals()).thenReturn(new SimplePrincipalCollection("other", "realm"));
+    assertThat(underTest.authorizePermission(PERMISSION), is(true));
+    verify(subject, times(2)).isPermitted(PERMISSION);
+  }
+
+  @Test
+  public void securityEventsInvalidateDecisions() {
+    assertThat(underTest.authorizePermission(PERMISSION), is(true));
+
+    when(subject.isPermitted(PERMISSION)).thenReturn(false);
+    underTest.on(new AuthorizationConfigurationChanged());
+    assertThat(underTest.authorizePermission(PERMISSION), is(false));
+
+    when(subject.isPermitted(PERMISSION)).thenReturn(true);
+    underTest.on(new UserPrincipalsExpired());
+    assertThat(underTest.authorizePermission(PERMISSION), is(true));
+
+    verify(subject, times(3)).isPermitted(PERMISSION);
+  }
+
+  @Test
+  public void subjectWithoutPrincipalsIsNotCached() {
+    when(subject.getPrincipals()).thenReturn(null);
+
+    assertThat(underTest.authorizePermission(PERMISSION), is(true));
+    assertThat(underTest.authorizePermission(PERMISSION), is(true));
+
+    verify(subject, times(2)).isPermitted(PERMISSION);
+  }
+}
@@ -58,11 +58,13 @@ public class RepositoryItemUidFactoryTest
     uidLock1.lock(Action.read);
 
     // They share SAME lock
-    Assert.assertSame("UIDLock instances should be different", uidLock1, uidLock2);
-    Assert.assertSame("UIDLock lock instances should be same", uidLock1.getContentLock(),
-        uidLock2.getContentLock());
-    Assert.assertEquals("Since invoked from same UT thread, both should say we have lock held",
-        uidLock1.getContentLock().hasLocksHeld(), uidLock2.getContentLock().hasLocksHeld());
+    Assert.assertEquals("UIDLock instances should be equal", uidLock1, uidLock2);
+    Assert.assertTrue("Since invoked from same UT thread, both should say we have lock held",
+        uidLock1.getContentLock().hasLocksHeld() && uidLock2.getContentLock().hasLocksHeld());
+    Assert.assertEquals("UIDLock lock states should be same", uidLock1.getContentLock().toString(),
+        uidLock2.getContentLock().toString());
+
+    uidLock1.unlock();
   }
 
   @Test
@@ -137,40 +139,40 @@ public class RepositoryItemUidFactoryTest
   }
 
   @Test
-  public void testWeakHashMapIsWorkingAsExpected() {
-    // we create many _different_ keyed uids and corresponding locks
-    int size = 0;
+  public void testLocksAreRegisteredOnlyWhileHeld() {
+    int size = ((DefaultRepositoryItemUidFactory) factory).locksInMap();
 
-    size = ((DefaultRepositoryItemUidFactory) factory).locksInMap();
-
-    Assert.assertTrue("We should have nothing in weak map: " + size, size == 0);
+    Assert.assertEquals("We should have nothing registered", 0, size);
 
+    // we create many _different_ keyed uids and corresponding locks, none of them locked
     for (int i = 0; i < 10000; i++) {
       factory.createUid(repository, "/some/blammo/poth/" + String.valueOf(i)).getLock();
     }
 
     size = ((DefaultRepositoryItemUidFactory) factory).locksInMap();
 
-    Assert.assertTrue("We should have less than 10k in weak map: " + size, size <= 10000 && size > 0);
+    Assert.assertEquals("Unlocked locks should not be registered", 0, size);
 
-    System.gc();
+    RepositoryItemUidLock uidLock1 = factory.createUid(repository, "/some/blammo/poth/1").getLock();
+    RepositoryItemUidLock uidLock2 = factory.createUid(repository, "/some/blammo/poth/1").getLock();
 
-    for (int i = 10000; i < 20000; i++) {
-      factory.createUid(repository, "/some/blammo/poth/" + String.valueOf(i)).getLock();
-    }
+    uidLock1.lock(Action.read);
+    uidLock2.lock(Action.create);
 
     size = ((DefaultRepositoryItemUidFactory) factory).locksInMap();
 
-    Assert.assertTrue("We should have less than 10k in weak map: " + size, size <= 20000 && size > 0);
+    Assert.assertEquals("Locks of same key should share one registration", 1, size);
 
-    System.gc();
+    uidLock2.unlock();
 
-    for (int i = 20000; i < 30000; i++) {
-      factory.createUid(repository, "/some/blammo/poth/" + String.valueOf(i)).getLock();
-    }
+    size = ((DefaultRepositoryItemUidFactory) factory).locksInMap();
+
+    Assert.assertEquals("Registration should be kept while still locked", 1, size);
+
+    uidLock1.unlock();
 
     size = ((DefaultRepositoryItemUidFactory) factory).locksInMap();
 
-    Assert.assertTrue("We should have less than 10k in weak map: " + size, size <= 30000 && size > 0);
+    Assert.assertEquals("Registration should be dropped on last unlock", 0, size);
   }
 }
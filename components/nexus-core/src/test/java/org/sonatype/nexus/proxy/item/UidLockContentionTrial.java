@@ -0,0 +1,135 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.item;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.sonatype.nexus.proxy.access.Action;
+import org.sonatype.nexus.proxy.registry.RepositoryRegistry;
+import org.sonatype.nexus.proxy.repository.Repository;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Stopwatch;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Trial of UID lock creation and locking contention, comparing the lock registry of
+ * {@link DefaultRepositoryItemUidFactory} against the former synchronized weak map, with many threads hitting distinct
+ * and identical paths.
+ */
+public class UidLockContentionTrial
+    extends TestSupport
+{
+  private static final int THREADS = 32;
+
+  private static final int ITERATIONS = 100000;
+
+  @Test
+  public void distinctPaths() throws Exception {
+    run("registry, distinct", newFactory(), false);
+    run("weak map, distinct", newWeakMapFactory(), false);
+  }
+
+  @Test
+  public void identicalPaths() throws Exception {
+    run("registry, identical", newFactory(), true);
+    run("weak map, identical", newWeakMapFactory(), true);
+  }
+
+  private void run(final String name, final DefaultRepositoryItemUidFactory factory, final boolean identical)
+      throws Exception
+  {
+    final Repository repository = mock(Repository.class);
+    when(repository.getId()).thenReturn("repo");
+
+    // warm up, then measure
+    hammer(factory, repository, identical, ITERATIONS / 10);
+    Stopwatch watch = Stopwatch.createStarted();
+    hammer(factory, repository, identical, ITERATIONS);
+    log("{}: {} threads x {} lock/unlock in {}", name, THREADS, ITERATIONS, watch.stop());
+  }
+
+  private void hammer(final DefaultRepositoryItemUidFactory factory,
+                      final Repository repository,
+                      final boolean identical,
+                      final int iterations)
+      throws Exception
+  {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        final int thread = t;
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() {
+            for (int i = 0; i < iterations; i++) {
+              String path = identical ? "/org/foo/foo.pom" : "/org/foo/" + thread + "/" + (i % 1000) + "/foo.pom";
+              RepositoryItemUidLock lock = factory.createUid(repository, path).getLock();
+              lock.lock(Action.read);
+              lock.unlock();
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  private DefaultRepositoryItemUidFactory newFactory() {
+    return new DefaultRepositoryItemUidFactory(mock(EventBus.class), mock(RepositoryRegistry.class), null);
+  }
+
+  /**
+   * Replica of the former lock registry: a single monitor guarding a weak map of lock instances.
+   */
+  private DefaultRepositoryItemUidFactory newWeakMapFactory() {
+    return new DefaultRepositoryItemUidFactory(mock(EventBus.class), mock(RepositoryRegistry.class), null)
+    {
+      private final WeakHashMap<DefaultRepositoryItemUidLock, WeakReference<DefaultRepositoryItemUidLock>> locks =
+          new WeakHashMap<>();
+
+      @Override
+      protected synchronized DefaultRepositoryItemUidLock doCreateUidLockForKey(final String key) {
+        final DefaultRepositoryItemUidLock newLock = new DefaultRepositoryItemUidLock(key, new SimpleLockResource());
+        final WeakReference<DefaultRepositoryItemUidLock> oldLockRef = locks.get(newLock);
+        if (oldLockRef != null) {
+          final DefaultRepositoryItemUidLock oldLock = oldLockRef.get();
+          if (oldLock != null) {
+            return oldLock;
+          }
+        }
+        locks.put(newLock, new WeakReference<>(newLock));
+        return newLock;
+      }
+    };
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.maven.metadata;
+
+/**
+ * {@link GroupMetadataMergeTest} with group members retrieved concurrently.
+ */
+public class ConcurrentGroupMetadataMergeTest
+    extends GroupMetadataMergeTest
+{
+  @Override
+  public void setUp()
+      throws Exception
+  {
+    System.setProperty("nexus.group.concurrentRetrieveItems", "true");
+    super.setUp();
+  }
+
+  @Override
+  public void tearDown()
+      throws Exception
+  {
+    try {
+      super.tearDown();
+    }
+    finally {
+      System.clearProperty("nexus.group.concurrentRetrieveItems");
+    }
+  }
+}
@@ -25,7 +25,10 @@ import org.sonatype.nexus.proxy.item.StorageFileItem;
 import org.sonatype.nexus.proxy.item.StorageItem;
 import org.sonatype.nexus.proxy.maven.metadata.operations.MetadataBuilder;
 import org.sonatype.nexus.proxy.maven.metadata.operations.ModelVersionUtility;
+import org.sonatype.nexus.proxy.repository.GroupRepository;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.codehaus.plexus.digest.Md5Digester;
 import org.codehaus.plexus.digest.Sha1Digester;
@@ -234,6 +237,33 @@ public class GroupMetadataMergeTest
     }
   }
 
+  @Test
+  public void testMergeResultReused()
+      throws Exception
+  {
+    String mdPath = "/md-merge/ga/maven-metadata.xml";
+    MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+    String hits = MetricRegistry.name(GroupRepository.class, "test", "mergedMetadataHits");
+    String misses = MetricRegistry.name(GroupRepository.class, "test", "mergedMetadataMisses");
+
+    StorageItem item = getRootRouter().retrieveItem(new ResourceStoreRequest("/groups/test" + mdPath, false));
+    String content = contentAsString(item);
+    long hitCount = metricRegistry.counter(hits).getCount();
+    long missCount = metricRegistry.counter(misses).getCount();
+
+    // unchanged members: previous merge is served
+    item = getRootRouter().retrieveItem(new ResourceStoreRequest("/groups/test" + mdPath, false));
+    assertEquals(content, contentAsString(item));
+    assertEquals(hitCount + 1, metricRegistry.counter(hits).getCount());
+    assertEquals(missCount, metricRegistry.counter(misses).getCount());
+
+    // expiring group caches drops merge results
+    getRepositoryRegistry().getRepository("test").expireCaches(new ResourceStoreRequest("/"));
+    item = getRootRouter().retrieveItem(new ResourceStoreRequest("/groups/test" + mdPath, false));
+    assertEquals(content, contentAsString(item));
+    assertEquals(missCount + 1, metricRegistry.counter(misses).getCount());
+  }
+
   /**
    * NEXUS-4970: merging should not fail by incompatible artifact ids ( incompatible one should be skipped).
    *
@@ -0,0 +1,100 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.targets;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.sonatype.nexus.proxy.maven.maven2.Maven2ContentClass;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Tests for {@link TargetMatcher}.
+ */
+public class TargetMatcherTest
+    extends TestSupport
+{
+  private final Maven2ContentClass maven2 = new Maven2ContentClass();
+
+  @Test
+  public void literalPrefix() {
+    assertThat(TargetMatcher.literalPrefix(".*"), equalTo(""));
+    assertThat(TargetMatcher.literalPrefix("/org/apache/.*"), equalTo("/org/apache/"));
+    assertThat(TargetMatcher.literalPrefix("^/org/apache/.*"), equalTo("/org/apache/"));
+    assertThat(TargetMatcher.literalPrefix("/org\\.apache\\.maven.*"), equalTo("/org.apache.maven"));
+    assertThat(TargetMatcher.literalPrefix("/org/apache/maven/((?!sources\\.).)*"), equalTo("/org/apache/maven/"));
+    assertThat(TargetMatcher.literalPrefix("/org/apaches?/.*"), equalTo("/org/apache"));
+    assertThat(TargetMatcher.literalPrefix("/org/a{2}/.*"), equalTo("/org/"));
+    assertThat(TargetMatcher.literalPrefix("/org/\\d+/.*"), equalTo("/org/"));
+    assertThat(TargetMatcher.literalPrefix("/org/.*|/com/.*"), equalTo(""));
+    assertThat(TargetMatcher.literalPrefix("(?i)/org/.*"), equalTo(""));
+  }
+
+  @Test
+  public void matchesSameTargetsAsPatternLoop() {
+    List<Target> targets = Arrays.asList(
+        target("all", ".*"),
+        target("apache", "/org/apache/.*", "/org/apache"),
+        target("apache-no-sources", "/org/apache/maven/((?!sources\\.).)*"),
+        target("sonatype", "/org/sonatype/.*", "/com/sonatype/.*"),
+        target("optional", "/org/apaches?/.*"),
+        target("alternation", "/net/.*|/io/.*"),
+        target("none")
+    );
+    TargetMatcher underTest = new TargetMatcher(targets);
+
+    for (String path : Arrays.asList(
+        "/org/apache/maven/maven-core/2.0.9/maven-core-2.0.9.pom",
+        "/org/apache/maven/maven-core/2.0.9/maven-core-2.0.9-sources.jar",
+        "/org/apache",
+        "/org/apaches/foo",
+        "/org/sonatype/nexus/nexus-core/3.0/nexus-core-3.0.jar",
+        "/com/sonatype/foo",
+        "/io/netty/netty/4.0/netty-4.0.jar",
+        "/",
+        "")) {
+      assertThat(path, underTest.matches(path), equalTo(loop(targets, path)));
+    }
+  }
+
+  @Test
+  public void targetMatchedByManyPatternsIsReturnedOnce() {
+    Target target = target("dupes", "/org/.*", "/org/apache/.*", ".*");
+    TargetMatcher underTest = new TargetMatcher(Arrays.asList(target));
+
+    assertThat(underTest.matches("/org/apache/foo"), contains(target));
+    assertThat(new TargetMatcher(Arrays.<Target>asList()).matches("/org/apache/foo"), empty());
+  }
+
+  private Target target(final String id, final String... patterns) {
+    return new Target(id, id, maven2, Arrays.asList(patterns));
+  }
+
+  private List<Target> loop(final List<Target> targets, final String path) {
+    List<Target> result = Lists.newArrayList();
+    for (Target target : targets) {
+      if (target.isPathContained(maven2, path)) {
+        result.add(target);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.targets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.sonatype.nexus.proxy.maven.maven2.Maven2ContentClass;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Stopwatch;
+import org.junit.Test;
+
+/**
+ * Trial comparing path resolution of {@link TargetMatcher} against looping over {@link Target#isPathContained}.
+ */
+public class TargetMatcherTrial
+    extends TestSupport
+{
+  private static final int TARGETS = 300;
+
+  private static final int PATHS = 1000;
+
+  private static final int ROUNDS = 200;
+
+  private final Maven2ContentClass maven2 = new Maven2ContentClass();
+
+  @Test
+  public void compareWithPatternLoop() {
+    Random random = new Random(42);
+    List<Target> targets = new ArrayList<>(TARGETS);
+    for (int i = 0; i < TARGETS; i++) {
+      String group = "/org/group" + i + "/";
+      targets.add(new Target("t" + i, "t" + i, maven2, Arrays.asList(
+          group + ".*",
+          "/com/group" + i + "/((?!sources\\.).)*",
+          i % 50 == 0 ? ".*\\.pom" : group + "[^/]+/[0-9.]+/.*\\.jar"
+      )));
+    }
+    List<String> paths = new ArrayList<>(PATHS);
+    for (int i = 0; i < PATHS; i++) {
+      int group = random.nextInt(TARGETS * 2);
+      paths.add("/org/group" + group + "/artifact/1.0/artifact-1.0." + (random.nextBoolean() ? "jar" : "pom"));
+    }
+
+    TargetMatcher matcher = new TargetMatcher(targets);
+
+    // warm up both, then measure
+    loop(targets, paths, ROUNDS / 4);
+    compiled(matcher, paths, ROUNDS / 4);
+
+    Stopwatch watch = Stopwatch.createStarted();
+    long loopMatches = loop(targets, paths, ROUNDS);
+    log("Pattern loop: {} matches in {}", loopMatches, watch.stop());
+
+    watch = Stopwatch.createStarted();
+    long compiledMatches = compiled(matcher, paths, ROUNDS);
+    log("Compiled matcher: {} matches in {}", compiledMatches, watch.stop());
+  }
+
+  private long loop(final List<Target> targets, final List<String> paths, final int rounds) {
+    long matches = 0;
+    for (int round = 0; round < rounds; round++) {
+      for (String path : paths) {
+        for (Target target : targets) {
+          if (target.isPathContained(maven2, path)) {
+            matches++;
+          }
+        }
+      }
+    }
+    return matches;
+  }
+
+  private long compiled(final TargetMatcher matcher, final List<String> paths, final int rounds) {
+    long matches = 0;
+    for (int round = 0; round < rounds; round++) {
+      for (String path : paths) {
+        matches += matcher.matches(path).size();
+      }
+    }
+    return matches;
+  }
+}
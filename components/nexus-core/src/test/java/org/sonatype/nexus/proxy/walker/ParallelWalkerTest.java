@@ -0,0 +1,233 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.walker;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.nexus.proxy.AbstractProxyTestEnvironment;
+import org.sonatype.nexus.proxy.EnvironmentBuilder;
+import org.sonatype.nexus.proxy.M2TestsuiteEnvironmentBuilder;
+import org.sonatype.nexus.proxy.ResourceStoreRequest;
+import org.sonatype.nexus.proxy.events.NexusStoppedEvent;
+import org.sonatype.nexus.proxy.item.RepositoryItemUid;
+import org.sonatype.nexus.proxy.item.StorageCollectionItem;
+import org.sonatype.nexus.proxy.item.StorageFileItem;
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.repository.Repository;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import org.junit.Test;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Tests for parallel walk of {@link DefaultWalker} over a synthetic directory tree.
+ *
+ * @see ParallelWalkerTrial
+ */
+public class ParallelWalkerTest
+    extends AbstractProxyTestEnvironment
+{
+  private static final int DEPTH = 3;
+
+  private static final int WIDTH = 8;
+
+  private static final int FILES = 4;
+
+  private Repository repository;
+
+  private int collections;
+
+  private int files;
+
+  @Override
+  protected EnvironmentBuilder getEnvironmentBuilder()
+      throws Exception
+  {
+    return new M2TestsuiteEnvironmentBuilder("repo1");
+  }
+
+  @Override
+  public void setUp()
+      throws Exception
+  {
+    super.setUp();
+    repository = getRepositoryRegistry().getRepository("inhouse");
+    collections = 1;
+    files = 0;
+    createTree("", DEPTH);
+  }
+
+  private void createTree(final String path, final int depth)
+      throws Exception
+  {
+    for (int i = 0; i < FILES; i++) {
+      final File file = getFile(repository, path + "/file-" + i + ".txt");
+      Files.createParentDirs(file);
+      Files.write("content of " + file.getName(), file, UTF_8);
+      files++;
+    }
+    if (depth > 0) {
+      for (int i = 0; i < WIDTH; i++) {
+        collections++;
+        createTree(path + "/dir-" + i, depth - 1);
+      }
+    }
+  }
+
+  @Test
+  public void parallelWalkVisitsSameItems()
+      throws Exception
+  {
+    final CountingWalkerProcessor sequential = walk(new DefaultWalker(eventBus(), 1), new CountingWalkerProcessor());
+    final CountingWalkerProcessor parallel = walk(new DefaultWalker(eventBus(), 4), new CountingWalkerProcessor());
+
+    assertThat(sequential.collEnters.get(), greaterThanOrEqualTo(collections));
+    assertThat(sequential.files.get(), is(files));
+    assertThat(sequential.threads.size(), is(1));
+
+    assertThat(parallel.collEnters.get(), is(sequential.collEnters.get()));
+    assertThat(parallel.collExits.get(), is(sequential.collExits.get()));
+    assertThat(parallel.files.get(), is(sequential.files.get()));
+  }
+
+  @Test
+  public void notThreadSafeProcessorWalksSequentially()
+      throws Exception
+  {
+    final Set<Thread> threads = Sets.newConcurrentHashSet();
+    final DefaultWalkerContext context = new DefaultWalkerContext(repository,
+        new ResourceStoreRequest(RepositoryItemUid.PATH_ROOT, true));
+    context.getProcessors().add(new AbstractWalkerProcessor()
+    {
+      @Override
+      public void processItem(final WalkerContext context, final StorageItem item) {
+        threads.add(Thread.currentThread());
+      }
+    });
+    new DefaultWalker(eventBus(), 4).walk(context);
+
+    assertThat(threads.size(), is(1));
+    assertThat(threads.iterator().next(), is(Thread.currentThread()));
+  }
+
+  @Test
+  public void parallelWalkStops()
+      throws Exception
+  {
+    final DefaultWalkerContext context = new DefaultWalkerContext(repository,
+        new ResourceStoreRequest(RepositoryItemUid.PATH_ROOT, true));
+    final CountingWalkerProcessor processor = new CountingWalkerProcessor()
+    {
+      @Override
+      public void processItem(final WalkerContext context, final StorageItem item) throws Exception {
+        super.processItem(context, item);
+        if (files.get() >= 10) {
+          context.stop(null);
+        }
+      }
+    };
+    context.getProcessors().add(processor);
+    new DefaultWalker(eventBus(), 4).walk(context);
+
+    assertThat(context.isStopped(), is(true));
+    assertThat(processor.files.get(), greaterThan(9));
+    assertThat(processor.files.get(), lessThan(files));
+  }
+
+  @Test
+  public void stoppedWalkerWalksSequentially()
+      throws Exception
+  {
+    final DefaultWalker walker = new DefaultWalker(eventBus(), 4);
+    final DefaultWalkerContext context = new DefaultWalkerContext(repository,
+        new ResourceStoreRequest(RepositoryItemUid.PATH_ROOT, true));
+    context.getProcessors().add(new CountingWalkerProcessor());
+    walker.walk(context);
+    assertThat(walker.isParallelWalk(context), is(true));
+
+    walker.on(new NexusStoppedEvent(null));
+
+    assertThat(walker.isParallelWalk(context), is(false));
+    assertThat(walk(walker, new CountingWalkerProcessor()).files.get(), is(files));
+  }
+
+  @Test
+  public void parallelWalkRacingStopWalksSequentially()
+      throws Exception
+  {
+    final DefaultWalker walker = new DefaultWalker(eventBus(), 4);
+    final DefaultWalkerContext context = new DefaultWalkerContext(repository,
+        new ResourceStoreRequest(RepositoryItemUid.PATH_ROOT, true));
+    final CountingWalkerProcessor processor = new CountingWalkerProcessor();
+    context.getProcessors().add(processor);
+    final StorageCollectionItem root = (StorageCollectionItem) repository.retrieveItem(true,
+        context.getResourceStoreRequest());
+
+    // stopped after the walk decided to go parallel
+    walker.on(new NexusStoppedEvent(null));
+    walker.walkParallel(context, new DefaultStoreWalkerFilter(), root);
+
+    assertThat(processor.files.get(), is(files));
+    assertThat(processor.threads, contains(Thread.currentThread()));
+  }
+
+  private <T extends WalkerProcessor> T walk(final Walker walker, final T processor) {
+    final DefaultWalkerContext context = new DefaultWalkerContext(repository,
+        new ResourceStoreRequest(RepositoryItemUid.PATH_ROOT, true));
+    context.getProcessors().add(processor);
+    walker.walk(context);
+    assertThat("Should not be stopped!", context.isStopped(), is(false));
+    return processor;
+  }
+
+  private static class CountingWalkerProcessor
+      extends AbstractWalkerProcessor
+      implements ThreadSafeWalkerProcessor
+  {
+    final AtomicInteger collEnters = new AtomicInteger();
+
+    final AtomicInteger collExits = new AtomicInteger();
+
+    final AtomicInteger files = new AtomicInteger();
+
+    final Set<Thread> threads = Sets.newConcurrentHashSet();
+
+    @Override
+    public void onCollectionEnter(final WalkerContext context, final StorageCollectionItem coll) {
+      collEnters.incrementAndGet();
+    }
+
+    @Override
+    public void processItem(final WalkerContext context, final StorageItem item) throws Exception {
+      threads.add(Thread.currentThread());
+      if (item instanceof StorageFileItem) {
+        files.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void onCollectionExit(final WalkerContext context, final StorageCollectionItem coll) {
+      collExits.incrementAndGet();
+    }
+  }
+}
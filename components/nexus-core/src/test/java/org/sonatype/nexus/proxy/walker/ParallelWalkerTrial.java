@@ -0,0 +1,138 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.proxy.walker;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.nexus.proxy.AbstractProxyTestEnvironment;
+import org.sonatype.nexus.proxy.EnvironmentBuilder;
+import org.sonatype.nexus.proxy.M2TestsuiteEnvironmentBuilder;
+import org.sonatype.nexus.proxy.ResourceStoreRequest;
+import org.sonatype.nexus.proxy.item.RepositoryItemUid;
+import org.sonatype.nexus.proxy.item.StorageFileItem;
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.repository.Repository;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.junit.Test;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Trial comparing walks of {@link DefaultWalker} over a synthetic directory tree with increasing parallelism.
+ */
+public class ParallelWalkerTrial
+    extends AbstractProxyTestEnvironment
+{
+  private static final int DEPTH = 3;
+
+  private static final int WIDTH = 8;
+
+  private static final int FILES = 4;
+
+  private Repository repository;
+
+  private int collections;
+
+  private int files;
+
+  @Override
+  protected EnvironmentBuilder getEnvironmentBuilder()
+      throws Exception
+  {
+    return new M2TestsuiteEnvironmentBuilder("repo1");
+  }
+
+  @Override
+  public void setUp()
+      throws Exception
+  {
+    super.setUp();
+    repository = getRepositoryRegistry().getRepository("inhouse");
+    collections = 1;
+    files = 0;
+    createTree("", DEPTH);
+  }
+
+  private void createTree(final String path, final int depth)
+      throws Exception
+  {
+    for (int i = 0; i < FILES; i++) {
+      final File file = getFile(repository, path + "/file-" + i + ".txt");
+      Files.createParentDirs(file);
+      Files.write("content of " + file.getName(), file, UTF_8);
+      files++;
+    }
+    if (depth > 0) {
+      for (int i = 0; i < WIDTH; i++) {
+        collections++;
+        createTree(path + "/dir-" + i, depth - 1);
+      }
+    }
+  }
+
+  @Test
+  public void compareParallelism()
+      throws Exception
+  {
+    for (int parallelism : new int[]{1, 2, 4, 8}) {
+      final DefaultWalker walker = new DefaultWalker(eventBus(), parallelism);
+      // warm up the pool and file system caches
+      walk(walker);
+
+      final Stopwatch stopwatch = Stopwatch.createStarted();
+      final int walked = walk(walker);
+      stopwatch.stop();
+
+      assertThat(walked, is(files));
+      getLogger().info("Walked {} collections and {} files with parallelism {} in {}",
+          collections, files, parallelism, stopwatch);
+    }
+  }
+
+  private int walk(final Walker walker) {
+    final ReadingWalkerProcessor processor = new ReadingWalkerProcessor();
+    final DefaultWalkerContext context = new DefaultWalkerContext(repository,
+        new ResourceStoreRequest(RepositoryItemUid.PATH_ROOT, true));
+    context.getProcessors().add(processor);
+    walker.walk(context);
+    assertThat("Should not be stopped!", context.isStopped(), is(false));
+    return processor.files.get();
+  }
+
+  /**
+   * Reads every file, as eg. checksum or metadata rebuilding processors would.
+   */
+  private static class ReadingWalkerProcessor
+      extends AbstractWalkerProcessor
+      implements ThreadSafeWalkerProcessor
+  {
+    final AtomicInteger files = new AtomicInteger();
+
+    @Override
+    public void processItem(final WalkerContext context, final StorageItem item) throws Exception {
+      if (item instanceof StorageFileItem) {
+        files.incrementAndGet();
+        try (InputStream in = ((StorageFileItem) item).getInputStream()) {
+          ByteStreams.copy(in, ByteStreams.nullOutputStream());
+        }
+      }
+    }
+  }
+}
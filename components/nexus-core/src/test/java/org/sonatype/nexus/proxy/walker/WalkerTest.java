@@ -28,6 +28,7 @@ import org.sonatype.nexus.proxy.item.StorageLinkItem;
 import org.sonatype.nexus.proxy.maven.maven2.M2Repository;
 import org.sonatype.nexus.proxy.registry.RepositoryRegistry;
 import org.sonatype.nexus.proxy.repository.LocalStatus;
+import org.sonatype.nexus.proxy.storage.local.LocalStorageEntry;
 import org.sonatype.nexus.proxy.walker.WalkerContext.TraversalType;
 
 import com.google.common.collect.Lists;
@@ -289,6 +290,43 @@ public class WalkerTest
     assertThat(wp.links, is(0));
   }
 
+  /**
+   * Verifies that processors opting in get lightweight entries for same files as would be items.
+   */
+  @Test
+  public void testEntryWalk()
+      throws Exception
+  {
+    // fetch some content to have on walk on something
+    getRootRouter().retrieveItem(new ResourceStoreRequest(
+        "/repositories/repo1/activemq/activemq-core/1.2/activemq-core-1.2.jar", false
+    ));
+    getRootRouter().retrieveItem(new ResourceStoreRequest(
+        "/repositories/repo1/rome/rome/0.9/rome-0.9.pom", false
+    ));
+
+    final TestWalkerProcessor wp = new TestWalkerProcessor();
+    WalkerContext wc = new DefaultWalkerContext(
+        getRepositoryRegistry().getRepository("repo1"), new ResourceStoreRequest(RepositoryItemUid.PATH_ROOT, true));
+    wc.getProcessors().add(wp);
+    walker.walk(wc);
+
+    final List<String> entries = Lists.newArrayList();
+    final TestEntryWalkerProcessor ewp = new TestEntryWalkerProcessor(entries);
+    wc = new DefaultWalkerContext(
+        getRepositoryRegistry().getRepository("repo1"), new ResourceStoreRequest(RepositoryItemUid.PATH_ROOT, true));
+    wc.getProcessors().add(ewp);
+    walker.walk(wc);
+
+    assertThat("Should not be stopped!", wc.isStopped(), is(false));
+    assertThat(ewp.collEnters, is(wp.collEnters));
+    assertThat(ewp.collExits, is(wp.collExits));
+    assertThat(ewp.files, is(0));
+    assertThat(entries, containsInAnyOrder(
+        "/activemq/activemq-core/1.2/activemq-core-1.2.jar", "/rome/rome/0.9/rome-0.9.pom"));
+    assertThat(entries.size(), is(wp.files));
+  }
+
   /**
    * Tests whether the walker makes use of the item comparator set in the context.
    */
@@ -358,6 +396,24 @@ public class WalkerTest
     assertThat(seen, matcher);
   }
 
+  private class TestEntryWalkerProcessor
+      extends TestWalkerProcessor
+      implements EntryWalkerProcessor
+  {
+    private final List<String> entries;
+
+    public TestEntryWalkerProcessor(final List<String> entries) {
+      this.entries = entries;
+    }
+
+    @Override
+    public void processEntry(final WalkerContext context, final LocalStorageEntry entry) {
+      assertThat(entry.isCollection(), is(false));
+      assertThat(entry.getModified(), greaterThan(0L));
+      entries.add(entry.getPath());
+    }
+  }
+
   private class TestWalkerProcessor
       extends AbstractWalkerProcessor
   {
@@ -15,9 +15,13 @@ package org.sonatype.nexus.repository.group;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.repository.Facet;
 import org.sonatype.nexus.repository.Repository;
 
+import com.google.common.util.concurrent.ListeningExecutorService;
+
 /**
  * Group facet.
  *
@@ -38,4 +42,42 @@ public interface GroupFacet
   List<Repository> members();
 
   // TODO: Expose transitive members?
+
+  /**
+   * How requests are dispatched to members.
+   */
+  enum DispatchMode
+  {
+    /**
+     * Members are tried one after the other, in member order.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Members are tried concurrently; when several answer, the first in member order wins.
+     */
+    PARALLEL,
+
+    /**
+     * Members are tried concurrently; the first member to answer wins, regardless of member order.
+     */
+    FIRST_SUCCESS
+  }
+
+  /**
+   * Returns the configured member dispatch mode.
+   */
+  DispatchMode dispatchMode();
+
+  /**
+   * Returns the executor dispatching to members concurrently, or {@code null} when the dispatch mode is
+   * {@link DispatchMode#SEQUENTIAL}. The executor lives as long as the facet is started.
+   */
+  @Nullable
+  ListeningExecutorService dispatchExecutor();
+
+  /**
+   * Returns per-member dispatch statistics of this group.
+   */
+  GroupMemberStatistics memberStatistics();
 }
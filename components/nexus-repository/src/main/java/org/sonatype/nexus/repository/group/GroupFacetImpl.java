@@ -14,7 +14,14 @@
 package org.sonatype.nexus.repository.group;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -22,12 +29,22 @@ import javax.inject.Named;
 import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryCreatedEvent;
+import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.manager.RepositoryRestoredEvent;
+import org.sonatype.nexus.repository.manager.RepositoryUpdatedEvent;
 import org.sonatype.nexus.repository.util.NestedAttributesMap;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.repository.FacetSupport.State.STARTED;
 import static org.sonatype.nexus.repository.util.TypeTokens.COLLECTION_STRING;
@@ -44,27 +61,89 @@ public class GroupFacetImpl
 {
   public static final String CONFIG_KEY = "group";
 
+  /**
+   * Default maximum number of threads dispatching to members concurrently.
+   */
+  public static final int DEFAULT_DISPATCH_MAX_THREADS = 20;
+
   private final RepositoryManager repositoryManager;
 
   private final Set<String> memberNames = Sets.newLinkedHashSet();
 
+  private final GroupMemberStatistics memberStatistics = new GroupMemberStatistics();
+
+  private DispatchMode dispatchMode = DispatchMode.SEQUENTIAL;
+
+  private int dispatchMaxThreads;
+
+  /**
+   * Executor of concurrent member dispatches, only present while started with a concurrent dispatch mode.
+   */
+  private volatile ListeningExecutorService dispatchExecutor;
+
+  /**
+   * Resolved member repositories, or {@code null} when they need to be resolved again.
+   */
+  private volatile List<Repository> members;
+
   @Inject
   public GroupFacetImpl(final RepositoryManager repositoryManager) {
     this.repositoryManager = checkNotNull(repositoryManager);
   }
 
-  // TODO: Check for compatibility and cyclic-references
+  // TODO: Check for compatibility
 
   @Override
   protected void doConfigure() throws Exception {
     NestedAttributesMap attributes = getRepository().getConfiguration().attributes(CONFIG_KEY);
+    memberNames.clear();
     memberNames.addAll(attributes.require("memberNames", COLLECTION_STRING));
     log.debug("Members names: {}", memberNames);
+    dispatchMode = DispatchMode.valueOf(
+        attributes.get("dispatchMode", String.class, DispatchMode.SEQUENTIAL.name()).toUpperCase(Locale.ENGLISH));
+    log.debug("Dispatch mode: {}", dispatchMode);
+    dispatchMaxThreads = attributes.get("dispatchMaxThreads", Integer.class, DEFAULT_DISPATCH_MAX_THREADS);
+    checkArgument(dispatchMaxThreads > 0, "dispatchMaxThreads must be positive");
+    log.debug("Dispatch max threads: {}", dispatchMaxThreads);
+    invalidateMembership();
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    if (dispatchMode != DispatchMode.SEQUENTIAL) {
+      dispatchExecutor = MoreExecutors.listeningDecorator(new ThreadPoolExecutor(
+          0, dispatchMaxThreads,
+          60L, TimeUnit.SECONDS,
+          new SynchronousQueue<Runnable>(),
+          new ThreadFactoryBuilder()
+              .setNameFormat("group-dispatch-" + getRepository().getName().replace("%", "%%") + "-%d")
+              .setDaemon(true)
+              .build(),
+          new RejectedExecutionHandler()
+          {
+            @Override
+            public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+              // saturated or stopping; run on the calling thread so the dispatch still completes
+              r.run();
+            }
+          }
+      ));
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    if (dispatchExecutor != null) {
+      dispatchExecutor.shutdown();
+      dispatchExecutor = null;
+    }
+    invalidateMembership();
   }
 
   @Override
   protected void doDestroy() throws Exception {
     memberNames.clear();
+    memberStatistics.reset();
   }
 
   @Override
@@ -77,8 +156,55 @@ public class GroupFacetImpl
   @Override
   @Guarded(by = STARTED)
   public List<Repository> members() {
-    List<Repository> members = Lists.newArrayListWithCapacity(memberNames.size());
-    for (String name : memberNames) {
+    return resolvedMembers();
+  }
+
+  @Override
+  public DispatchMode dispatchMode() {
+    return dispatchMode;
+  }
+
+  @Override
+  @Nullable
+  public ListeningExecutorService dispatchExecutor() {
+    return dispatchExecutor;
+  }
+
+  @Override
+  public GroupMemberStatistics memberStatistics() {
+    return memberStatistics;
+  }
+
+  //
+  // Membership
+  //
+
+  /**
+   * Returns the resolved member repositories, resolving them if needed.  Reads are lock-free; only resolving
+   * synchronizes, so that an invalidation racing with it can not leave a stale list behind.
+   */
+  private List<Repository> resolvedMembers() {
+    List<Repository> result = members;
+    if (result == null) {
+      synchronized (this) {
+        result = members;
+        if (result == null) {
+          result = ImmutableList.copyOf(resolve(memberNames));
+          log.debug("Resolved members: {}", result);
+          members = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private synchronized void invalidateMembership() {
+    members = null;
+  }
+
+  private List<Repository> resolve(final Set<String> names) {
+    List<Repository> members = Lists.newArrayListWithCapacity(names.size());
+    for (String name : names) {
       Repository repository = repositoryManager.get(name);
       if (repository != null) {
         members.add(repository);
@@ -89,4 +215,28 @@ public class GroupFacetImpl
     }
     return members;
   }
+
+  //
+  // Event handling; members may have been added, replaced or removed.
+  //
+
+  @Subscribe
+  public void on(final RepositoryCreatedEvent event) {
+    invalidateMembership();
+  }
+
+  @Subscribe
+  public void on(final RepositoryUpdatedEvent event) {
+    invalidateMembership();
+  }
+
+  @Subscribe
+  public void on(final RepositoryDeletedEvent event) {
+    invalidateMembership();
+  }
+
+  @Subscribe
+  public void on(final RepositoryRestoredEvent event) {
+    invalidateMembership();
+  }
 }
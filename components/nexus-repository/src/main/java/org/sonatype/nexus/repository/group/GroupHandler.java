@@ -13,9 +13,17 @@
 
 package org.sonatype.nexus.repository.group;
 
+import java.io.Closeable;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
@@ -24,18 +32,31 @@ import org.sonatype.nexus.repository.http.HttpResponses;
 import org.sonatype.nexus.repository.http.HttpStatus;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Handler;
+import org.sonatype.nexus.repository.view.PayloadResponse;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.ViewFacet;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
 
 import static org.sonatype.nexus.repository.http.HttpMethods.GET;
 
 /**
  * Group handler.
  *
+ * Dispatches to members according to the {@link GroupFacet.DispatchMode} of the group. Concurrent dispatch uses the
+ * bounded {@link GroupFacet#dispatchExecutor() executor} of the group; when it is saturated members are dispatched on
+ * the calling thread.
+ *
  * @since 3.0
  */
 @Named
@@ -49,14 +70,13 @@ public class GroupHandler
    */
   private static class DispatchedRepositories
   {
-    private final Set<String> dispatched = Sets.newHashSet();
-
-    public void add(final Repository repository) {
-      dispatched.add(repository.getName());
-    }
+    private final Set<String> dispatched = Sets.newConcurrentHashSet();
 
-    public boolean contains(final Repository repository) {
-      return dispatched.contains(repository.getName());
+    /**
+     * Returns {@code true} if the repository was not dispatched to yet.
+     */
+    public boolean add(final Repository repository) {
+      return dispatched.add(repository.getName());
     }
 
     @Override
@@ -65,6 +85,22 @@ public class GroupHandler
     }
   }
 
+  /**
+   * Releases responses of members that lost a concurrent dispatch, whenever they complete.
+   */
+  private final FutureCallback<Response> discardCallback = new FutureCallback<Response>()
+  {
+    @Override
+    public void onSuccess(@Nullable final Response response) {
+      discard(response);
+    }
+
+    @Override
+    public void onFailure(final Throwable t) {
+      // cancelled or failed, nothing to release
+    }
+  };
+
   @Nonnull
   @Override
   public Response handle(final @Nonnull Context context) throws Exception {
@@ -80,27 +116,154 @@ public class GroupHandler
     String method = request.getAction();
     switch (method) {
       case GET: {
-        for (Repository member : group.members()) {
-          log.trace("Trying member: {}", member);
+        ListeningExecutorService executor = group.dispatchExecutor();
+        if (executor == null) {
+          return dispatchSequentially(request, dispatched, group);
+        }
+        switch (group.dispatchMode()) {
+          case PARALLEL:
+            return dispatchConcurrently(executor, request, dispatched, group, true);
+          case FIRST_SUCCESS:
+            return dispatchConcurrently(executor, request, dispatched, group, false);
+          default:
+            return dispatchSequentially(request, dispatched, group);
+        }
+      }
 
-          // track repositories we have dispatched to, prevent circular dispatch for nested groups
-          if (dispatched.contains(member)) {
-            log.trace("Skipping already dispatched member: {}", member);
-            continue;
-          }
-          dispatched.add(member);
+      default:
+        return HttpResponses.methodNotAllowed(method, GET);
+    }
+  }
+
+  private Response dispatchSequentially(final Request request,
+                                        final DispatchedRepositories dispatched,
+                                        final GroupFacet group)
+      throws Exception
+  {
+    for (Repository member : group.members()) {
+      log.trace("Trying member: {}", member);
+
+      // track repositories we have dispatched to, prevent circular dispatch for nested groups
+      if (!dispatched.add(member)) {
+        log.trace("Skipping already dispatched member: {}", member);
+        continue;
+      }
+
+      Response response = dispatch(request, member, group.memberStatistics());
+      if (isFound(response)) {
+        return response;
+      }
+    }
+    return HttpResponses.notFound();
+  }
+
+  /**
+   * Dispatches to all members at once. When {@code ordered}, the response of the first member (in member order) that
+   * answers wins, otherwise the first member to answer wins. Once there is a winner, members not yet started are
+   * cancelled, and members still running are left to complete in the background; their responses are discarded.
+   */
+  private Response dispatchConcurrently(final ListeningExecutorService executor,
+                                        final Request request,
+                                        final DispatchedRepositories dispatched,
+                                        final GroupFacet group,
+                                        final boolean ordered)
+      throws Exception
+  {
+    final GroupMemberStatistics statistics = group.memberStatistics();
+    final Subject subject = SecurityUtils.getSubject();
+
+    final BlockingQueue<ListenableFuture<Response>> completed = new LinkedBlockingQueue<>();
+    List<ListenableFuture<Response>> futures = Lists.newArrayList();
+    ListenableFuture<Response> winner = null;
+    try {
+      for (final Repository member : group.members()) {
+        // track repositories we have dispatched to, prevent circular dispatch for nested groups
+        if (!dispatched.add(member)) {
+          log.trace("Skipping already dispatched member: {}", member);
+          continue;
+        }
 
-          ViewFacet view = member.facet(ViewFacet.class);
-          Response response = view.dispatch(request);
-          if (response.getStatus().getCode() == HttpStatus.OK) {
-            return response;
+        log.trace("Trying member: {}", member);
+        final ListenableFuture<Response> future = executor.submit(subject.associateWith(new Callable<Response>()
+        {
+          @Override
+          public Response call() throws Exception {
+            return dispatch(request, member, statistics);
           }
+        }));
+        future.addListener(new Runnable()
+        {
+          @Override
+          public void run() {
+            completed.add(future);
+          }
+        }, MoreExecutors.directExecutor());
+        futures.add(future);
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        ListenableFuture<Response> future = ordered ? futures.get(i) : completed.take();
+        Response response = await(future);
+        if (isFound(response)) {
+          winner = future;
+          return response;
         }
-        return HttpResponses.notFound();
       }
+      return HttpResponses.notFound();
+    }
+    finally {
+      for (ListenableFuture<Response> future : futures) {
+        if (future != winner) {
+          future.cancel(false);
+          Futures.addCallback(future, discardCallback);
+        }
+      }
+    }
+  }
 
-      default:
-        return HttpResponses.methodNotAllowed(method, GET);
+  private Response dispatch(final Request request,
+                            final Repository member,
+                            final GroupMemberStatistics statistics)
+      throws Exception
+  {
+    statistics.dispatched(member);
+    Response response = member.facet(ViewFacet.class).dispatch(request);
+    if (isFound(response)) {
+      statistics.hit(member);
+    }
+    return response;
+  }
+
+  /**
+   * Returns the response of a completed member dispatch; failed members are treated as not found.
+   */
+  @Nullable
+  private Response await(final Future<Response> future) throws InterruptedException {
+    try {
+      return future.get();
+    }
+    catch (ExecutionException e) {
+      log.warn("Member dispatch failed", e.getCause());
+      return null;
+    }
+  }
+
+  private boolean isFound(@Nullable final Response response) {
+    return response != null && response.getStatus().getCode() == HttpStatus.OK;
+  }
+
+  /**
+   * Releases any resources held by the payload of a response which will not be sent.
+   */
+  private void discard(@Nullable final Response response) {
+    if (response instanceof PayloadResponse && ((PayloadResponse) response).getPayload() instanceof Closeable) {
+      log.trace("Discarding response: {}", response);
+      try {
+        ((Closeable) ((PayloadResponse) response).getPayload()).close();
+      }
+      catch (Exception e) {
+        log.trace("Failed to release payload of discarded response: {}", response, e);
+      }
     }
   }
 }
@@ -0,0 +1,117 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sonatype.nexus.repository.Repository;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Per-member dispatch and hit counters of a group, to help ordering members by their actual hit ratio.
+ *
+ * @since 3.0
+ */
+public class GroupMemberStatistics
+{
+  private static class Counters
+  {
+    private final AtomicLong dispatches = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+  }
+
+  private final ConcurrentMap<String, Counters> members = Maps.newConcurrentMap();
+
+  private Counters counters(final Repository member) {
+    String name = checkNotNull(member).getName();
+    Counters counters = members.get(name);
+    if (counters == null) {
+      Counters created = new Counters();
+      counters = members.putIfAbsent(name, created);
+      if (counters == null) {
+        counters = created;
+      }
+    }
+    return counters;
+  }
+
+  /**
+   * Record that a request was dispatched to the given member.
+   */
+  public void dispatched(final Repository member) {
+    counters(member).dispatches.incrementAndGet();
+  }
+
+  /**
+   * Record that the given member answered a dispatched request.
+   */
+  public void hit(final Repository member) {
+    counters(member).hits.incrementAndGet();
+  }
+
+  /**
+   * Returns number of requests dispatched, keyed by member name.
+   */
+  public Map<String, Long> getDispatches() {
+    ImmutableMap.Builder<String, Long> result = ImmutableMap.builder();
+    for (Map.Entry<String, Counters> entry : members.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().dispatches.get());
+    }
+    return result.build();
+  }
+
+  /**
+   * Returns number of requests answered, keyed by member name.
+   */
+  public Map<String, Long> getHits() {
+    ImmutableMap.Builder<String, Long> result = ImmutableMap.builder();
+    for (Map.Entry<String, Counters> entry : members.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().hits.get());
+    }
+    return result.build();
+  }
+
+  /**
+   * Returns ratio of answered to dispatched requests for the named member, or {@code 0} if none were dispatched.
+   */
+  public double getHitRatio(final String memberName) {
+    Counters counters = members.get(checkNotNull(memberName));
+    if (counters == null) {
+      return 0;
+    }
+    long dispatches = counters.dispatches.get();
+    return dispatches == 0 ? 0 : (double) counters.hits.get() / dispatches;
+  }
+
+  /**
+   * Reset all counters.
+   */
+  public void reset() {
+    members.clear();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "dispatches=" + getDispatches() +
+        ", hits=" + getHits() +
+        '}';
+  }
+}
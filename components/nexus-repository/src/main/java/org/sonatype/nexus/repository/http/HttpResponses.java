@@ -30,8 +30,11 @@ import static org.sonatype.nexus.repository.http.HttpStatus.CREATED;
 import static org.sonatype.nexus.repository.http.HttpStatus.FORBIDDEN;
 import static org.sonatype.nexus.repository.http.HttpStatus.METHOD_NOT_ALLOWED;
 import static org.sonatype.nexus.repository.http.HttpStatus.NOT_FOUND;
+import static org.sonatype.nexus.repository.http.HttpStatus.NOT_MODIFIED;
 import static org.sonatype.nexus.repository.http.HttpStatus.NO_CONTENT;
 import static org.sonatype.nexus.repository.http.HttpStatus.OK;
+import static org.sonatype.nexus.repository.http.HttpStatus.PARTIAL_CONTENT;
+import static org.sonatype.nexus.repository.http.HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
 import static org.sonatype.nexus.repository.http.HttpStatus.UNAUTHORIZED;
 
 /**
@@ -81,6 +84,18 @@ public class HttpResponses
     return noContent(null);
   }
 
+  // Partial Content: 206
+
+  public static Response partialContent(final Payload payload) {
+    return new PayloadResponse(Status.success(PARTIAL_CONTENT), payload);
+  }
+
+  // Not Modified: 304
+
+  public static Response notModified() {
+    return new Response(Status.success(NOT_MODIFIED));
+  }
+
   // Not Found: 404
 
   public static Response notFound(final @Nullable String message) {
@@ -132,4 +147,12 @@ public class HttpResponses
     response.getHeaders().set(HttpHeaders.ALLOW, allow);
     return response;
   }
+
+  // Requested Range Not Satisfiable: 416
+
+  public static Response rangeNotSatisfiable(final long size) {
+    Response response = new Response(Status.failure(REQUESTED_RANGE_NOT_SATISFIABLE));
+    response.getHeaders().set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+    return response;
+  }
 }
@@ -15,6 +15,7 @@ package org.sonatype.nexus.repository.manager;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -62,7 +63,10 @@ public class RepositoryManagerImpl
 
   private final RepositoryAdminSecurityConfigurationResource securityResource;
 
-  private final Map<String, Repository> repositories = Maps.newHashMap();
+  /**
+   * Registry of tracked repositories; concurrent so that lookups on the request path never block.
+   */
+  private final ConcurrentMap<String, Repository> repositories = Maps.newConcurrentMap();
 
   @Inject
   public RepositoryManagerImpl(final EventBus eventBus,
@@ -35,4 +35,9 @@ public interface NegativeCacheFacet
    * The item has been found, so clear away any record that the item can't be found.
    */
   void uncacheNotFound(NegativeCacheKey key);
+
+  /**
+   * Clear all not found records, e.g. when the remote the records were collected against has changed.
+   */
+  void invalidate();
 }
@@ -20,6 +20,8 @@ import org.sonatype.nexus.repository.view.Handler;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
+import static org.sonatype.nexus.repository.http.HttpStatus.NOT_FOUND;
+
 /**
  * @since 3.0
  */
@@ -55,7 +57,7 @@ public class NegativeCacheHandler
    * Does this {@link Response} represent a 'not found' situation?
    */
   private boolean indicatesNotFound(final Response response) {
-    return false;
+    return response.getStatus().getCode() == NOT_FOUND;
   }
 
   private NegativeCacheKey cacheKey(final Context context) {
@@ -12,12 +12,30 @@
  */
 package org.sonatype.nexus.repository.negativecache;
 
-import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
 import javax.inject.Named;
 
 import org.sonatype.nexus.repository.FacetSupport;
+import org.sonatype.nexus.repository.util.NestedAttributesMap;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
+ * Default {@link NegativeCacheFacet} implementation, backed by a bounded, concurrent, in-memory cache.
+ *
+ * Not found records expire after the configured time to live, and are evicted least-recently-used when the
+ * configured maximum number of entries is reached. Hit, miss, eviction and size gauges are published to the shared
+ * metrics registry, per repository.
+ *
  * @since 3.0
  */
 @Named
@@ -25,19 +43,136 @@ public class NegativeCacheImpl
     extends FacetSupport
     implements NegativeCacheFacet
 {
+  public static final String CONFIG_KEY = "negativeCache";
+
+  public static final boolean DEFAULT_ENABLED = true;
+
+  public static final int DEFAULT_TIME_TO_LIVE_MINUTES = 1440;
+
+  public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
+  private volatile boolean enabled;
+
+  private volatile Cache<NegativeCacheKey, Boolean> cache;
+
+  @Override
+  protected void doConfigure() throws Exception {
+    NestedAttributesMap attributes = getRepository().getConfiguration().attributes(CONFIG_KEY);
+    enabled = checkNotNull(attributes.get("enabled", Boolean.class, DEFAULT_ENABLED));
+    int timeToLiveMinutes = checkNotNull(attributes.get("timeToLive", Integer.class, DEFAULT_TIME_TO_LIVE_MINUTES));
+    int maxEntries = checkNotNull(attributes.get("maxEntries", Integer.class, DEFAULT_MAX_ENTRIES));
+    log.debug("Enabled: {}, time to live: {} minutes, max entries: {}", enabled, timeToLiveMinutes, maxEntries);
+
+    // configuration changes always start over with an empty cache
+    cache = CacheBuilder.newBuilder()
+        .expireAfterWrite(timeToLiveMinutes, TimeUnit.MINUTES)
+        .maximumSize(maxEntries)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    registerGauge("hits", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return stats().hitCount();
+      }
+    });
+    registerGauge("misses", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return stats().missCount();
+      }
+    });
+    registerGauge("evictions", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return stats().evictionCount();
+      }
+    });
+    registerGauge("size", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        Cache<NegativeCacheKey, Boolean> current = cache;
+        return current == null ? 0L : current.size();
+      }
+    });
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    metricRegistry.remove(metricName("hits"));
+    metricRegistry.remove(metricName("misses"));
+    metricRegistry.remove(metricName("evictions"));
+    metricRegistry.remove(metricName("size"));
+  }
+
+  @Override
+  protected void doDestroy() throws Exception {
+    invalidate();
+    cache = null;
+  }
+
   @Override
   public void cacheNotFound(final NegativeCacheKey key) {
-    // TODO: implement
+    checkNotNull(key);
+    if (enabled) {
+      log.debug("Caching not found: {}", key);
+      cache.put(key, Boolean.TRUE);
+    }
   }
 
   @Override
   public boolean isNotFound(final NegativeCacheKey key) {
-    // TODO: implement
-    return false;
+    checkNotNull(key);
+    return enabled && cache.getIfPresent(key) != null;
   }
 
   @Override
   public void uncacheNotFound(final NegativeCacheKey key) {
-    // TODO: implement
+    checkNotNull(key);
+    if (enabled) {
+      cache.invalidate(key);
+    }
+  }
+
+  @Override
+  public void invalidate() {
+    Cache<NegativeCacheKey, Boolean> current = cache;
+    if (current != null) {
+      log.debug("Invalidating {} not found records", current.size());
+      current.invalidateAll();
+    }
+  }
+
+  /**
+   * Returns statistics of the current cache, or {@code null} if the facet is not configured.
+   */
+  @Nullable
+  public CacheStats getStats() {
+    Cache<NegativeCacheKey, Boolean> current = cache;
+    return current == null ? null : current.stats();
+  }
+
+  private CacheStats stats() {
+    CacheStats stats = getStats();
+    return stats == null ? new CacheStats(0, 0, 0, 0, 0, 0) : stats;
+  }
+
+  private String metricName(final String name) {
+    return MetricRegistry.name(NegativeCacheFacet.class, getRepository().getName(), name);
+  }
+
+  private void registerGauge(final String name, final Gauge<Long> gauge) {
+    String metricName = metricName(name);
+    metricRegistry.remove(metricName);
+    metricRegistry.register(metricName, gauge);
   }
 }
@@ -13,22 +13,29 @@
 package org.sonatype.nexus.repository.proxy;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.sonatype.nexus.common.concurrent.Coalescer;
 import org.sonatype.nexus.repository.FacetSupport;
+import org.sonatype.nexus.repository.MissingFacetException;
 import org.sonatype.nexus.repository.content.InvalidContentException;
 import org.sonatype.nexus.repository.httpclient.HttpClientFacet;
+import org.sonatype.nexus.repository.negativecache.NegativeCacheFacet;
 import org.sonatype.nexus.repository.util.NestedAttributesMap;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Payload;
-import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 import org.sonatype.nexus.repository.view.payloads.HttpEntityPayload;
+import org.sonatype.nexus.repository.view.payloads.SpoolingPayload;
 
-import com.google.common.io.ByteStreams;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.base.Throwables;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
@@ -49,12 +56,23 @@ public abstract class ProxyFacetSupport
 {
   public static final String CONFIG_KEY = "proxy";
 
+  /**
+   * Default number of bytes of remote content buffered in memory before spooling to a temporary file.
+   */
+  public static final int DEFAULT_SPOOL_MEMORY_THRESHOLD = 256 * 1024;
+
   private URI remoteUrl;
 
   private int artifactMaxAgeMinutes;
 
+  private int spoolMemoryThreshold;
+
   private HttpClientFacet httpClient;
 
+  private final Coalescer<String, Boolean> remoteFetches = new Coalescer<>();
+
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
   @Override
   protected void doConfigure() throws Exception {
     NestedAttributesMap attributes = getRepository().getConfiguration().attributes(CONFIG_KEY);
@@ -66,7 +84,12 @@ public abstract class ProxyFacetSupport
     final URI newRemoteURI = new URI(url);
     if (remoteUrl != null && !remoteUrl.equals(newRemoteURI)) {
       log.debug("Remote URL is changing: clearing caches.");
-      // TODO: Trigger other changes based on the remoteUrl changing - perhaps it calls facet(NFC.class).clear() at this point?
+      try {
+        getRepository().facet(NegativeCacheFacet.class).invalidate();
+      }
+      catch (MissingFacetException e) {
+        // skip if no negative cache facet
+      }
     }
 
     this.remoteUrl = newRemoteURI;
@@ -74,16 +97,36 @@ public abstract class ProxyFacetSupport
 
     artifactMaxAgeMinutes = attributes.require("artifactMaxAge", Integer.class);
     log.debug("Artifact max age: {}", artifactMaxAgeMinutes);
+
+    spoolMemoryThreshold = attributes.get("spoolMemoryThreshold", Integer.class, DEFAULT_SPOOL_MEMORY_THRESHOLD);
+    log.debug("Spool memory threshold: {}", spoolMemoryThreshold);
   }
 
 
   @Override
   protected void doStart() throws Exception {
     httpClient = getRepository().facet(HttpClientFacet.class);
+
+    registerGauge("fetches", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return remoteFetches.getLeaderCount();
+      }
+    });
+    registerGauge("coalesced", new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return remoteFetches.getCoalescedCount();
+      }
+    });
   }
 
   @Override
   protected void doStop() throws Exception {
+    metricRegistry.remove(metricName("fetches"));
+    metricRegistry.remove(metricName("coalesced"));
     httpClient = null;
   }
 
@@ -100,14 +143,9 @@ public abstract class ProxyFacetSupport
 
     if (content == null || isStale(context)) {
       try {
-        final Payload remote = fetch(context);
-        if (remote != null) {
-
-          // TODO: Introduce content validation.. perhaps content's type not matching path's implied type.
-
-          store(context, remote);
-
-          content = remote;
+        if (fetchAndStore(context)) {
+          // serve what was stored, rather than holding on to the remote content
+          content = getCachedPayload(context);
         }
       }
       catch (IOException e) {
@@ -117,6 +155,39 @@ public abstract class ProxyFacetSupport
     return content;
   }
 
+  /**
+   * Fetch the content implied by the Context from the remote URL and store it, returning {@code true} if new content
+   * was stored. Concurrent calls for the same URL are coalesced into a single remote fetch.
+   */
+  private boolean fetchAndStore(final Context context) throws IOException {
+    try {
+      return remoteFetches.get(getUrl(context), new Callable<Boolean>()
+      {
+        @Override
+        public Boolean call() throws Exception {
+          final SpoolingPayload remote = fetch(context);
+          if (remote == null) {
+            return false;
+          }
+          try {
+
+            // TODO: Introduce content validation.. perhaps content's type not matching path's implied type.
+
+            store(context, remote);
+          }
+          finally {
+            remote.close();
+          }
+          return true;
+        }
+      });
+    }
+    catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
   /**
    * If we have the content cached locally already, return that - otherwise {@code null}.
    */
@@ -129,8 +200,15 @@ public abstract class ProxyFacetSupport
   protected abstract void store(final Context context, final Payload payload)
       throws IOException, InvalidContentException;
 
+  /**
+   * Fetch the content implied by the Context from the remote URL, or {@code null} if it is not available.
+   *
+   * The returned payload streams directly from the remote response and must be closed by the caller to release the
+   * underlying connection. Only the head of the content, up to the configured spool memory threshold, is kept in
+   * memory so the payload can be re-opened after peeking at it; nothing is spooled to disk.
+   */
   @Nullable
-  protected Payload fetch(final Context context) throws IOException {
+  protected SpoolingPayload fetch(final Context context) throws IOException {
     HttpClient client = httpClient.getHttpClient();
 
     HttpGet request = new HttpGet(remoteUrl.resolve(getUrl(context)));
@@ -142,21 +220,21 @@ public abstract class ProxyFacetSupport
     StatusLine status = response.getStatusLine();
     log.debug("Status: {}", status);
 
-    Payload payload = null;
-    if (status.getStatusCode() == HttpStatus.SC_OK) {
-      HttpEntity entity = response.getEntity();
-      try {
+    SpoolingPayload payload = null;
+    HttpEntity entity = response.getEntity();
+    try {
+      if (status.getStatusCode() == HttpStatus.SC_OK) {
         log.debug("Entity: {}", entity);
-        final HttpEntityPayload httpEntityPayload = new HttpEntityPayload(response, entity);
-
-        payload = readFully(httpEntityPayload);
+        payload = new SpoolingPayload(new HttpEntityPayload(response, entity), spoolMemoryThreshold, false);
       }
-      finally {
-        EntityUtils.consume(entity);
+      else if (status.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+        indicateUpToDate(context);
       }
     }
-    else if (status.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
-      indicateUpToDate(context);
+    finally {
+      if (payload == null) {
+        EntityUtils.consume(entity);
+      }
     }
 
     return payload;
@@ -178,13 +256,14 @@ public abstract class ProxyFacetSupport
    */
   protected abstract String getUrl(final @Nonnull Context context);
 
-  /**
-   * Read an incoming Payload into memory.
-   */
-  private Payload readFully(final Payload payload) throws IOException {
-    try (InputStream stream = payload.openInputStream()) {
-      return new BytesPayload(ByteStreams.toByteArray(stream), payload.getContentType());
-    }
+  private String metricName(final String name) {
+    return MetricRegistry.name(ProxyFacet.class, getRepository().getName(), name);
+  }
+
+  private void registerGauge(final String name, final Gauge<Long> gauge) {
+    String metricName = metricName(name);
+    metricRegistry.remove(metricName);
+    metricRegistry.register(metricName, gauge);
   }
 
   private boolean isStale(final Context context) throws IOException {
@@ -37,6 +37,8 @@ public interface StorageFacet
 
   static String P_BLOB_REF = "blob_ref";
 
+  static String P_BUCKET = "bucket";
+
   static String P_CHECKSUM = "checksum";
 
   static String P_CONTENT_TYPE = "content_type";
@@ -47,6 +49,8 @@ public interface StorageFacet
 
   static String P_LAST_UPDATED = "last_updated";
 
+  static String P_LOCATOR = "locator";
+
   static String P_NAME = "name";
 
   static String P_PATH = "path";
@@ -13,6 +13,8 @@
 
 package org.sonatype.nexus.repository.storage;
 
+import java.util.Map;
+
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,11 +31,14 @@ import org.sonatype.nexus.repository.util.NestedAttributesMap;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Parameter;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.orient.OrientEdgeType;
 import com.tinkerpop.blueprints.impls.orient.OrientGraphNoTx;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
 import com.tinkerpop.blueprints.impls.orient.OrientVertexType;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -51,6 +56,18 @@ public class StorageFacetImpl
 {
   public static final String CONFIG_KEY = "storage";
 
+  /**
+   * Bucket property recording which data migrations have been applied to the bucket's contents.
+   */
+  private static final String P_SCHEMA_VERSION = "schema_version";
+
+  /**
+   * Version 1: assets and components carry {@link #P_BUCKET} and {@link #P_LOCATOR}.
+   */
+  private static final int SCHEMA_VERSION = 1;
+
+  private static final int MIGRATION_BATCH_SIZE = 1000;
+
   private final BlobStoreManager blobStoreManager;
 
   private final Provider<DatabaseInstance> databaseInstanceProvider;
@@ -115,6 +132,10 @@ public class StorageFacetImpl
       initEdgeType(graph, E_OWNS_ASSET, null);
       initEdgeType(graph, E_OWNS_COMPONENT, null);
       initEdgeType(graph, E_PART_OF_COMPONENT, null);
+
+      // applied separately from type creation so that existing databases are upgraded as well
+      initLocatorIndex(graph, V_ASSET);
+      initLocatorIndex(graph, V_COMPONENT);
     }
     finally {
       graph.shutdown();
@@ -148,6 +169,24 @@ public class StorageFacetImpl
     }
   }
 
+  /**
+   * Ensures the given vertex type has a composite (bucket, locator) index, for fast lookups by natural key.
+   */
+  private void initLocatorIndex(CheckedGraphNoTx graph, String className) {
+    OrientVertexType type = graph.getVertexType(className);
+    if (type.getProperty(P_BUCKET) == null) {
+      type.createProperty(P_BUCKET, OType.LINK);
+    }
+    if (type.getProperty(P_LOCATOR) == null) {
+      type.createProperty(P_LOCATOR, OType.STRING);
+    }
+    String indexName = className + "_" + P_BUCKET + "_" + P_LOCATOR + "_idx";
+    if (type.getClassIndex(indexName) == null) {
+      log.info("Creating index: {}", indexName);
+      type.createIndex(indexName, INDEX_TYPE.NOTUNIQUE, P_BUCKET, P_LOCATOR);
+    }
+  }
+
   private void initBucket() {
     // get or create the bucket for the repository and set bucketId for fast lookup later
     try (GraphTx graphTx = openGraphTx()) {
@@ -156,12 +195,55 @@ public class StorageFacetImpl
       if (bucket == null) {
         bucket = graphTx.addVertex(V_BUCKET, (String) null);
         bucket.setProperty(P_REPOSITORY_NAME, repositoryName);
+        bucket.setProperty(P_SCHEMA_VERSION, SCHEMA_VERSION);
         graphTx.commit();
       }
+      else if (bucket.getProperty(P_SCHEMA_VERSION) == null) {
+        migrateLocators(graphTx, bucket);
+      }
       bucketId = bucket.getId();
     }
   }
 
+  /**
+   * Back-fills {@link #P_BUCKET} and {@link #P_LOCATOR} on content stored before they were introduced.  Components
+   * take their locator from the format-specific {@code attributes.<format>.path}, assets from {@link #P_PATH}.
+   */
+  private void migrateLocators(GraphTx graphTx, Vertex bucket) {
+    log.info("Migrating locators of repository: {}", getRepository().getName());
+    Object bucketRecord = ((OrientVertex) bucket).getRecord();
+    int count = 0;
+    for (Vertex component : bucket.getVertices(Direction.OUT, E_OWNS_COMPONENT)) {
+      String locator = null;
+      Map<String, Object> attributes = component.getProperty(P_ATTRIBUTES);
+      String format = component.getProperty(P_FORMAT);
+      if (attributes != null && format != null && attributes.get(format) instanceof Map) {
+        Object path = ((Map) attributes.get(format)).get(P_PATH);
+        locator = path instanceof String ? (String) path : null;
+      }
+      count = migrateLocator(graphTx, (OrientVertex) component, bucketRecord, locator, count);
+    }
+    for (Vertex asset : bucket.getVertices(Direction.OUT, E_OWNS_ASSET)) {
+      count = migrateLocator(graphTx, (OrientVertex) asset, bucketRecord, (String) asset.getProperty(P_PATH), count);
+    }
+    bucket.setProperty(P_SCHEMA_VERSION, SCHEMA_VERSION);
+    graphTx.commit();
+    log.info("Migrated {} vertices", count);
+  }
+
+  private int migrateLocator(GraphTx graphTx, OrientVertex vertex, Object bucketRecord, @Nullable String locator,
+                             int count)
+  {
+    vertex.setProperty(P_BUCKET, bucketRecord, OType.LINK);
+    if (locator != null && vertex.getProperty(P_LOCATOR) == null) {
+      vertex.setProperty(P_LOCATOR, locator);
+    }
+    if (++count % MIGRATION_BATCH_SIZE == 0) {
+      graphTx.commit();
+    }
+    return count;
+  }
+
   @Override
   @Guarded(by = STARTED)
   public StorageTx openTx() {
@@ -92,6 +92,14 @@ public interface StorageTx
   OrientVertex findAssetWithProperty(String propName, Object propValue, Vertex bucket);
 
 
+  /**
+   * Gets an asset by its locator, owned by the specified bucket, or {@code null} if not found.
+   *
+   * Unlike {@link #findAssetWithProperty(String, Object, Vertex)} this is an indexed lookup on (bucket, locator).
+   */
+  @Nullable
+  OrientVertex findAssetWithLocator(String locator, Vertex bucket);
+
   /**
    * Returns all the assets associated with a component.
    */
@@ -135,6 +143,14 @@ public interface StorageTx
   @Nullable
   OrientVertex findComponentWithProperty(String propName, Object propValue, Vertex bucket);
 
+  /**
+   * Gets a component by its locator, owned by the specified bucket, or {@code null} if not found.
+   *
+   * Unlike {@link #findComponentWithProperty(String, Object, Vertex)} this is an indexed lookup on (bucket, locator).
+   */
+  @Nullable
+  OrientVertex findComponentWithLocator(String locator, Vertex bucket);
+
   /**
    * Gets all component in the specified repositories that match the given where clause.
    *
@@ -174,11 +190,15 @@ public interface StorageTx
 
   /**
    * Creates a new asset owned by the specified bucket.
+   *
+   * Formats with a natural unique key (e.g. a path) should set it as {@link StorageFacet#P_LOCATOR}.
    */
   OrientVertex createAsset(Vertex bucket);
 
   /**
    * Creates a new component owned by the specified bucket.
+   *
+   * Formats with a natural unique key (e.g. a path) should set it as {@link StorageFacet#P_LOCATOR}.
    */
   OrientVertex createComponent(Vertex bucket);
 
@@ -51,8 +51,10 @@ import static org.sonatype.nexus.repository.storage.StorageFacet.E_OWNS_COMPONEN
 import static org.sonatype.nexus.repository.storage.StorageFacet.E_PART_OF_COMPONENT;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_ATTRIBUTES;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_BLOB_REF;
+import static org.sonatype.nexus.repository.storage.StorageFacet.P_BUCKET;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_CHECKSUM;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_CONTENT_TYPE;
+import static org.sonatype.nexus.repository.storage.StorageFacet.P_LOCATOR;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_REPOSITORY_NAME;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_SIZE;
 import static org.sonatype.nexus.repository.storage.StorageFacet.V_ASSET;
@@ -186,6 +188,13 @@ public class StorageTxImpl
     return findWithPropertyOwnedBy(V_ASSET, propName, propValue, E_OWNS_ASSET, bucket);
   }
 
+  @Nullable
+  @Override
+  @Guarded(by = OPEN)
+  public OrientVertex findAssetWithLocator(final String locator, final Vertex bucket) {
+    return findWithLocator(V_ASSET, locator, bucket);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public List<OrientVertex> findAssets(final Vertex component) {
@@ -208,6 +217,21 @@ public class StorageTxImpl
     return Iterables.getFirst(vertices, null);
   }
 
+  /**
+   * Equality on both {@link StorageFacet#P_BUCKET} and {@link StorageFacet#P_LOCATOR} lets OrientDB answer this from
+   * the composite index created by {@link StorageFacetImpl}, rather than scanning the class.
+   */
+  private OrientVertex findWithLocator(String className, String locator, Vertex bucket) {
+    checkNotNull(locator);
+    checkNotNull(bucket);
+
+    Map<String, Object> parameters = ImmutableMap.of("bucket", bucket, "locator", locator);
+    String query = String.format("select from %s where %s = :bucket and %s = :locator",
+        className, P_BUCKET, P_LOCATOR);
+    Iterable<OrientVertex> vertices = graphTx.command(new OCommandSQL(query)).execute(parameters);
+    return Iterables.getFirst(vertices, null);
+  }
+
   @Override
   @Guarded(by = OPEN)
   public Iterable<OrientVertex> findAssets(@Nullable String whereClause,
@@ -318,6 +342,13 @@ public class StorageTxImpl
     return findWithPropertyOwnedBy(V_COMPONENT, propName, propValue, E_OWNS_COMPONENT, bucket);
   }
 
+  @Nullable
+  @Override
+  @Guarded(by = OPEN)
+  public OrientVertex findComponentWithLocator(final String locator, final Vertex bucket) {
+    return findWithLocator(V_COMPONENT, locator, bucket);
+  }
+
   @Override
   @Guarded(by = OPEN)
   public Iterable<OrientVertex> findComponents(@Nullable String whereClause,
@@ -375,6 +406,7 @@ public class StorageTxImpl
 
     OrientVertex asset = createVertex(V_ASSET);
     asset.setProperty(P_ATTRIBUTES, ImmutableMap.of(), OType.EMBEDDEDMAP);
+    asset.setProperty(P_BUCKET, ((OrientVertex) bucket).getRecord(), OType.LINK);
     graphTx.addEdge(null, bucket, asset, E_OWNS_ASSET);
     return asset;
   }
@@ -386,6 +418,7 @@ public class StorageTxImpl
 
     OrientVertex component = createVertex(V_COMPONENT);
     component.setProperty(P_ATTRIBUTES, ImmutableMap.of(), OType.EMBEDDEDMAP);
+    component.setProperty(P_BUCKET, ((OrientVertex) bucket).getRecord(), OType.LINK);
     graphTx.addEdge(null, bucket, component, E_OWNS_COMPONENT);
     return component;
   }
@@ -0,0 +1,38 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.DateTime;
+
+/**
+ * {@link Payload} carrying the validators needed to answer conditional and range requests.
+ *
+ * @since 3.0
+ */
+public interface ConditionalPayload
+    extends Payload
+{
+  /**
+   * Returns when the content was last modified, if known.
+   */
+  @Nullable
+  DateTime getLastModified();
+
+  /**
+   * Returns a strong entity tag for the content (without quotes), if known.
+   */
+  @Nullable
+  String getETag();
+}
@@ -0,0 +1,244 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view.handlers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Date;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.view.ConditionalPayload;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Handler;
+import org.sonatype.nexus.repository.view.Headers;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.PayloadResponse;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.payloads.RangePayload;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.google.common.base.Splitter;
+import com.google.common.net.HttpHeaders;
+import org.apache.http.client.utils.DateUtils;
+import org.joda.time.DateTime;
+
+import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+import static org.sonatype.nexus.repository.http.HttpMethods.HEAD;
+import static org.sonatype.nexus.repository.http.HttpStatus.OK;
+
+/**
+ * Conditional and range request handler.
+ *
+ * Decorates successful {@code GET} and {@code HEAD} responses whose payload is a {@link ConditionalPayload} with
+ * {@code Last-Modified} and {@code ETag} headers, answers {@code If-None-Match} and {@code If-Modified-Since} with
+ * {@code 304 Not Modified}, and answers a single {@code Range} (honoring {@code If-Range}) with
+ * {@code 206 Partial Content}.  Multiple ranges are not supported, such requests get the full content.
+ *
+ * Only the outermost view handling a request applies it: when a group dispatches the request to its members, their
+ * own handlers pass it through, so members answer with full content which the group then evaluates.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class ConditionalRequestHandler
+  extends ComponentSupport
+  implements Handler
+{
+  private static final String BYTES_UNIT = "bytes=";
+
+  /**
+   * Request attribute marking a request already handled by an outer view.
+   */
+  private static final String HANDLED = ConditionalRequestHandler.class.getName() + ".handled";
+
+  @Nonnull
+  @Override
+  public Response handle(final @Nonnull Context context) throws Exception {
+    if (context.getRequest().getAttributes().contains(HANDLED)) {
+      return context.proceed();
+    }
+    context.getRequest().getAttributes().set(HANDLED, Boolean.TRUE);
+
+    Response response = context.proceed();
+
+    String method = context.getRequest().getAction();
+    if (!(GET.equals(method) || HEAD.equals(method))
+        || response.getStatus().getCode() != OK
+        || !(response instanceof PayloadResponse)) {
+      return response;
+    }
+
+    Payload payload = ((PayloadResponse) response).getPayload();
+    DateTime lastModified = null;
+    String etag = null;
+    if (payload instanceof ConditionalPayload) {
+      lastModified = ((ConditionalPayload) payload).getLastModified();
+      etag = ((ConditionalPayload) payload).getETag();
+    }
+    if (lastModified != null) {
+      setIfAbsent(response.getHeaders(), HttpHeaders.LAST_MODIFIED, DateUtils.formatDate(lastModified.toDate()));
+    }
+    if (etag != null) {
+      setIfAbsent(response.getHeaders(), HttpHeaders.ETAG, quote(etag));
+    }
+
+    Headers requestHeaders = context.getRequest().getHeaders();
+    if (isNotModified(requestHeaders, lastModified, etag)) {
+      log.trace("Not modified: {}", payload);
+      discard(payload);
+      return withHeaders(HttpResponses.notModified(), response);
+    }
+
+    long size = payload.getSize();
+    if (size == Payload.UNKNOWN_SIZE) {
+      return response;
+    }
+    setIfAbsent(response.getHeaders(), HttpHeaders.ACCEPT_RANGES, "bytes");
+
+    String range = requestHeaders.get(HttpHeaders.RANGE);
+    if (range == null || !isRangeApplicable(requestHeaders, lastModified, etag)) {
+      return response;
+    }
+    if (!range.startsWith(BYTES_UNIT) || range.indexOf(',') != -1) {
+      log.trace("Ignoring unsupported range: {}", range);
+      return response;
+    }
+
+    long first, last;
+    try {
+      String spec = range.substring(BYTES_UNIT.length()).trim();
+      int dash = spec.indexOf('-');
+      if (dash == -1) {
+        return response;
+      }
+      String from = spec.substring(0, dash).trim();
+      String to = spec.substring(dash + 1).trim();
+      if (from.isEmpty()) {
+        // suffix range, the last N bytes
+        long suffix = Long.parseLong(to);
+        first = Math.max(0, size - suffix);
+        last = suffix == 0 ? -1 : size - 1;
+      }
+      else {
+        first = Long.parseLong(from);
+        last = to.isEmpty() ? size - 1 : Math.min(Long.parseLong(to), size - 1);
+        if (!to.isEmpty() && Long.parseLong(to) < first) {
+          return response;
+        }
+      }
+    }
+    catch (NumberFormatException e) {
+      log.trace("Ignoring invalid range: {}", range);
+      return response;
+    }
+
+    if (first >= size || last < first) {
+      discard(payload);
+      return HttpResponses.rangeNotSatisfiable(size);
+    }
+
+    log.trace("Serving range {}-{}/{} of: {}", first, last, size, payload);
+    Response partial = withHeaders(HttpResponses.partialContent(new RangePayload(payload, first, last - first + 1)),
+        response);
+    partial.getHeaders().set(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + size);
+    return partial;
+  }
+
+  /**
+   * {@code If-None-Match} takes precedence over {@code If-Modified-Since}, as per RFC 7232.
+   */
+  private boolean isNotModified(final Headers headers,
+                                @Nullable final DateTime lastModified,
+                                @Nullable final String etag)
+  {
+    String ifNoneMatch = headers.get(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch != null) {
+      return etag != null && matches(ifNoneMatch, etag);
+    }
+    String ifModifiedSince = headers.get(HttpHeaders.IF_MODIFIED_SINCE);
+    if (ifModifiedSince != null && lastModified != null) {
+      Date date = DateUtils.parseDate(ifModifiedSince);
+      // HTTP dates have second precision
+      return date != null && lastModified.getMillis() / 1000 <= date.getTime() / 1000;
+    }
+    return false;
+  }
+
+  /**
+   * A range only applies when {@code If-Range}, if given, still matches the content.
+   */
+  private boolean isRangeApplicable(final Headers headers,
+                                    @Nullable final DateTime lastModified,
+                                    @Nullable final String etag)
+  {
+    String ifRange = headers.get(HttpHeaders.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+    if (ifRange.startsWith("\"")) {
+      return etag != null && ifRange.equals(quote(etag));
+    }
+    Date date = DateUtils.parseDate(ifRange);
+    return date != null && lastModified != null && lastModified.getMillis() / 1000 == date.getTime() / 1000;
+  }
+
+  /**
+   * Weak comparison of a list of entity tags against the given one.
+   */
+  private boolean matches(final String entityTags, final String etag) {
+    String quoted = quote(etag);
+    for (String candidate : Splitter.on(',').trimResults().omitEmptyStrings().split(entityTags)) {
+      if ("*".equals(candidate) || quoted.equals(candidate.startsWith("W/") ? candidate.substring(2) : candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String quote(final String etag) {
+    return "\"" + etag + "\"";
+  }
+
+  private static void setIfAbsent(final Headers headers, final String name, final String value) {
+    if (!headers.contains(name)) {
+      headers.set(name, value);
+    }
+  }
+
+  private static Response withHeaders(final Response target, final Response source) {
+    for (String name : source.getHeaders().names()) {
+      target.getHeaders().set(name, source.getHeaders().getAll(name));
+    }
+    return target;
+  }
+
+  /**
+   * Releases any resources held by a payload which will not be sent.
+   */
+  private void discard(final Payload payload) {
+    if (payload instanceof Closeable) {
+      try {
+        ((Closeable) payload).close();
+      }
+      catch (IOException e) {
+        log.debug("Failed to close payload: {}", payload, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view.payloads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.FileChannelBlob;
+import org.sonatype.nexus.repository.view.ConditionalPayload;
+import org.sonatype.nexus.repository.view.FileChannelPayload;
+
+import org.joda.time.DateTime;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Blob payload; content is opened lazily, and exposed as a file channel when the blob is file-backed.  The blob's
+ * SHA1 serves as entity tag.
+ *
+ * @since 3.0
+ */
+public class BlobPayload
+    implements FileChannelPayload, ConditionalPayload
+{
+  private final Blob blob;
+
+  private final String contentType;
+
+  private final DateTime lastModified;
+
+  /**
+   * @param lastModified last modification of the content, when tracked separately from the blob (e.g. on an asset);
+   *                     defaults to the blob creation time.
+   */
+  public BlobPayload(final Blob blob, final @Nullable String contentType, final @Nullable DateTime lastModified) {
+    this.blob = checkNotNull(blob);
+    this.contentType = contentType;
+    this.lastModified = lastModified;
+  }
+
+  public BlobPayload(final Blob blob, final @Nullable String contentType) {
+    this(blob, contentType, null);
+  }
+
+  @Override
+  public InputStream openInputStream() throws IOException {
+    return blob.getInputStream();
+  }
+
+  @Nullable
+  @Override
+  public FileChannel openFileChannel() throws IOException {
+    if (blob instanceof FileChannelBlob) {
+      return ((FileChannelBlob) blob).openFileChannel();
+    }
+    return null;
+  }
+
+  @Override
+  public long getSize() {
+    return blob.getMetrics().getContentSize();
+  }
+
+  @Nullable
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Nullable
+  @Override
+  public DateTime getLastModified() {
+    return lastModified != null ? lastModified : blob.getMetrics().getCreationTime();
+  }
+
+  @Nullable
+  @Override
+  public String getETag() {
+    return blob.getMetrics().getSHA1Hash();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "blob=" + blob.getId() +
+        ", contentType='" + contentType + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view.payloads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.view.FileChannelPayload;
+import org.sonatype.nexus.repository.view.Payload;
+
+import com.google.common.io.ByteStreams;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Payload of a contiguous byte range of another payload.  File-backed payloads are read positionally, others are
+ * skipped up to the start of the range.
+ *
+ * @since 3.0
+ */
+public class RangePayload
+    implements Payload
+{
+  private final Payload payload;
+
+  private final long offset;
+
+  private final long length;
+
+  public RangePayload(final Payload payload, final long offset, final long length) {
+    this.payload = checkNotNull(payload);
+    checkArgument(offset >= 0, "Negative offset: %s", offset);
+    checkArgument(length >= 0, "Negative length: %s", length);
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public InputStream openInputStream() throws IOException {
+    if (payload instanceof FileChannelPayload) {
+      FileChannel channel = ((FileChannelPayload) payload).openFileChannel();
+      if (channel != null) {
+        try {
+          channel.position(offset);
+        }
+        catch (IOException e) {
+          channel.close();
+          throw e;
+        }
+        return ByteStreams.limit(Channels.newInputStream(channel), length);
+      }
+    }
+
+    InputStream input = payload.openInputStream();
+    try {
+      ByteStreams.skipFully(input, offset);
+    }
+    catch (IOException e) {
+      input.close();
+      throw e;
+    }
+    return ByteStreams.limit(input, length);
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  @Override
+  public long getSize() {
+    return length;
+  }
+
+  @Nullable
+  @Override
+  public String getContentType() {
+    return payload.getContentType();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "payload=" + payload +
+        ", offset=" + offset +
+        ", length=" + length +
+        '}';
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view.payloads;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.view.Payload;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.FileBackedOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Re-openable {@link Payload} over a single-use source stream.
+ *
+ * Content is pulled from the source only as it is consumed by a reader, and is spooled as it passes so that later
+ * readers can replay it. When {@code replayable}, all content is spooled: at most {@code memoryThreshold} bytes are
+ * held in memory, beyond that the spool overflows to a temporary file. Otherwise only the first
+ * {@code memoryThreshold} bytes are kept, in memory, which is enough to re-open the payload after peeking at its
+ * head (e.g. for content type detection); once more was consumed, the payload can not be re-opened. Only the most
+ * recently opened stream may be read from.
+ *
+ * {@link #close()} releases the source and any temporary file.
+ *
+ * @since 3.0
+ */
+public class SpoolingPayload
+    implements Payload, Closeable
+{
+  private final InputStream source;
+
+  private final long size;
+
+  private final String contentType;
+
+  private final int memoryThreshold;
+
+  private final boolean replayable;
+
+  private final FileBackedOutputStream spool;
+
+  private long spooled;
+
+  private long consumed;
+
+  private boolean truncated;
+
+  private boolean exhausted;
+
+  private boolean closed;
+
+  private int generation;
+
+  public SpoolingPayload(final InputStream source,
+                         final long size,
+                         final @Nullable String contentType,
+                         final int memoryThreshold,
+                         final boolean replayable)
+  {
+    checkArgument(memoryThreshold >= 0);
+    this.source = checkNotNull(source);
+    this.size = size;
+    this.contentType = contentType;
+    this.memoryThreshold = memoryThreshold;
+    this.replayable = replayable;
+    this.spool = new FileBackedOutputStream(memoryThreshold, true);
+  }
+
+  public SpoolingPayload(final Payload payload, final int memoryThreshold, final boolean replayable)
+      throws IOException
+  {
+    this(payload.openInputStream(), payload.getSize(), payload.getContentType(), memoryThreshold, replayable);
+  }
+
+  @Override
+  public synchronized InputStream openInputStream() throws IOException {
+    checkState(!closed, "Payload closed");
+    if (truncated) {
+      throw new IOException("Payload not replayable, " + consumed + " bytes already consumed");
+    }
+    return new SpoolingInputStream(++generation, ByteStreams.limit(spool.asByteSource().openStream(), spooled));
+  }
+
+  /**
+   * Returns the declared size, or the consumed size once the source has been fully read.
+   */
+  @Override
+  public synchronized long getSize() {
+    if (size == UNKNOWN_SIZE && exhausted) {
+      return consumed;
+    }
+    return size;
+  }
+
+  @Nullable
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      try {
+        source.close();
+      }
+      finally {
+        spool.reset();
+      }
+    }
+  }
+
+  private synchronized int read(final int expectedGeneration, final byte[] b, final int off, final int len)
+      throws IOException
+  {
+    if (closed || expectedGeneration != generation) {
+      throw new IOException("Stream superseded");
+    }
+    if (exhausted) {
+      return -1;
+    }
+    int n = source.read(b, off, len);
+    if (n == -1) {
+      exhausted = true;
+    }
+    else if (n > 0) {
+      consumed += n;
+      if (!truncated && !replayable && consumed > memoryThreshold) {
+        // past the head, stop spooling rather than overflow to disk
+        truncated = true;
+        spool.reset();
+        spooled = 0;
+      }
+      if (!truncated) {
+        spool.write(b, off, n);
+        spooled += n;
+      }
+    }
+    return n;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "size=" + size +
+        ", contentType='" + contentType + '\'' +
+        ", replayable=" + replayable +
+        ", consumed=" + consumed +
+        ", spooled=" + spooled +
+        '}';
+  }
+
+  /**
+   * Replays spooled content, then continues reading (and possibly spooling) from the source.
+   */
+  private class SpoolingInputStream
+      extends InputStream
+  {
+    private final int generation;
+
+    private InputStream replay;
+
+    private SpoolingInputStream(final int generation, final InputStream replay) {
+      this.generation = generation;
+      this.replay = replay;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int n;
+      do {
+        n = read(b, 0, 1);
+      }
+      while (n == 0);
+      return n == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (replay != null) {
+        int n = replay.read(b, off, len);
+        if (n != -1) {
+          return n;
+        }
+        replay.close();
+        replay = null;
+      }
+      return SpoolingPayload.this.read(generation, b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (replay != null) {
+        replay.close();
+        replay = null;
+      }
+    }
+  }
+}
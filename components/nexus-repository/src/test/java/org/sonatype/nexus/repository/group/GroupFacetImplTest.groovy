@@ -0,0 +1,107 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group
+
+import org.junit.Before
+import org.junit.Test
+import org.sonatype.nexus.repository.Repository
+import org.sonatype.nexus.repository.config.Configuration
+import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent
+import org.sonatype.nexus.repository.manager.RepositoryManager
+import org.sonatype.nexus.repository.manager.RepositoryUpdatedEvent
+import org.sonatype.sisu.goodies.eventbus.EventBus
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.times
+import static org.mockito.Mockito.verify
+import static org.mockito.Mockito.when
+
+/**
+ * Tests for {@link GroupFacetImpl}.
+ */
+class GroupFacetImplTest
+    extends TestSupport
+{
+  private RepositoryManager repositoryManager
+
+  private Map<String, Repository> repositories = [:]
+
+  @Before
+  void setUp() {
+    repositoryManager = mock(RepositoryManager.class)
+    ['x', 'y'].each { name ->
+      repositories[name] = repository(name)
+    }
+  }
+
+  private Repository repository(final String name) {
+    Repository repository = mock(Repository.class)
+    when(repository.getName()).thenReturn(name)
+    when(repositoryManager.get(name)).thenReturn(repository)
+    return repository
+  }
+
+  private GroupFacetImpl group(final String name, final List<String> memberNames) {
+    Repository repository = repository(name)
+    when(repository.getConfiguration()).thenReturn(new Configuration(
+        repositoryName: name,
+        recipeName: 'test',
+        attributes: [
+            (GroupFacetImpl.CONFIG_KEY): [
+                'memberNames': memberNames
+            ]
+        ]
+    ))
+    GroupFacetImpl facet = new GroupFacetImpl(repositoryManager)
+    when(repository.facet(GroupFacet.class)).thenReturn(facet)
+    repositories[name] = repository
+    facet.installDependencies(mock(EventBus.class))
+    facet.init(repository)
+    facet.start()
+    return facet
+  }
+
+  @Test
+  void 'members are resolved once until invalidated'() {
+    GroupFacetImpl underTest = group('g', ['x', 'missing', 'y'])
+
+    assert underTest.members() == [repositories.x, repositories.y]
+    assert underTest.members() == [repositories.x, repositories.y]
+    verify(repositoryManager, times(1)).get('x')
+
+    underTest.on(new RepositoryUpdatedEvent(repositories.y))
+
+    assert underTest.members() == [repositories.x, repositories.y]
+    verify(repositoryManager, times(2)).get('x')
+  }
+
+  @Test
+  void 'nested groups are members themselves'() {
+    group('inner', ['y', 'x'])
+    GroupFacetImpl underTest = group('outer', ['x', 'inner'])
+
+    assert underTest.members() == [repositories.x, repositories.inner]
+  }
+
+  @Test
+  void 'deleted members are dropped once invalidated'() {
+    GroupFacetImpl underTest = group('g', ['x', 'y'])
+    assert underTest.members() == [repositories.x, repositories.y]
+
+    when(repositoryManager.get('y')).thenReturn(null)
+    underTest.on(new RepositoryDeletedEvent(repositories.y))
+
+    assert underTest.members() == [repositories.x]
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import org.sonatype.nexus.repository.Repository
+import org.sonatype.nexus.repository.http.HttpResponses
+import org.sonatype.nexus.repository.util.AttributesMap
+import org.sonatype.nexus.repository.view.Context
+import org.sonatype.nexus.repository.view.Payload
+import org.sonatype.nexus.repository.view.Request
+import org.sonatype.nexus.repository.view.Response
+import org.sonatype.nexus.repository.view.ViewFacet
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import com.google.common.util.concurrent.ListeningExecutorService
+import com.google.common.util.concurrent.MoreExecutors
+import org.apache.shiro.subject.Subject
+import org.apache.shiro.util.ThreadContext
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+
+import static org.mockito.Matchers.any
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+import static org.sonatype.nexus.repository.group.GroupFacet.DispatchMode.FIRST_SUCCESS
+import static org.sonatype.nexus.repository.group.GroupFacet.DispatchMode.PARALLEL
+import static org.sonatype.nexus.repository.group.GroupFacet.DispatchMode.SEQUENTIAL
+import static org.sonatype.nexus.repository.http.HttpMethods.GET
+
+/**
+ * Tests for {@link GroupHandler}.
+ */
+class GroupHandlerTest
+    extends TestSupport
+{
+  private GroupHandler underTest = new GroupHandler()
+
+  private ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool())
+
+  private GroupMemberStatistics statistics = new GroupMemberStatistics()
+
+  private GroupFacet groupFacet
+
+  private Context context
+
+  @Before
+  void setUp() {
+    Subject subject = mock(Subject.class)
+    when(subject.associateWith(any(Callable.class))).thenAnswer({ InvocationOnMock invocation ->
+      invocation.arguments[0]
+    } as Answer)
+    ThreadContext.bind(subject)
+
+    groupFacet = mock(GroupFacet.class)
+    when(groupFacet.memberStatistics()).thenReturn(statistics)
+    Repository group = mock(Repository.class)
+    when(group.facet(GroupFacet.class)).thenReturn(groupFacet)
+
+    Request request = mock(Request.class)
+    when(request.getAction()).thenReturn(GET)
+    when(request.getAttributes()).thenReturn(new AttributesMap())
+    context = mock(Context.class)
+    when(context.getRequest()).thenReturn(request)
+    when(context.getRepository()).thenReturn(group)
+  }
+
+  @After
+  void tearDown() {
+    ThreadContext.unbindSubject()
+    executor.shutdownNow()
+  }
+
+  private Repository member(final String name, final Closure<Response> dispatch) {
+    Repository repository = mock(Repository.class)
+    when(repository.getName()).thenReturn(name)
+    ViewFacet view = mock(ViewFacet.class)
+    when(view.dispatch(any(Request.class))).thenAnswer({ InvocationOnMock invocation -> dispatch() } as Answer)
+    when(repository.facet(ViewFacet.class)).thenReturn(view)
+    return repository
+  }
+
+  private void members(final GroupFacet.DispatchMode mode, final Repository... members) {
+    when(groupFacet.dispatchMode()).thenReturn(mode)
+    when(groupFacet.dispatchExecutor()).thenReturn(mode == SEQUENTIAL ? null : executor)
+    when(groupFacet.members()).thenReturn(members as List)
+  }
+
+  @Test
+  void 'sequential dispatch stops at first member found'() {
+    Response found = HttpResponses.ok()
+    members(SEQUENTIAL,
+        member('x') { HttpResponses.notFound() },
+        member('y') { found },
+        member('z') { HttpResponses.ok() }
+    )
+
+    assert underTest.handle(context).is(found)
+    assert statistics.dispatches == [x: 1L, y: 1L]
+    assert statistics.hits == [x: 0L, y: 1L]
+  }
+
+  @Test
+  void 'nothing found'() {
+    members(PARALLEL,
+        member('x') { HttpResponses.notFound() },
+        member('y') { throw new IOException('failed') }
+    )
+
+    assert underTest.handle(context).status.code == 404
+    assert statistics.getHitRatio('x') == 0
+  }
+
+  @Test
+  void 'parallel dispatch prefers member order'() {
+    Response first = HttpResponses.ok()
+    members(PARALLEL,
+        member('x') { Thread.sleep(200); first },
+        member('y') { HttpResponses.ok() }
+    )
+
+    assert underTest.handle(context).is(first)
+  }
+
+  @Test(timeout = 10000L)
+  void 'first success does not wait for slower members'() {
+    CountDownLatch release = new CountDownLatch(1)
+    CountDownLatch discarded = new CountDownLatch(1)
+    Response fast = HttpResponses.ok()
+    members(FIRST_SUCCESS,
+        member('slow') { release.await(); HttpResponses.ok(new ClosingPayload(discarded)) },
+        member('fast') { fast }
+    )
+
+    assert underTest.handle(context).is(fast)
+
+    // the slower member is still running, its response is released once it completes
+    release.countDown()
+    assert discarded.await(5, TimeUnit.SECONDS)
+    assert statistics.dispatches == [slow: 1L, fast: 1L]
+  }
+
+  private static class ClosingPayload
+      implements Payload, Closeable
+  {
+    private final CountDownLatch closed
+
+    ClosingPayload(final CountDownLatch closed) {
+      this.closed = closed
+    }
+
+    @Override
+    InputStream openInputStream() {
+      throw new IllegalStateException('discarded responses must not be read')
+    }
+
+    @Override
+    long getSize() {
+      return 0
+    }
+
+    @Override
+    String getContentType() {
+      return null
+    }
+
+    @Override
+    void close() {
+      closed.countDown()
+    }
+  }
+}
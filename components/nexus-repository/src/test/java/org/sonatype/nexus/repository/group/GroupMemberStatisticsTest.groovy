@@ -0,0 +1,65 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group
+
+import org.sonatype.nexus.repository.Repository
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import org.junit.Test
+
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+
+/**
+ * Tests for {@link GroupMemberStatistics}.
+ */
+class GroupMemberStatisticsTest
+    extends TestSupport
+{
+  private GroupMemberStatistics underTest = new GroupMemberStatistics()
+
+  private static Repository repository(final String name) {
+    Repository repository = mock(Repository.class)
+    when(repository.getName()).thenReturn(name)
+    return repository
+  }
+
+  @Test
+  void 'dispatches and hits are counted per member'() {
+    Repository x = repository('x')
+    Repository y = repository('y')
+
+    4.times { underTest.dispatched(x) }
+    underTest.hit(x)
+    underTest.dispatched(y)
+
+    assert underTest.dispatches == [x: 4L, y: 1L]
+    assert underTest.hits == [x: 1L, y: 0L]
+    assert underTest.getHitRatio('x') == 0.25d
+    assert underTest.getHitRatio('y') == 0d
+    assert underTest.getHitRatio('unknown') == 0d
+  }
+
+  @Test
+  void 'reset clears all counters'() {
+    Repository x = repository('x')
+    underTest.dispatched(x)
+    underTest.hit(x)
+
+    underTest.reset()
+
+    assert underTest.dispatches.isEmpty()
+    assert underTest.hits.isEmpty()
+    assert underTest.getHitRatio('x') == 0d
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.negativecache
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.sonatype.nexus.repository.Repository
+import org.sonatype.nexus.repository.config.Configuration
+import org.sonatype.sisu.goodies.eventbus.EventBus
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+
+/**
+ * Tests for {@link NegativeCacheImpl}.
+ */
+class NegativeCacheImplTest
+    extends TestSupport
+{
+  private NegativeCacheImpl underTest
+
+  private Configuration configuration
+
+  @Before
+  void setUp() {
+    configuration = new Configuration(
+        repositoryName: 'test',
+        recipeName: 'test',
+        attributes: [
+            (NegativeCacheImpl.CONFIG_KEY): [
+                'maxEntries': 2
+            ]
+        ]
+    )
+    Repository repository = mock(Repository.class)
+    when(repository.getName()).thenReturn('test')
+    when(repository.getConfiguration()).thenReturn(configuration)
+
+    underTest = new NegativeCacheImpl()
+    underTest.installDependencies(mock(EventBus.class))
+    underTest.init(repository)
+    underTest.start()
+  }
+
+  @After
+  void tearDown() {
+    underTest?.destroy()
+  }
+
+  @Test
+  void 'cache and uncache not found'() {
+    def key = new NegativeCacheKey('/foo')
+    assert !underTest.isNotFound(key)
+
+    underTest.cacheNotFound(key)
+    assert underTest.isNotFound(key)
+    assert underTest.isNotFound(new NegativeCacheKey('/foo'))
+
+    underTest.uncacheNotFound(key)
+    assert !underTest.isNotFound(key)
+
+    assert underTest.stats.hitCount() == 2
+    assert underTest.stats.missCount() == 2
+  }
+
+  @Test
+  void 'invalidate clears all records'() {
+    underTest.cacheNotFound(new NegativeCacheKey('/foo'))
+    underTest.cacheNotFound(new NegativeCacheKey('/bar'))
+
+    underTest.invalidate()
+
+    assert !underTest.isNotFound(new NegativeCacheKey('/foo'))
+    assert !underTest.isNotFound(new NegativeCacheKey('/bar'))
+  }
+
+  @Test
+  void 'bounded by max entries'() {
+    underTest.cacheNotFound(new NegativeCacheKey('/a'))
+    underTest.cacheNotFound(new NegativeCacheKey('/b'))
+    underTest.cacheNotFound(new NegativeCacheKey('/c'))
+
+    assert underTest.stats.evictionCount() == 1
+  }
+
+  @Test
+  void 'disabled cache never reports not found'() {
+    configuration.attributes(NegativeCacheImpl.CONFIG_KEY).set('enabled', false)
+    underTest.stop()
+    underTest.update()
+    underTest.start()
+
+    def key = new NegativeCacheKey('/foo')
+    underTest.cacheNotFound(key)
+    assert !underTest.isNotFound(key)
+  }
+}
@@ -48,6 +48,7 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_ATTRIBUTES;
+import static org.sonatype.nexus.repository.storage.StorageFacet.P_LOCATOR;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_PATH;
 import static org.sonatype.nexus.repository.storage.StorageFacet.V_ASSET;
 import static org.sonatype.nexus.repository.storage.StorageFacet.V_BUCKET;
@@ -355,6 +356,26 @@ public class StorageFacetImplIT
     }
   }
 
+  @Test
+  public void findWithLocator() {
+    try (StorageTx tx = underTest.openTx()) {
+      Vertex bucket1 = tx.createVertex(V_BUCKET);
+      Vertex bucket2 = tx.createVertex(V_BUCKET);
+
+      tx.createAsset(bucket1).setProperty(P_LOCATOR, "a/b");
+      tx.createComponent(bucket2).setProperty(P_LOCATOR, "a/b");
+      tx.commit();
+
+      assertNotNull(tx.findAssetWithLocator("a/b", bucket1));
+      assertNull(tx.findAssetWithLocator("a/c", bucket1));
+      assertNull(tx.findAssetWithLocator("a/b", bucket2));
+
+      assertNotNull(tx.findComponentWithLocator("a/b", bucket2));
+      assertNull(tx.findComponentWithLocator("a/c", bucket2));
+      assertNull(tx.findComponentWithLocator("a/b", bucket1));
+    }
+  }
+
   private void checkSize(Iterable iterable, int expectedSize) {
     assertThat(Iterators.size(iterable.iterator()), is(expectedSize));
   }
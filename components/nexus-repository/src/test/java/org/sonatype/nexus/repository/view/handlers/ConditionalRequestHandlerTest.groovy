@@ -0,0 +1,260 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view.handlers
+
+import org.junit.Before
+import org.junit.Test
+import org.sonatype.nexus.repository.Repository
+import org.sonatype.nexus.repository.group.GroupFacet
+import org.sonatype.nexus.repository.group.GroupHandler
+import org.sonatype.nexus.repository.group.GroupMemberStatistics
+import org.sonatype.nexus.repository.http.HttpHandlers
+import org.sonatype.nexus.repository.http.HttpResponses
+import org.sonatype.nexus.repository.util.AttributesMap
+import org.sonatype.nexus.repository.view.ConditionalPayload
+import org.sonatype.nexus.repository.view.Context
+import org.sonatype.nexus.repository.view.Handler
+import org.sonatype.nexus.repository.view.Headers
+import org.sonatype.nexus.repository.view.PayloadResponse
+import org.sonatype.nexus.repository.view.Request
+import org.sonatype.nexus.repository.view.Response
+import org.sonatype.nexus.repository.view.Route
+import org.sonatype.nexus.repository.view.Router
+import org.sonatype.nexus.repository.view.ViewFacet
+import org.sonatype.nexus.repository.view.matchers.AlwaysMatcher
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import org.apache.http.client.utils.DateUtils
+import org.joda.time.DateTime
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+
+import static org.mockito.Matchers.any
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+import static org.sonatype.nexus.repository.http.HttpMethods.GET
+import static org.sonatype.nexus.repository.http.HttpMethods.PUT
+
+/**
+ * Tests for {@link ConditionalRequestHandler}.
+ */
+class ConditionalRequestHandlerTest
+    extends TestSupport
+{
+  private static final DateTime LAST_MODIFIED = new DateTime(1420070400000L)
+
+  private ConditionalRequestHandler underTest = new ConditionalRequestHandler()
+
+  private Headers requestHeaders
+
+  private AttributesMap requestAttributes
+
+  private Context context
+
+  @Before
+  void setUp() {
+    requestHeaders = new Headers()
+    requestAttributes = new AttributesMap()
+    Request request = mock(Request.class)
+    when(request.getAction()).thenReturn(GET)
+    when(request.getHeaders()).thenReturn(requestHeaders)
+    when(request.getAttributes()).thenReturn(requestAttributes)
+    context = mock(Context.class)
+    when(context.getRequest()).thenReturn(request)
+    when(context.proceed()).thenReturn(HttpResponses.ok(new TestPayload('0123456789')))
+  }
+
+  @Test
+  void 'adds validators to full responses'() {
+    Response response = underTest.handle(context)
+
+    assert response.status.code == 200
+    assert response.headers.get('ETag') == '"sha1"'
+    assert response.headers.get('Last-Modified') == DateUtils.formatDate(LAST_MODIFIED.toDate())
+    assert response.headers.get('Accept-Ranges') == 'bytes'
+  }
+
+  @Test
+  void 'not modified when entity tag matches'() {
+    requestHeaders.set('If-None-Match', '"other", W/"sha1"')
+
+    Response response = underTest.handle(context)
+
+    assert response.status.code == 304
+    assert !(response instanceof PayloadResponse)
+    assert response.headers.get('ETag') == '"sha1"'
+  }
+
+  @Test
+  void 'not modified since'() {
+    requestHeaders.set('If-Modified-Since', DateUtils.formatDate(LAST_MODIFIED.plusSeconds(1).toDate()))
+    assert underTest.handle(context).status.code == 304
+  }
+
+  @Test
+  void 'modified since'() {
+    requestHeaders.set('If-Modified-Since', DateUtils.formatDate(LAST_MODIFIED.minusSeconds(1).toDate()))
+    assert underTest.handle(context).status.code == 200
+  }
+
+  @Test
+  void 'serves byte ranges'() {
+    assert partial('bytes=2-4') == '234'
+    assert partial('bytes=7-') == '789'
+    assert partial('bytes=-2') == '89'
+    assert partial('bytes=8-100') == '89'
+  }
+
+  @Test
+  void 'content range header'() {
+    requestHeaders.set('Range', 'bytes=2-4')
+
+    Response response = underTest.handle(context)
+
+    assert response.status.code == 206
+    assert response.headers.get('Content-Range') == 'bytes 2-4/10'
+    assert response.payload.size == 3
+  }
+
+  @Test
+  void 'unsatisfiable range'() {
+    requestHeaders.set('Range', 'bytes=10-')
+
+    Response response = underTest.handle(context)
+
+    assert response.status.code == 416
+    assert response.headers.get('Content-Range') == 'bytes */10'
+  }
+
+  @Test
+  void 'unsupported ranges serve full content'() {
+    requestHeaders.set('Range', 'bytes=0-1,4-5')
+    assert underTest.handle(context).status.code == 200
+  }
+
+  @Test
+  void 'stale if-range serves full content'() {
+    requestHeaders.set('Range', 'bytes=0-1')
+    requestHeaders.set('If-Range', '"other"')
+    assert underTest.handle(context).status.code == 200
+  }
+
+  @Test
+  void 'ignores other methods'() {
+    when(context.getRequest().getAction()).thenReturn(PUT)
+    requestHeaders.set('If-None-Match', '*')
+
+    Response response = underTest.handle(context)
+
+    assert response.status.code == 200
+    assert !response.headers.contains('ETag')
+  }
+
+  @Test
+  void 'group answers conditional requests from full member content'() {
+    requestHeaders.set('If-None-Match', '"sha1"')
+
+    Response response = dispatchToGroup()
+
+    assert response.status.code == 304
+    assert response.headers.get('ETag') == '"sha1"'
+  }
+
+  @Test
+  void 'group answers range requests from full member content'() {
+    requestHeaders.set('Range', 'bytes=2-4')
+
+    Response response = dispatchToGroup()
+
+    assert response.status.code == 206
+    assert response.payload.openInputStream().text == '234'
+  }
+
+  /**
+   * Dispatches the request to a group view whose member view also has the handler installed.
+   */
+  private Response dispatchToGroup() {
+    Repository member = mock(Repository.class)
+    when(member.getName()).thenReturn('member')
+    Router memberRouter = router(underTest, { Context context ->
+      HttpResponses.ok(new TestPayload('0123456789'))
+    } as Handler)
+    ViewFacet memberView = mock(ViewFacet.class)
+    when(memberView.dispatch(any(Request.class))).thenAnswer({ InvocationOnMock invocation ->
+      memberRouter.dispatch(member, (Request) invocation.arguments[0])
+    } as Answer)
+    when(member.facet(ViewFacet.class)).thenReturn(memberView)
+
+    GroupFacet groupFacet = mock(GroupFacet.class)
+    when(groupFacet.dispatchMode()).thenReturn(GroupFacet.DispatchMode.SEQUENTIAL)
+    when(groupFacet.members()).thenReturn([member])
+    when(groupFacet.memberStatistics()).thenReturn(new GroupMemberStatistics())
+    Repository group = mock(Repository.class)
+    when(group.facet(GroupFacet.class)).thenReturn(groupFacet)
+
+    return router(underTest, new GroupHandler()).dispatch(group, context.request)
+  }
+
+  private static Router router(final Handler... handlers) {
+    Route.Builder route = new Route.Builder().matcher(new AlwaysMatcher())
+    handlers.each { route.handler(it) }
+    return new Router.Builder()
+        .route(route.create())
+        .defaultHandlers(HttpHandlers.notFound())
+        .create()
+  }
+
+  private String partial(final String range) {
+    requestHeaders.clear()
+    requestAttributes.clear()
+    requestHeaders.set('Range', range)
+    Response response = underTest.handle(context)
+    assert response.status.code == 206
+    return response.payload.openInputStream().text
+  }
+
+  private static class TestPayload
+      implements ConditionalPayload
+  {
+    private final String content
+
+    TestPayload(final String content) {
+      this.content = content
+    }
+
+    @Override
+    InputStream openInputStream() {
+      return new ByteArrayInputStream(content.bytes)
+    }
+
+    @Override
+    long getSize() {
+      return content.length()
+    }
+
+    @Override
+    String getContentType() {
+      return 'text/plain'
+    }
+
+    @Override
+    DateTime getLastModified() {
+      return LAST_MODIFIED
+    }
+
+    @Override
+    String getETag() {
+      return 'sha1'
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view.payloads
+
+import com.google.common.io.ByteStreams
+import org.junit.Test
+import org.sonatype.nexus.repository.view.Payload
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import static org.junit.Assert.fail
+
+/**
+ * Tests for {@link SpoolingPayload}.
+ */
+class SpoolingPayloadTest
+    extends TestSupport
+{
+  private static byte[] content(final int size) {
+    byte[] bytes = new byte[size]
+    new Random(size).nextBytes(bytes)
+    return bytes
+  }
+
+  @Test
+  void 'replay content within memory threshold'() {
+    def bytes = content(100)
+    def underTest = new SpoolingPayload(new ByteArrayInputStream(bytes), 100, 'text/plain', 1024, true)
+    try {
+      def prefix = new byte[10]
+      underTest.openInputStream().withStream { ByteStreams.readFully(it, prefix) }
+      assert prefix == Arrays.copyOf(bytes, 10)
+
+      assert underTest.openInputStream().withStream { ByteStreams.toByteArray(it) } == bytes
+      assert underTest.openInputStream().withStream { ByteStreams.toByteArray(it) } == bytes
+      assert underTest.size == 100
+      assert underTest.contentType == 'text/plain'
+    }
+    finally {
+      underTest.close()
+    }
+  }
+
+  @Test
+  void 'replay content spooled beyond memory threshold'() {
+    def bytes = content(64 * 1024)
+    def underTest = new SpoolingPayload(new ByteArrayInputStream(bytes), Payload.UNKNOWN_SIZE, null, 1024, true)
+    try {
+      assert underTest.size == Payload.UNKNOWN_SIZE
+      assert underTest.openInputStream().withStream { ByteStreams.toByteArray(it) } == bytes
+      assert underTest.openInputStream().withStream { ByteStreams.toByteArray(it) } == bytes
+      assert underTest.size == bytes.length
+    }
+    finally {
+      underTest.close()
+    }
+  }
+
+  @Test
+  void 'superseded stream can not be read'() {
+    def underTest = new SpoolingPayload(new ByteArrayInputStream(content(100)), 100, null, 1024, true)
+    try {
+      def first = underTest.openInputStream()
+      underTest.openInputStream()
+      try {
+        first.read()
+        fail()
+      }
+      catch (IOException e) {
+        // expected
+      }
+    }
+    finally {
+      underTest.close()
+    }
+  }
+
+  @Test
+  void 'reopen after reading the head within memory threshold'() {
+    def bytes = content(64 * 1024)
+    def underTest = new SpoolingPayload(new ByteArrayInputStream(bytes), bytes.length, null, 1024, false)
+    try {
+      def prefix = new byte[512]
+      underTest.openInputStream().withStream { ByteStreams.readFully(it, prefix) }
+      assert prefix == Arrays.copyOf(bytes, 512)
+
+      assert underTest.openInputStream().withStream { ByteStreams.toByteArray(it) } == bytes
+    }
+    finally {
+      underTest.close()
+    }
+  }
+
+  @Test
+  void 'content read past memory threshold is not spooled unless replayable'() {
+    def bytes = content(64 * 1024)
+    def underTest = new SpoolingPayload(new ByteArrayInputStream(bytes), Payload.UNKNOWN_SIZE, null, 1024, false)
+    try {
+      assert underTest.openInputStream().withStream { ByteStreams.toByteArray(it) } == bytes
+      assert underTest.size == bytes.length
+      try {
+        underTest.openInputStream()
+        fail()
+      }
+      catch (IOException e) {
+        // expected
+      }
+    }
+    finally {
+      underTest.close()
+    }
+  }
+}
@@ -15,6 +15,7 @@ package org.sonatype.nexus.repository.httpbridge;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.Map;
 
 import javax.inject.Named;
@@ -22,6 +23,7 @@ import javax.inject.Singleton;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
 
+import org.sonatype.nexus.repository.view.FileChannelPayload;
 import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.PayloadResponse;
 import org.sonatype.nexus.repository.view.Response;
@@ -29,6 +31,7 @@ import org.sonatype.nexus.repository.view.Status;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
 import com.google.common.io.ByteStreams;
+import org.eclipse.jetty.server.HttpOutput;
 
 /**
  * Default {@link HttpResponseSender}.
@@ -52,6 +55,12 @@ public class DefaultHttpResponseSender
       httpResponse.addHeader(header.getKey(), header.getValue());
     }
 
+    // Set status before any content is written, as writing may commit the response
+    Status status = response.getStatus();
+    if (status.isSuccessful()) {
+      httpResponse.setStatus(status.getCode(), status.getMessage());
+    }
+
     // write payload details if we have one
     if (response instanceof PayloadResponse) {
       Payload payload = ((PayloadResponse)response).getPayload();
@@ -60,20 +69,41 @@ public class DefaultHttpResponseSender
       if (payload.getContentType() != null) {
         httpResponse.setContentType(payload.getContentType());
       }
-      httpResponse.setContentLength((int) payload.getSize()); // HACK: Upgrade to servlet 3.1 to use proper long values
+      if (payload.getSize() != Payload.UNKNOWN_SIZE) {
+        httpResponse.setContentLengthLong(payload.getSize());
+      }
 
-      try (InputStream input = payload.openInputStream(); OutputStream output = httpResponse.getOutputStream()) {
-        ByteStreams.copy(input, output);
+      try (OutputStream output = httpResponse.getOutputStream()) {
+        if (!sendFileChannel(payload, output)) {
+          try (InputStream input = payload.openInputStream()) {
+            ByteStreams.copy(input, output);
+          }
+        }
       }
     }
 
-    // Set or send status
-    Status status = response.getStatus();
-    if (status.isSuccessful()) {
-      httpResponse.setStatus(status.getCode(), status.getMessage());
-    }
-    else {
+    if (!status.isSuccessful()) {
       httpResponse.sendError(status.getCode(), status.getMessage());
     }
   }
+
+  /**
+   * Hands file-backed payloads to Jetty, which streams them from the channel itself. The file is not memory-mapped,
+   * as a mapping holds address space until it is garbage collected.
+   *
+   * @return {@code true} if the payload was sent, {@code false} if it should be copied from its input stream
+   */
+  private boolean sendFileChannel(final Payload payload, final OutputStream output) throws IOException {
+    if (!(payload instanceof FileChannelPayload) || !(output instanceof HttpOutput)) {
+      return false;
+    }
+    try (FileChannel channel = ((FileChannelPayload) payload).openFileChannel()) {
+      if (channel == null) {
+        return false;
+      }
+      log.trace("Sending {} bytes from file channel", channel.size());
+      ((HttpOutput) output).sendContent(channel);
+      return true;
+    }
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.httpbridge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobMetrics;
+import org.sonatype.nexus.blobstore.api.FileChannelBlob;
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.view.payloads.BlobPayload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.eclipse.jetty.server.HttpOutput;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DefaultHttpResponseSender}.
+ */
+public class DefaultHttpResponseSenderTest
+    extends TestSupport
+{
+  private static final byte[] CONTENT = "0123456789".getBytes(Charsets.UTF_8);
+
+  private final DefaultHttpResponseSender underTest = new DefaultHttpResponseSender();
+
+  private HttpServletResponse httpResponse;
+
+  @Before
+  public void setUp() {
+    httpResponse = mock(HttpServletResponse.class);
+  }
+
+  @Test
+  public void fileBackedBlobIsSentFromChannel() throws Exception {
+    File file = new File(util.createTempDir(), "content.bin");
+    Files.write(CONTENT, file);
+
+    FileChannelBlob blob = mock(FileChannelBlob.class);
+    when(blob.getMetrics()).thenReturn(new BlobMetrics(DateTime.now(), "sha1", CONTENT.length));
+    when(blob.openFileChannel()).thenReturn(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+    HttpOutput output = mock(HttpOutput.class);
+    when(httpResponse.getOutputStream()).thenReturn(output);
+
+    underTest.send(HttpResponses.ok(new BlobPayload(blob, "text/plain")), httpResponse);
+
+    ArgumentCaptor<ReadableByteChannel> channel = ArgumentCaptor.forClass(ReadableByteChannel.class);
+    verify(output).sendContent(channel.capture());
+    assertThat(channel.getValue(), instanceOf(FileChannel.class));
+    verify(output, never()).sendContent(any(ByteBuffer.class));
+    verify(blob, never()).getInputStream();
+    verify(httpResponse).setContentType("text/plain");
+    verify(httpResponse).setContentLengthLong(CONTENT.length);
+  }
+
+  @Test
+  public void blobNotBackedByFileIsStreamed() throws Exception {
+    Blob blob = mock(Blob.class);
+    when(blob.getMetrics()).thenReturn(new BlobMetrics(DateTime.now(), "sha1", CONTENT.length));
+    when(blob.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
+    HttpOutput output = mock(HttpOutput.class);
+    when(httpResponse.getOutputStream()).thenReturn(output);
+
+    underTest.send(HttpResponses.ok(new BlobPayload(blob, "text/plain")), httpResponse);
+
+    verify(blob).getInputStream();
+    verify(output, never()).sendContent(any(ReadableByteChannel.class));
+  }
+
+  @Test
+  public void payloadIsCopiedWhenOutputIsNotJetty() throws Exception {
+    CapturingOutputStream output = new CapturingOutputStream();
+    when(httpResponse.getOutputStream()).thenReturn(output);
+
+    underTest.send(HttpResponses.ok(new BytesPayload(CONTENT, "text/plain")), httpResponse);
+
+    assertThat(output.bytes.toByteArray(), is(CONTENT));
+    verify(httpResponse).setContentLengthLong(CONTENT.length);
+  }
+
+  private static class CapturingOutputStream
+      extends ServletOutputStream
+  {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Override
+    public void write(final int b) throws IOException {
+      bytes.write(b);
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+      // not used
+    }
+  }
+}
@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.repository.raw.internal;
 
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
@@ -38,9 +40,11 @@ import org.sonatype.nexus.repository.storage.StorageFacet;
 import org.sonatype.nexus.repository.storage.StorageTx;
 import org.sonatype.nexus.repository.util.NestedAttributesMap;
 import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.payloads.BlobPayload;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.orient.OrientVertex;
@@ -50,13 +54,14 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.MD5;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1;
+import static org.sonatype.nexus.repository.raw.internal.RawContentPayloadMarshaller.toContent;
 import static org.sonatype.nexus.repository.storage.StorageFacet.E_PART_OF_COMPONENT;
-import static org.sonatype.nexus.repository.storage.StorageFacet.P_ATTRIBUTES;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_BLOB_REF;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_CONTENT_TYPE;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_FORMAT;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_GROUP;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_LAST_UPDATED;
+import static org.sonatype.nexus.repository.storage.StorageFacet.P_LOCATOR;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_NAME;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_PATH;
 
@@ -73,6 +78,11 @@ public class RawContentFacetImpl
 
   private final static List<HashAlgorithm> hashAlgorithms = Lists.newArrayList(MD5, SHA1);
 
+  /**
+   * Maximum number of leading content bytes examined to determine the content type.
+   */
+  private static final int CONTENT_TYPE_DETECTION_LIMIT = 64 * 1024;
+
   private final MimeSupport mimeSupport;
 
   private final SearchableComponentFactory searchableComponentFactory;
@@ -128,8 +138,10 @@ public class RawContentFacetImpl
 
         // Set attributes map to contain "raw" format-specific metadata (in this case, path)
         tx.getAttributes(component).child(RawFormat.NAME).set(P_PATH, path);
+        component.setProperty(P_LOCATOR, path);
 
         asset = tx.createAsset(bucket);
+        asset.setProperty(P_LOCATOR, path);
         asset.addEdge(E_PART_OF_COMPONENT, component);
       }
       else {
@@ -141,8 +153,12 @@ public class RawContentFacetImpl
       final ImmutableMap<String, String> headers = ImmutableMap
           .of(BlobStore.BLOB_NAME_HEADER, path, BlobStore.CREATED_BY_HEADER, "unknown");
 
-      try (InputStream in = content.openInputStream()) {
-        tx.setBlob(in, headers, asset, hashAlgorithms, determineContentType(path, content));
+      // content may not be re-openable (eg. when streamed from remote), so detect from the head of the stored stream
+      try (BufferedInputStream in = new BufferedInputStream(content.openInputStream())) {
+        in.mark(CONTENT_TYPE_DETECTION_LIMIT);
+        final String contentType = determineContentType(path, content.getContentType(), head(in));
+        in.reset();
+        tx.setBlob(in, headers, asset, hashAlgorithms, contentType);
       }
 
       final DateTime lastUpdated = content.getLastUpdated();
@@ -161,15 +177,19 @@ public class RawContentFacetImpl
   }
 
   /**
-   * Determines or confirms the content type for the content, or throws {@link InvalidContentException} if it cannot.
+   * Determines or confirms the content type from the head of the content, or throws {@link InvalidContentException} if
+   * it cannot.
    */
   @Nonnull
-  private String determineContentType(final String path, final RawContent content) throws IOException {
-    String contentType = content.getContentType();
+  private String determineContentType(final String path,
+                                      final @Nullable String declaredContentType,
+                                      final InputStream head) throws IOException
+  {
+    String contentType = declaredContentType;
 
     if (contentType == null) {
       log.trace("Content PUT to {} has no content type.", path);
-      try (InputStream is = content.openInputStream()) {
+      try (InputStream is = head) {
         contentType = mimeSupport.detectMimeType(is, path);
         log.trace("Mime support implies content type {}", contentType);
       }
@@ -179,7 +199,10 @@ public class RawContentFacetImpl
       }
     }
     else {
-      final List<String> types = mimeSupport.detectMimeTypes(content.openInputStream(), path);
+      final List<String> types;
+      try (InputStream is = head) {
+        types = mimeSupport.detectMimeTypes(is, path);
+      }
       if (!types.isEmpty() && !types.contains(contentType)) {
         log.debug("Discovered content type {} ", types.get(0));
         if (strictContentTypeValidation) {
@@ -191,6 +214,20 @@ public class RawContentFacetImpl
     return contentType;
   }
 
+  /**
+   * Returns a view of the first {@link #CONTENT_TYPE_DETECTION_LIMIT} bytes of the stream that leaves the stream open
+   * when closed.
+   */
+  private static InputStream head(final InputStream in) {
+    return new FilterInputStream(ByteStreams.limit(in, CONTENT_TYPE_DETECTION_LIMIT))
+    {
+      @Override
+      public void close() {
+        // keep the underlying stream open, it is stored once the content type is known
+      }
+    };
+  }
+
   private String getGroup(String path) {
     StringBuilder group = new StringBuilder();
     if (!path.startsWith("/")) {
@@ -242,8 +279,7 @@ public class RawContentFacetImpl
   @Override
   public void updateLastUpdated(final String path, final DateTime lastUpdated) throws IOException {
     try (StorageTx tx = getStorage().openTx()) {
-      OrientVertex bucket = tx.getBucket();
-      OrientVertex component = tx.findComponentWithProperty(P_PATH, path, bucket);
+      OrientVertex component = getComponent(tx, path, tx.getBucket());
 
       if (component == null) {
         log.debug("Updating lastUpdated time for nonexistant raw component {}", path);
@@ -281,10 +317,8 @@ public class RawContentFacetImpl
     return (OrientVertex) vertices.get(0);
   }
 
-  // TODO: Consider a top-level indexed property (e.g. "locator") to make these common lookups fast
   private OrientVertex getComponent(StorageTx tx, String path, OrientVertex bucket) {
-    String property = String.format("%s.%s.%s", P_ATTRIBUTES, RawFormat.NAME, P_PATH);
-    return tx.findComponentWithProperty(property, path, bucket);
+    return tx.findComponentWithLocator(path, bucket);
   }
 
   private RawContent marshall(final OrientVertex asset, final Blob blob) {
@@ -293,27 +327,6 @@ public class RawContentFacetImpl
     final Date date = asset.getProperty(P_LAST_UPDATED);
     final DateTime lastUpdated = date == null ? null : new DateTime(date.getTime());
 
-    return new RawContent()
-    {
-      @Override
-      public String getContentType() {
-        return contentType;
-      }
-
-      @Override
-      public long getSize() {
-        return blob.getMetrics().getContentSize();
-      }
-
-      @Override
-      public InputStream openInputStream() {
-        return blob.getInputStream();
-      }
-
-      @Override
-      public DateTime getLastUpdated() {
-        return lastUpdated;
-      }
-    };
+    return toContent(new BlobPayload(blob, contentType, lastUpdated), lastUpdated);
   }
 }
@@ -33,34 +33,50 @@ public class RawContentPayloadMarshaller
   private RawContentPayloadMarshaller() { }
 
   public static RawContent toContent(final Payload payload, final DateTime updatedDate) {
-    return new RawContent()
-    {
-      @Override
-      public String getContentType() {
-        return payload.getContentType();
-      }
-
-      @Override
-      public long getSize() {
-        return payload.getSize();
-      }
-
-      @Override
-      public InputStream openInputStream() throws IOException {
-        return payload.openInputStream();
-      }
-
-      @Override
-      public DateTime getLastUpdated() {
-        return updatedDate;
-      }
-    };
+    return new PayloadRawContent(payload, updatedDate);
   }
 
   public static Payload toPayload(RawContent content) throws IOException {
     checkNotNull(content);
+    if (content instanceof PayloadRawContent) {
+      // hand back the original payload, which may support more efficient transfer than a plain stream
+      return ((PayloadRawContent) content).payload;
+    }
     return new StreamPayload(content.openInputStream(),
         content.getSize(),
         content.getContentType());
   }
+
+  private static class PayloadRawContent
+      implements RawContent
+  {
+    private final Payload payload;
+
+    private final DateTime updatedDate;
+
+    private PayloadRawContent(final Payload payload, final DateTime updatedDate) {
+      this.payload = checkNotNull(payload);
+      this.updatedDate = updatedDate;
+    }
+
+    @Override
+    public String getContentType() {
+      return payload.getContentType();
+    }
+
+    @Override
+    public long getSize() {
+      return payload.getSize();
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      return payload.openInputStream();
+    }
+
+    @Override
+    public DateTime getLastUpdated() {
+      return updatedDate;
+    }
+  }
 }
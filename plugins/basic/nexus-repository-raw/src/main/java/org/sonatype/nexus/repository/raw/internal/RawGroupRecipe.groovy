@@ -30,6 +30,7 @@ import org.sonatype.nexus.repository.view.ConfigurableViewFacet
 import org.sonatype.nexus.repository.view.Route
 import org.sonatype.nexus.repository.view.Router
 import org.sonatype.nexus.repository.view.ViewFacet
+import org.sonatype.nexus.repository.view.handlers.ConditionalRequestHandler
 import org.sonatype.nexus.repository.view.handlers.TimingHandler
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher
 
@@ -56,6 +57,9 @@ class RawGroupRecipe
   @Inject
   TimingHandler timingHandler
 
+  @Inject
+  ConditionalRequestHandler conditionalRequestHandler
+
   @Inject
   SecurityHandler securityHandler
 
@@ -86,6 +90,7 @@ class RawGroupRecipe
         .matcher(new TokenMatcher("/{name:.+}"))
         .handler(timingHandler)
         .handler(securityHandler)
+        .handler(conditionalRequestHandler)
         .handler(groupHandler)
         .create())
 
@@ -28,6 +28,7 @@ import org.sonatype.nexus.repository.view.ConfigurableViewFacet
 import org.sonatype.nexus.repository.view.Route
 import org.sonatype.nexus.repository.view.Router
 import org.sonatype.nexus.repository.view.ViewFacet
+import org.sonatype.nexus.repository.view.handlers.ConditionalRequestHandler
 import org.sonatype.nexus.repository.view.handlers.TimingHandler
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher
 
@@ -78,6 +79,9 @@ class RawProxyRecipe
   @Inject
   TimingHandler timingHandler
 
+  @Inject
+  ConditionalRequestHandler conditionalRequestHandler
+
   @Inject
   SecurityHandler securityHandler
 
@@ -115,6 +119,7 @@ class RawProxyRecipe
     builder.route(new Route.Builder()
         .matcher(new TokenMatcher("/{name:.+}"))
         .handler(timingHandler)
+        .handler(conditionalRequestHandler)
         .handler(negativeCacheHandler)
         .handler(proxyHandler)
         .handler(notFound())
@@ -0,0 +1,176 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.raw.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import org.sonatype.nexus.mime.MimeSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.config.Configuration;
+import org.sonatype.nexus.repository.search.SearchFacet;
+import org.sonatype.nexus.repository.search.SearchableComponentFactory;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.util.NestedAttributesMap;
+import org.sonatype.nexus.repository.view.payloads.SpoolingPayload;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.raw.internal.RawContentPayloadMarshaller.toContent;
+
+/**
+ * Tests for {@link RawContentFacetImpl}.
+ */
+public class RawContentFacetImplTest
+    extends TestSupport
+{
+  private static final String PATH = "/org/example/content.bin";
+
+  @Mock
+  private MimeSupport mimeSupport;
+
+  @Mock
+  private SearchableComponentFactory searchableComponentFactory;
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private StorageFacet storageFacet;
+
+  @Mock
+  private StorageTx tx;
+
+  @Mock
+  private OrientVertex bucket;
+
+  @Mock
+  private OrientVertex component;
+
+  @Mock
+  private OrientVertex asset;
+
+  private byte[] stored;
+
+  private String storedContentType;
+
+  private RawContentFacetImpl underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setRepositoryName("raw-proxy");
+    configuration.setRecipeName("raw-proxy");
+    configuration.setAttributes(ImmutableMap.<String, Map<String, Object>>of(
+        RawContentFacetImpl.CONFIG_KEY, ImmutableMap.<String, Object>of("strictContentTypeValidation", true)
+    ));
+    when(repository.getConfiguration()).thenReturn(configuration);
+    when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+    when(repository.facet(SearchFacet.class)).thenReturn(mock(SearchFacet.class));
+    when(storageFacet.openTx()).thenReturn(tx);
+    when(tx.getBucket()).thenReturn(bucket);
+    when(tx.createComponent(bucket)).thenReturn(component);
+    when(tx.createAsset(bucket)).thenReturn(asset);
+    when(tx.getAttributes(component))
+        .thenReturn(new NestedAttributesMap("attributes", Maps.<String, Object>newHashMap()));
+    when(tx.setBlob(any(InputStream.class), anyMapOf(String.class, String.class), eq(asset),
+        any(Iterable.class), anyString())).thenAnswer(new Answer<Object>()
+    {
+      @Override
+      public Object answer(final InvocationOnMock invocation) throws Throwable {
+        stored = ByteStreams.toByteArray((InputStream) invocation.getArguments()[0]);
+        storedContentType = (String) invocation.getArguments()[4];
+        return null;
+      }
+    });
+
+    underTest = new RawContentFacetImpl(mimeSupport, searchableComponentFactory);
+    underTest.installDependencies(mock(EventBus.class));
+    underTest.init(repository);
+  }
+
+  /**
+   * Mime support that reads all it is given, as container aware detection may.
+   */
+  private void detect(final String contentType) throws IOException {
+    Answer<Object> readAll = new Answer<Object>()
+    {
+      @Override
+      public Object answer(final InvocationOnMock invocation) throws Throwable {
+        ByteStreams.toByteArray((InputStream) invocation.getArguments()[0]);
+        return invocation.getMethod().getName().equals("detectMimeType")
+            ? contentType
+            : Collections.singletonList(contentType);
+      }
+    };
+    when(mimeSupport.detectMimeType(any(InputStream.class), eq(PATH))).thenAnswer(readAll);
+    when(mimeSupport.detectMimeTypes(any(InputStream.class), eq(PATH))).thenAnswer(readAll);
+  }
+
+  private static byte[] content(final int size) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) i;
+    }
+    return content;
+  }
+
+  @Test
+  public void putSpoolingPayloadWithoutContentType() throws Exception {
+    detect("application/octet-stream");
+    byte[] content = content(128 * 1024);
+    try (SpoolingPayload payload = new SpoolingPayload(new ByteArrayInputStream(content), content.length, null, 1024,
+        false)) {
+      underTest.put(PATH, toContent(payload, new DateTime()));
+    }
+
+    assertThat(stored, is(content));
+    assertThat(storedContentType, is("application/octet-stream"));
+  }
+
+  @Test
+  public void putSpoolingPayloadConfirmsContentType() throws Exception {
+    detect("application/java-archive");
+    byte[] content = content(128 * 1024);
+    try (SpoolingPayload payload = new SpoolingPayload(new ByteArrayInputStream(content), content.length,
+        "application/java-archive", 1024, false)) {
+      underTest.put(PATH, toContent(payload, new DateTime()));
+    }
+
+    assertThat(stored, is(content));
+    assertThat(storedContentType, is("application/java-archive"));
+  }
+}
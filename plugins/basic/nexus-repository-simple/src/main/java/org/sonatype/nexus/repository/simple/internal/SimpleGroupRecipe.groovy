@@ -24,6 +24,7 @@ import org.sonatype.nexus.repository.view.ConfigurableViewFacet
 import org.sonatype.nexus.repository.view.Route
 import org.sonatype.nexus.repository.view.Router
 import org.sonatype.nexus.repository.view.ViewFacet
+import org.sonatype.nexus.repository.view.handlers.ConditionalRequestHandler
 import org.sonatype.nexus.repository.view.handlers.TimingHandler
 import org.sonatype.nexus.repository.view.matchers.LiteralMatcher
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher
@@ -63,6 +64,9 @@ class SimpleGroupRecipe
   @Inject
   TimingHandler timingHandler
 
+  @Inject
+  ConditionalRequestHandler conditionalRequestHandler
+
   @Inject
   SecurityHandler securityHandler
 
@@ -106,6 +110,7 @@ class SimpleGroupRecipe
         .matcher(new TokenMatcher('/{name:.+}'))
         .handler(timingHandler)
         .handler(securityHandler)
+        .handler(conditionalRequestHandler)
         .handler(groupHandler)
         .create())
 
@@ -23,6 +23,7 @@ import org.sonatype.nexus.repository.view.ConfigurableViewFacet
 import org.sonatype.nexus.repository.view.Route
 import org.sonatype.nexus.repository.view.Router
 import org.sonatype.nexus.repository.view.ViewFacet
+import org.sonatype.nexus.repository.view.handlers.ConditionalRequestHandler
 import org.sonatype.nexus.repository.view.handlers.TimingHandler
 import org.sonatype.nexus.repository.view.matchers.LiteralMatcher
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher
@@ -62,6 +63,9 @@ class SimpleHostedRecipe
   @Inject
   TimingHandler timingHandler
 
+  @Inject
+  ConditionalRequestHandler conditionalRequestHandler
+
   @Inject
   SecurityHandler securityHandler
 
@@ -105,6 +109,7 @@ class SimpleHostedRecipe
         .matcher(new TokenMatcher('/{name:.+}'))
         .handler(timingHandler)
         .handler(securityHandler)
+        .handler(conditionalRequestHandler)
         .handler(storageHandler)
         .create())
 
@@ -13,11 +13,15 @@
 package org.sonatype.nexus.timeline.internal;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -27,12 +31,17 @@ import org.sonatype.nexus.orient.DatabaseManager;
 import org.sonatype.nexus.orient.DatabasePool;
 import org.sonatype.nexus.proxy.events.NexusInitializedEvent;
 import org.sonatype.nexus.proxy.events.NexusStoppedEvent;
+import org.sonatype.nexus.threads.NexusThreadFactory;
 import org.sonatype.nexus.timeline.Entry;
 import org.sonatype.nexus.timeline.Timeline;
 import org.sonatype.nexus.timeline.TimelineCallback;
 import org.sonatype.sisu.goodies.eventbus.EventBus;
 import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
@@ -52,11 +61,19 @@ import org.joda.time.DateMidnight;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Days;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Implementation of {@link Timeline} backed by OrientDB.
- * 
+ *
+ * Added entries are put into a bounded in-memory queue, and written by a background writer in batches, so threads
+ * posting events never wait for the database. The writer commits once the queue holds a full batch, or when the batch
+ * window elapsed. When the queue is full, adding waits for the configured offer timeout and then drops the entry.
+ * Reads and purges write out the queue first, hence they always see previously added entries. Queued, written and
+ * dropped entries are counted in the shared metrics registry.
+ *
  * @since 3.0
  */
 @Named
@@ -85,13 +102,71 @@ public class DefaultTimeline
 
   private static final String I_SUBTYPE = DB_CLASS + "." + P_SUBTYPE;
 
+  private static final int DEFAULT_QUEUE_SIZE = 10000;
+
+  private static final int DEFAULT_BATCH_SIZE = 500;
+
+  private static final long DEFAULT_BATCH_WINDOW_MILLIS = 250;
+
+  private static final long DEFAULT_OFFER_TIMEOUT_MILLIS = 5000;
+
+  private static final boolean DEFAULT_DROP_WHEN_FULL = false;
+
   private final DatabaseManager databaseManager;
 
-  private DatabasePool pool;
+  private final BlockingQueue<EntryRecord> queue;
+
+  private final int batchSize;
+
+  private final long batchWindowMillis;
+
+  private final long offerTimeoutMillis;
+
+  private final boolean dropWhenFull;
+
+  private final Object writerSignal = new Object();
+
+  // guards DB writes and DDL, see maybeAddNewCluster and purgeOlderThan
+  private final Object dbLock = new Object();
+
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
+  private final Counter queued = metricRegistry.counter(MetricRegistry.name(Timeline.class, "queued"));
+
+  private final Counter written = metricRegistry.counter(MetricRegistry.name(Timeline.class, "written"));
+
+  private final Counter dropped = metricRegistry.counter(MetricRegistry.name(Timeline.class, "dropped"));
+
+  private volatile DatabasePool pool;
+
+  private ExecutorService writer;
+
+  private volatile boolean writing;
 
-  @Inject
   public DefaultTimeline(final EventBus eventBus, final DatabaseManager databaseManager) {
+    this(eventBus, databaseManager, DEFAULT_QUEUE_SIZE, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_WINDOW_MILLIS,
+        DEFAULT_OFFER_TIMEOUT_MILLIS, DEFAULT_DROP_WHEN_FULL);
+  }
+
+  @Inject
+  public DefaultTimeline(final EventBus eventBus,
+                         final DatabaseManager databaseManager,
+                         final @Named("${nexus.timeline.queueSize:-10000}") int queueSize,
+                         final @Named("${nexus.timeline.batchSize:-500}") int batchSize,
+                         final @Named("${nexus.timeline.batchWindowMillis:-250}") long batchWindowMillis,
+                         final @Named("${nexus.timeline.offerTimeoutMillis:-5000}") long offerTimeoutMillis,
+                         final @Named("${nexus.timeline.dropWhenFull:-false}") boolean dropWhenFull)
+  {
+    checkArgument(queueSize > 0, "Queue size must be positive");
+    checkArgument(batchSize > 0, "Batch size must be positive");
+    checkArgument(batchWindowMillis > 0, "Batch window must be positive");
+    checkArgument(offerTimeoutMillis >= 0, "Offer timeout must not be negative");
     this.databaseManager = checkNotNull(databaseManager);
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.batchSize = batchSize;
+    this.batchWindowMillis = batchWindowMillis;
+    this.offerTimeoutMillis = offerTimeoutMillis;
+    this.dropWhenFull = dropWhenFull;
     eventBus.register(this);
   }
 
@@ -139,18 +214,61 @@ public class DefaultTimeline
     }
 
     this.pool = databaseManager.newPool(DB_NAME);
+
+    metricRegistry.remove(MetricRegistry.name(Timeline.class, "pending"));
+    metricRegistry.register(MetricRegistry.name(Timeline.class, "pending"), new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return queue.size();
+      }
+    });
+
+    writing = true;
+    writer = Executors.newSingleThreadExecutor(new NexusThreadFactory("timeline", "Timeline writer"));
+    writer.execute(new Runnable()
+    {
+      @Override
+      public void run() {
+        writeLoop();
+      }
+    });
   }
 
   @Override
   public void doStop() throws Exception {
+    writing = false;
+    synchronized (writerSignal) {
+      writerSignal.notifyAll();
+    }
+    writer.shutdown();
+    if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+      log.warn("Timeline writer did not terminate in time");
+    }
+    writer = null;
+
+    // entries added while the writer was terminating
+    flush();
+
+    metricRegistry.remove(MetricRegistry.name(Timeline.class, "pending"));
     pool.close();
     pool = null;
   }
 
+  /**
+   * Opens a database connection, after writing out queued entries.
+   */
   @VisibleForTesting
   ODatabaseDocumentTx openDb() {
     ensureStarted();
-    return pool.acquire();
+    flush();
+    return acquireDb();
+  }
+
+  private ODatabaseDocumentTx acquireDb() {
+    final DatabasePool current = pool;
+    checkState(current != null, "Timeline not started");
+    return current.acquire();
   }
 
   // API
@@ -161,7 +279,7 @@ public class DefaultTimeline
     if (!isStarted()) {
       return;
     }
-    addEntryRecord(Collections.singletonList(new EntryRecord(timestamp, type, subType, data)));
+    enqueue(new EntryRecord(timestamp, type, subType, data));
   }
 
   @Override
@@ -170,16 +288,111 @@ public class DefaultTimeline
     if (!isStarted()) {
       return;
     }
-    final ArrayList<EntryRecord> entries = Lists.newArrayListWithCapacity(records.length);
     for (Entry record : records) {
       if (record instanceof EntryRecord) {
-        entries.add((EntryRecord) record);
+        enqueue((EntryRecord) record);
       }
       else {
-        entries.add(new EntryRecord(record.getTimestamp(), record.getType(), record.getSubType(), record.getData()));
+        enqueue(new EntryRecord(record.getTimestamp(), record.getType(), record.getSubType(), record.getData()));
+      }
+    }
+  }
+
+  /**
+   * Queues given record for the writer, waiting at most the offer timeout for space. If there is still no space, the
+   * record is dropped when {@code dropWhenFull} is set, otherwise the caller writes out the queue and the record.
+   */
+  private void enqueue(final EntryRecord record) {
+    boolean accepted;
+    try {
+      accepted = offerTimeoutMillis > 0
+          ? queue.offer(record, offerTimeoutMillis, TimeUnit.MILLISECONDS)
+          : queue.offer(record);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      accepted = false;
+    }
+    if (!accepted) {
+      if (dropWhenFull) {
+        dropped.inc();
+        log.debug("Timeline queue full, dropped entry: {}", record);
+      }
+      else {
+        write(record);
+      }
+      return;
+    }
+    queued.inc();
+    if (queue.size() >= batchSize) {
+      synchronized (writerSignal) {
+        writerSignal.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Background writer: writes out the queue whenever it holds a full batch, or at latest after the batch window.
+   */
+  private void writeLoop() {
+    while (writing) {
+      try {
+        synchronized (writerSignal) {
+          if (writing && queue.size() < batchSize) {
+            writerSignal.wait(batchWindowMillis);
+          }
+        }
+        flush();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      catch (Exception e) {
+        log.warn("Timeline writer failure", e);
+      }
+    }
+  }
+
+  /**
+   * Writes out queued entries in batches. Draining and writing are done under the same lock, so entries are always
+   * written in the order they were added, no matter which thread flushes.
+   */
+  private void flush() {
+    synchronized (dbLock) {
+      if (pool == null) {
+        return;
+      }
+      final List<EntryRecord> batch = Lists.newArrayListWithCapacity(Math.min(batchSize, queue.size()));
+      while (queue.drainTo(batch, batchSize) > 0) {
+        try {
+          addEntryRecord(batch);
+          written.inc(batch.size());
+        }
+        catch (Exception e) {
+          dropped.inc(batch.size());
+          log.warn("Could not write {} timeline entries, dropping them", batch.size(), e);
+        }
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Writes out queued entries followed by given record, in the calling thread.
+   */
+  private void write(final EntryRecord record) {
+    synchronized (dbLock) {
+      flush();
+      try {
+        addEntryRecord(Collections.singletonList(record));
+        written.inc();
+      }
+      catch (Exception e) {
+        dropped.inc();
+        log.warn("Could not write timeline entry, dropping it", e);
       }
     }
-    addEntryRecord(entries);
   }
 
   private void addEntryRecord(final List<EntryRecord> records) {
@@ -187,8 +400,8 @@ public class DefaultTimeline
       return; // spare resources from getting DB for nothing
     }
     // this must be synced to prevent purge drop cluster being created
-    synchronized (this) {
-      try (ODatabaseDocumentTx db = openDb()) {
+    synchronized (dbLock) {
+      try (ODatabaseDocumentTx db = acquireDb()) {
         // 1st pass (no TX, DDL): add clusters needed by records
         final Map<Long, String> timestampToClusterMap = Maps.newHashMap();
         for (EntryRecord record : records) {
@@ -298,13 +511,19 @@ public class DefaultTimeline
   /**
    * Purges old clusters based on {@code days} ("older than days") parameters. If input is {@code 0}, all clusters will
    * be removed, meaning all the timeline is purged. As Orient DDL is not atomic, this method must be mutually exclusive
-   * with {@link #maybeAddNewCluster(ODatabaseDocumentTx, long)}, hence both are synchronized.
+   * with {@link #maybeAddNewCluster(ODatabaseDocumentTx, long)}, hence both are synchronized on the same lock.
    */
   @Override
-  public synchronized void purgeOlderThan(final int days) {
+  public void purgeOlderThan(final int days) {
     if (!isStarted()) {
       return;
     }
+    synchronized (dbLock) {
+      doPurgeOlderThan(days);
+    }
+  }
+
+  private void doPurgeOlderThan(final int days) {
     try (ODatabaseDocumentTx db = openDb()) {
       final DateMidnight nowDm = new DateMidnight(DateTimeZone.UTC);
       final int prefixLen = DB_CLUSTER_PREFIX.length();
@@ -278,6 +278,45 @@ public class DefaultTimelineTest
     assertThat(partitionsPostPurge3, hasSize(0)); // this is true in test, but KZ would add part on any incoming append!
   }
 
+  @Test
+  public void entriesBeyondQueueSizeAreWrittenByCaller() throws Exception {
+    underTest.stop();
+    // batch window long enough for the writer to stay idle while entries are added
+    underTest = new DefaultTimeline(mock(EventBus.class), databaseManager, 2, 100, TimeUnit.MINUTES.toMillis(1), 0,
+        false);
+    underTest.start();
+
+    final long now = System.currentTimeMillis();
+    underTest.add(new EntryRecord(now, "TEST", "1", ImmutableMap.of("n", "1")));
+    underTest.add(new EntryRecord(now, "TEST", "1", ImmutableMap.of("n", "2")));
+    underTest.add(new EntryRecord(now, "TEST", "1", ImmutableMap.of("n", "3")));
+
+    final List<Entry> res = asList(0, 10, Collections.singleton("TEST"), null, null);
+    assertThat(res, hasSize(3));
+    assertThat(res.get(0).getData(), hasEntry("n", "3"));
+    assertThat(res.get(1).getData(), hasEntry("n", "2"));
+    assertThat(res.get(2).getData(), hasEntry("n", "1"));
+  }
+
+  @Test
+  public void entriesBeyondQueueSizeAreDroppedWhenEnabled() throws Exception {
+    underTest.stop();
+    // batch window long enough for the writer to stay idle while entries are added
+    underTest = new DefaultTimeline(mock(EventBus.class), databaseManager, 2, 100, TimeUnit.MINUTES.toMillis(1), 0,
+        true);
+    underTest.start();
+
+    final long now = System.currentTimeMillis();
+    underTest.add(new EntryRecord(now, "TEST", "1", ImmutableMap.of("n", "1")));
+    underTest.add(new EntryRecord(now, "TEST", "1", ImmutableMap.of("n", "2")));
+    underTest.add(new EntryRecord(now, "TEST", "1", ImmutableMap.of("n", "3")));
+
+    final List<Entry> res = asList(0, 10, Collections.singleton("TEST"), null, null);
+    assertThat(res, hasSize(2));
+    assertThat(res.get(0).getData(), hasEntry("n", "2"));
+    assertThat(res.get(1).getData(), hasEntry("n", "1"));
+  }
+
   // ==
 
   /**
@@ -42,6 +42,7 @@ import javax.inject.Singleton;
 
 import org.sonatype.nexus.common.io.DirSupport;
 import org.sonatype.nexus.configuration.ApplicationDirectories;
+import org.sonatype.nexus.index.IndexUpdateBuffer.IndexUpdate;
 import org.sonatype.nexus.maven.tasks.SnapshotRemover;
 import org.sonatype.nexus.mime.MimeSupport;
 import org.sonatype.nexus.proxy.ItemNotFoundException;
@@ -75,6 +76,7 @@ import org.sonatype.nexus.scheduling.TaskInterruptedException;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 import org.sonatype.sisu.goodies.common.Throwables2;
 
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import org.apache.lucene.document.Document;
@@ -167,8 +169,10 @@ import org.apache.maven.index.util.IndexCreatorSorter;
  * index files directly need to acquire write, i.e. exclusive, lock. Group repository index queries need to acquire
  * shared lock on all member repositories. Most index operations use shared(), sharedSingle(), exclusive() or
  * temporary() helper methods that acquire and release appropriate lock(s). <br/>
- * Methods that return search result iterator acquire shared lock(s) on involved repositories but the caller MUST close
- * the iterator in order to release the lock(s).<br/>
+ * Methods that return search result iterator acquire shared lock(s) on involved repositories only long enough to pin
+ * reference-counted snapshots of current index searchers, the caller MUST close the iterator in order to release the
+ * snapshots. With <code>nexus.indexer.snapshotsearch=false</code> the lock(s) are held until the iterator is
+ * closed.<br/>
  * Methods that return TreeNode uses special read-only IndexingContext implementation that acquires/release shared
  * locks
  * on involved repositories as part of acquireIndexSearcher()/releaseIndexSearcher() logic. Additionally, the indexing
@@ -323,6 +327,39 @@ public class DefaultIndexerManager
   @Named("${nexus.indexer.locktimeout:-60}")
   private int lockTimeoutSeconds;
 
+  /**
+   * When enabled, search result iterators are backed by reference-counted index searcher snapshots and repository
+   * locks are released as soon as the search is executed, so slow result consumers do not block reindex or publish.
+   * Replaced index files stay open until the last snapshot referencing them is released, disable this on platforms
+   * that do not allow deletion of open files.
+   */
+  @Inject
+  @Named("${nexus.indexer.snapshotsearch:-true}")
+  private boolean snapshotSearch;
+
+  /**
+   * Maximum time, in milliseconds, item add/remove index updates may stay buffered before they are applied in a
+   * batch. Zero, the default, applies every update immediately on the calling thread.
+   */
+  @Inject
+  @Named("${nexus.indexer.updates.maxStaleness:-0}")
+  private long updatesMaxStalenessMillis;
+
+  /**
+   * Number of buffered item updates of a repository that triggers the batch to be applied before max staleness is
+   * reached.
+   */
+  @Inject
+  @Named("${nexus.indexer.updates.batchSize:-500}")
+  private int updatesBatchSize;
+
+  private volatile IndexUpdateBuffer indexUpdates;
+
+  /**
+   * Set once shut down, after which item updates are no longer buffered.
+   */
+  private boolean indexUpdatesShutdown;
+
   /**
    * Locks that protect access to repository index. Item-level add/remove and search operations must acquire read
    * lock. Index-level add/remove/reindex must acquire exclusive lock.
@@ -330,7 +367,7 @@ public class DefaultIndexerManager
    * Note that locks are only added to the map, never removed. This introduces a minor memory leak for each deleted
    * repository id, but makes synchronization logic much easier.
    */
-  private final Map<String, ReadWriteLock> repositoryLocks = new HashMap<String, ReadWriteLock>();
+  private final ConcurrentMap<String, ReadWriteLock> repositoryLocks = new ConcurrentHashMap<String, ReadWriteLock>();
 
   /**
    * Locks that protect operations that keep repository index and local storage in sync, such as item add/remove and
@@ -339,7 +376,8 @@ public class DefaultIndexerManager
    * Note that locks are only added to the map, never removed. This introduces a minor memory leak for each deleted
    * repository id, but makes synchronization logic much easier.
    */
-  private final Map<String, ForceableReentrantLock> reindexLocks = new HashMap<String, ForceableReentrantLock>();
+  private final ConcurrentMap<String, ForceableReentrantLock> reindexLocks =
+      new ConcurrentHashMap<String, ForceableReentrantLock>();
 
   /**
    * Threads attempting to delete repository indexing contexts. Used as a marker to index requests for repositories
@@ -431,17 +469,21 @@ public class DefaultIndexerManager
   {
     log.info("Shutting down Nexus IndexerManager");
 
+    synchronized (this) {
+      indexUpdatesShutdown = true;
+      if (indexUpdates != null) {
+        indexUpdates.shutdown();
+        indexUpdates = null;
+      }
+    }
+
     for (IndexingContext ctx : mavenIndexer.getIndexingContexts().values()) {
       mavenIndexer.removeIndexingContext(ctx, false);
     }
 
-    synchronized (repositoryLocks) {
-      repositoryLocks.clear();
-    }
+    repositoryLocks.clear();
 
-    synchronized (reindexLocks) {
-      reindexLocks.clear();
-    }
+    reindexLocks.clear();
   }
 
   public void resetConfiguration() {
@@ -546,6 +588,10 @@ public class DefaultIndexerManager
   public void removeRepositoryIndexContext(final Repository repository, final boolean deleteFiles)
       throws IOException
   {
+    if (indexUpdates != null) {
+      indexUpdates.discard(repository.getId());
+    }
+
     Thread otherThread = deleteThreads.putIfAbsent(repository.getId(), Thread.currentThread());
     if (otherThread != null) {
       log.debug("Indexing context for repository {} is being deleted by thread {}", repository.getId(),
@@ -726,6 +772,12 @@ public class DefaultIndexerManager
       return;
     }
 
+    IndexUpdateBuffer buffer = getIndexUpdates();
+    if (buffer != null) {
+      buffer.add(repository, item, false);
+      return;
+    }
+
     // do the work
     // Maybe detect Merged context and NOT do the work? Everything works transparently, but still... a lot of calls
     // for nothing
@@ -749,46 +801,57 @@ public class DefaultIndexerManager
     uidLock.lock(Action.read);
 
     try {
+      ArtifactContext ac = createArtifactContext(repository, item, context);
 
-      ArtifactContext ac = null;
+      // and finally: index it
+      getNexusIndexer().addArtifactToIndex(ac, context);
+    }
+    finally {
+      uidLock.unlock();
+    }
+  }
 
-      // if we have a valid indexing context and have access to a File
-      if (DefaultFSLocalRepositoryStorage.class.isAssignableFrom(repository.getLocalStorage().getClass())) {
-        File file =
-            ((DefaultFSLocalRepositoryStorage) repository.getLocalStorage()).getFileFromBase(repository,
-                new ResourceStoreRequest(item));
+  /**
+   * Creates artifact context of a stored item, caller must hold the item read lock. Returns null if the item cannot
+   * be indexed.
+   */
+  private ArtifactContext createArtifactContext(Repository repository, StorageItem item, IndexingContext context)
+      throws LocalStorageException
+  {
+    ArtifactContext ac = null;
 
-        if (file.exists()) {
-          try {
-            ac = artifactContextProducer.getArtifactContext(context, file);
-          }
-          catch (IllegalArgumentException e) {
-            // cannot create artifact context, forget it
-            return;
-          }
+    // if we have a valid indexing context and have access to a File
+    if (DefaultFSLocalRepositoryStorage.class.isAssignableFrom(repository.getLocalStorage().getClass())) {
+      File file =
+          ((DefaultFSLocalRepositoryStorage) repository.getLocalStorage()).getFileFromBase(repository,
+              new ResourceStoreRequest(item));
 
-          if (ac != null) {
-            if (log.isDebugEnabled()) {
-              log.debug("The ArtifactContext created from file is fine, continuing.");
-            }
+      if (file.exists()) {
+        try {
+          ac = artifactContextProducer.getArtifactContext(context, file);
+        }
+        catch (IllegalArgumentException e) {
+          // cannot create artifact context, forget it
+          return null;
+        }
 
-            ArtifactInfo ai = ac.getArtifactInfo();
+        if (ac != null) {
+          if (log.isDebugEnabled()) {
+            log.debug("The ArtifactContext created from file is fine, continuing.");
+          }
 
-            if (ai.sha1 == null) {
-              // if repo has no sha1 checksum, odd nexus one
-              ai.sha1 =
-                  item.getRepositoryItemAttributes().get(DigestCalculatingInspector.DIGEST_SHA1_KEY);
-            }
+          ArtifactInfo ai = ac.getArtifactInfo();
+
+          if (ai.sha1 == null) {
+            // if repo has no sha1 checksum, odd nexus one
+            ai.sha1 =
+                item.getRepositoryItemAttributes().get(DigestCalculatingInspector.DIGEST_SHA1_KEY);
           }
         }
       }
-
-      // and finally: index it
-      getNexusIndexer().addArtifactToIndex(ac, context);
-    }
-    finally {
-      uidLock.unlock();
     }
+
+    return ac;
   }
 
   public void removeItemFromIndex(final Repository repository, final StorageItem item)
@@ -803,6 +866,12 @@ public class DefaultIndexerManager
       return;
     }
 
+    IndexUpdateBuffer buffer = getIndexUpdates();
+    if (buffer != null) {
+      buffer.add(repository, item, true);
+      return;
+    }
+
     // do the work
     sharedSingle(repository, new Runnable()
     {
@@ -817,6 +886,29 @@ public class DefaultIndexerManager
 
   private void removeItemFromIndex(Repository repository, StorageItem item, IndexingContext context)
       throws IOException
+  {
+    ArtifactContext ac = createDeleteArtifactContext(repository, item, context);
+
+    if (ac != null) {
+      final RepositoryItemUidLock uidLock = item.getRepositoryItemUid().getLock();
+
+      uidLock.lock(Action.read);
+
+      try {
+        getNexusIndexer().deleteArtifactFromIndex(ac, context);
+      }
+      finally {
+        uidLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Creates artifact context used to delete a removed item from index. Returns null if the item is not an artifact
+   * or should stay in index.
+   */
+  private ArtifactContext createDeleteArtifactContext(Repository repository, StorageItem item,
+                                                      IndexingContext context)
   {
     // by calculating GAV we check wether the request is against a repo artifact at all
     Gav gav = null;
@@ -827,7 +919,7 @@ public class DefaultIndexerManager
     // reason (NEXUS-814 related): the actual artifact and it's POM will (or already did)
     // emitted events about modifying them
     if (gav == null || gav.isSignature() || gav.isHash()) {
-      return;
+      return null;
     }
 
     ArtifactInfo ai =
@@ -849,7 +941,18 @@ public class DefaultIndexerManager
     }
     catch (IllegalArgumentException e) {
       // ac cannot be created, just forget it being indexed
-      return;
+      return null;
+    }
+
+    // NEXUS-814: we should not delete always
+    if (item.getItemContext().containsKey(SnapshotRemover.MORE_TS_SNAPSHOTS_EXISTS_FOR_GAV)) {
+      // do NOT remove file from index
+      if (log.isDebugEnabled()) {
+        log.debug("NOT deleting artifact " + ac.getArtifactInfo().groupId + ":"
+            + ac.getArtifactInfo().artifactId + ":" + ac.getArtifactInfo().version
+            + " from index (DELETE), since it is a timestamped snapshot and more builds exists.");
+      }
+      return null;
     }
 
     // remove file from index
@@ -858,26 +961,96 @@ public class DefaultIndexerManager
           + " from index (DELETE).");
     }
 
-    // NEXUS-814: we should not delete always
-    if (!item.getItemContext().containsKey(SnapshotRemover.MORE_TS_SNAPSHOTS_EXISTS_FOR_GAV)) {
-      final RepositoryItemUidLock uidLock = item.getRepositoryItemUid().getLock();
-
-      uidLock.lock(Action.read);
+    return ac;
+  }
 
-      try {
-        getNexusIndexer().deleteArtifactFromIndex(ac, context);
+  /**
+   * Returns buffer of item index updates, or null if updates are applied immediately, as they are once shut down.
+   */
+  private IndexUpdateBuffer getIndexUpdates() {
+    if (updatesMaxStalenessMillis <= 0) {
+      return null;
+    }
+    IndexUpdateBuffer buffer = indexUpdates;
+    if (buffer == null) {
+      synchronized (this) {
+        buffer = indexUpdates;
+        if (buffer == null && !indexUpdatesShutdown) {
+          buffer = new IndexUpdateBuffer(updatesMaxStalenessMillis, updatesBatchSize,
+              new IndexUpdateBuffer.Applier()
+              {
+                @Override
+                public void apply(final Repository repository, final List<IndexUpdate> updates)
+                    throws IOException
+                {
+                  applyIndexUpdates(repository, updates);
+                }
+              }, SharedMetricRegistries.getOrCreate("nexus"));
+          indexUpdates = buffer;
+        }
       }
-      finally {
-        uidLock.unlock();
+    }
+    return buffer;
+  }
+
+  /**
+   * Applies buffered item updates of a repository while holding shared lock on its index. Consecutive adds and
+   * removes are applied as a single index update with one commit. As with immediate updates, the read lock of each
+   * item is held only while its artifact context is created, and no item lock is held while the batch is applied.
+   */
+  private void applyIndexUpdates(final Repository repository, final List<IndexUpdate> updates)
+      throws IOException
+  {
+    if (!INDEXABLE(repository) || !INSERVICE(repository)) {
+      return;
+    }
+
+    sharedSingle(repository, new Runnable()
+    {
+      @Override
+      public void run(IndexingContext context)
+          throws IOException
+      {
+        List<ArtifactContext> batch = new ArrayList<ArtifactContext>();
+        boolean removing = false;
+        for (IndexUpdate update : updates) {
+          if (update.remove != removing) {
+            applyIndexUpdates(batch, removing, context);
+            batch.clear();
+            removing = update.remove;
+          }
+
+          ArtifactContext ac;
+          final RepositoryItemUidLock uidLock = update.item.getRepositoryItemUid().getLock();
+          uidLock.lock(Action.read);
+          try {
+            ac = update.remove
+                ? createDeleteArtifactContext(repository, update.item, context)
+                : createArtifactContext(repository, update.item, context);
+          }
+          finally {
+            uidLock.unlock();
+          }
+          if (ac != null) {
+            batch.add(ac);
+          }
+        }
+        applyIndexUpdates(batch, removing, context);
       }
+    });
+  }
+
+  private void applyIndexUpdates(List<ArtifactContext> acs, boolean remove, IndexingContext context)
+      throws IOException
+  {
+    if (acs.isEmpty()) {
+      return;
+    }
+    if (remove) {
+      getNexusIndexer().deleteArtifactsFromIndex(acs, context);
     }
     else {
-      // do NOT remove file from index
-      if (log.isDebugEnabled()) {
-        log.debug("NOT deleting artifact " + ac.getArtifactInfo().groupId + ":"
-            + ac.getArtifactInfo().artifactId + ":" + ac.getArtifactInfo().version
-            + " from index (DELETE), since it is a timestamped snapshot and more builds exists.");
-      }
+      getNexusIndexer().addArtifactsToIndex(acs, context);
     }
   }
 
@@ -2092,6 +2265,10 @@ public class DefaultIndexerManager
       return IteratorSearchResponse.empty(req.getQuery());
     }
 
+    if (snapshotSearch) {
+      return searchIteratorSnapshot(lockedContexts, req);
+    }
+
     // RuntimeException and ThreadDeath will leave locks locked. Not sure if there is a nice way to avoid this
 
     try {
@@ -2129,6 +2306,58 @@ public class DefaultIndexerManager
     }
   }
 
+  /**
+   * Pins current index searcher of each locked context, releases repository locks and executes the search against
+   * pinned searchers. The returned result set releases the snapshots when closed.
+   */
+  private IteratorSearchResponse searchIteratorSnapshot(LockedIndexingContexts lockedContexts,
+                                                        IteratorSearchRequest req)
+  {
+    List<SnapshotIndexingContext> snapshots = new ArrayList<SnapshotIndexingContext>();
+    try {
+      try {
+        for (IndexingContext context : lockedContexts.contexts.values()) {
+          snapshots.add(SnapshotIndexingContext.snapshot((LockingIndexingContext) context));
+        }
+      }
+      finally {
+        lockedContexts.lock.unlock();
+      }
+
+      req.getContexts().addAll(snapshots);
+
+      IteratorSearchResponse result = mavenIndexer.searchIterator(req);
+
+      Query query = result.getQuery();
+      int totalHints = result.getTotalHitsCount();
+      IteratorResultSet results = new SnapshotIteratorResultSet(result.getResults(), snapshots);
+
+      return new IteratorSearchResponse(query, totalHints, results);
+    }
+    catch (BooleanQuery.TooManyClauses e) {
+      releaseSnapshots(snapshots);
+
+      if (log.isDebugEnabled()) {
+        log.debug("Too many clauses exception caught:", e);
+      }
+
+      // XXX: a hack, I am sending too many results by setting the totalHits value to -1!
+      return IteratorSearchResponse.TOO_MANY_HITS_ITERATOR_SEARCH_RESPONSE;
+    }
+    catch (IOException e) {
+      releaseSnapshots(snapshots);
+
+      log.error("Got I/O exception while searching for query \"" + req.getQuery().toString() + "\"", e);
+
+      return IteratorSearchResponse.empty(req.getQuery());
+    }
+    catch (RuntimeException e) {
+      releaseSnapshots(snapshots);
+
+      throw e;
+    }
+  }
+
   // ----------------------------------------------------------------------------
   // Query construction
   // ----------------------------------------------------------------------------
@@ -2212,6 +2441,17 @@ public class DefaultIndexerManager
     }
   }
 
+  private void releaseSnapshots(List<SnapshotIndexingContext> snapshots) {
+    for (SnapshotIndexingContext snapshot : snapshots) {
+      try {
+        snapshot.release();
+      }
+      catch (IOException e) {
+        log.warn("Could not release index snapshot of repository {}", snapshot.getRepositoryId(), e);
+      }
+    }
+  }
+
   /**
    * Executes the runnable while holding shared lock on the specified repository index. If the repository is a group,
    * also acquires shared locks on all member repositories. Repositories without indexing contexts are silently
@@ -2432,12 +2672,12 @@ public class DefaultIndexerManager
       return null;
     }
 
-    ReadWriteLock rwlock;
-    synchronized (repositoryLocks) {
-      rwlock = repositoryLocks.get(repository.getId());
+    ReadWriteLock rwlock = repositoryLocks.get(repository.getId());
+    if (rwlock == null) {
+      ReadWriteLock newLock = NamedReadWriteLock.decorate(new ReentrantReadWriteLock(), repository.getId());
+      rwlock = repositoryLocks.putIfAbsent(repository.getId(), newLock);
       if (rwlock == null) {
-        rwlock = NamedReadWriteLock.decorate(new ReentrantReadWriteLock(), repository.getId());
-        repositoryLocks.put(repository.getId(), rwlock);
+        rwlock = newLock;
       }
     }
 
@@ -2472,14 +2712,15 @@ public class DefaultIndexerManager
    * repository gz index download and publishing areas and to the repository local storage.
    */
   private ForceableReentrantLock getReindexLock(final Repository repository) {
-    synchronized (reindexLocks) {
-      ForceableReentrantLock lock = reindexLocks.get(repository.getId());
+    ForceableReentrantLock lock = reindexLocks.get(repository.getId());
+    if (lock == null) {
+      ForceableReentrantLock newLock = new ForceableReentrantLock();
+      lock = reindexLocks.putIfAbsent(repository.getId(), newLock);
       if (lock == null) {
-        lock = new ForceableReentrantLock();
-        reindexLocks.put(repository.getId(), lock);
+        lock = newLock;
       }
-      return lock;
     }
+    return lock;
   }
 
   /**
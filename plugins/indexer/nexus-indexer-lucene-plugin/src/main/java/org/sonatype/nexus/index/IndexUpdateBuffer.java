@@ -0,0 +1,265 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.repository.Repository;
+import org.sonatype.nexus.threads.NexusThreadFactory;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Buffers item add/remove index updates per repository and hands them over to {@link Applier} in batches. Updates of
+ * the same path are coalesced, only the last one is applied. Batches are applied by a single thread, at latest
+ * {@code maxStalenessMillis} after the first update of the batch was buffered, or as soon as the batch reaches
+ * {@code maxBatchSize} updates.
+ * <p>
+ * Pending, applied and coalesced update counts and batch apply times are published to the provided metrics registry.
+ *
+ * @since 3.0
+ */
+class IndexUpdateBuffer
+    extends ComponentSupport
+{
+  /**
+   * Applies a batch of updates of single repository, in the order they were buffered.
+   */
+  interface Applier
+  {
+    void apply(Repository repository, List<IndexUpdate> updates)
+        throws IOException;
+  }
+
+  /**
+   * Single buffered item add or remove.
+   */
+  static class IndexUpdate
+  {
+    final StorageItem item;
+
+    final boolean remove;
+
+    IndexUpdate(StorageItem item, boolean remove) {
+      this.item = item;
+      this.remove = remove;
+    }
+  }
+
+  private static class Batch
+  {
+    final Repository repository;
+
+    final LinkedHashMap<String, IndexUpdate> updates = new LinkedHashMap<String, IndexUpdate>();
+
+    boolean submitted;
+
+    Batch(Repository repository) {
+      this.repository = repository;
+    }
+  }
+
+  private final long maxStalenessMillis;
+
+  private final int maxBatchSize;
+
+  private final Applier applier;
+
+  private final MetricRegistry metricRegistry;
+
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Batches being filled, keyed by repository id. Guarded by this.
+   */
+  private final Map<String, Batch> batches = new HashMap<String, Batch>();
+
+  private int pending;
+
+  private final Meter applied;
+
+  private final Counter coalesced;
+
+  private final Timer applyTimer;
+
+  public IndexUpdateBuffer(final long maxStalenessMillis,
+                           final int maxBatchSize,
+                           final Applier applier,
+                           final MetricRegistry metricRegistry)
+  {
+    checkArgument(maxStalenessMillis > 0, "maxStalenessMillis must be positive");
+    checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+    this.maxStalenessMillis = maxStalenessMillis;
+    this.maxBatchSize = maxBatchSize;
+    this.applier = checkNotNull(applier);
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.applied = metricRegistry.meter(metricName("applied"));
+    this.coalesced = metricRegistry.counter(metricName("coalesced"));
+    this.applyTimer = metricRegistry.timer(metricName("batch"));
+
+    metricRegistry.remove(metricName("pending"));
+    metricRegistry.register(metricName("pending"), new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return getPendingCount();
+      }
+    });
+
+    this.executor = new ScheduledThreadPoolExecutor(1, new NexusThreadFactory("nxindexer", "Index Updater"));
+  }
+
+  private String metricName(final String metric) {
+    return MetricRegistry.name(IndexerManager.class, "updates", metric);
+  }
+
+  /**
+   * Buffers an index update of the item. A later update of the same path replaces this one.
+   */
+  public void add(final Repository repository, final StorageItem item, final boolean remove) {
+    final String path = item.getRepositoryItemUid().getPath();
+    synchronized (this) {
+      Batch batch = batches.get(repository.getId());
+      if (batch == null) {
+        batch = new Batch(repository);
+        batches.put(repository.getId(), batch);
+        schedule(batch, maxStalenessMillis);
+      }
+      // remove first, so the path takes the position of its latest update
+      if (batch.updates.remove(path) != null) {
+        coalesced.inc();
+        pending--;
+      }
+      batch.updates.put(path, new IndexUpdate(item, remove));
+      pending++;
+      if (batch.updates.size() >= maxBatchSize && !batch.submitted) {
+        batch.submitted = true;
+        schedule(batch, 0);
+      }
+    }
+  }
+
+  public synchronized int getPendingCount() {
+    return pending;
+  }
+
+  /**
+   * Applies all buffered updates and waits for them to be applied.
+   */
+  public void flush()
+      throws IOException
+  {
+    final List<Batch> toFlush;
+    synchronized (this) {
+      toFlush = new ArrayList<Batch>(batches.values());
+    }
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (Batch batch : toFlush) {
+      futures.add(schedule(batch, 0));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while flushing index updates", e);
+      }
+      catch (ExecutionException e) {
+        throw new IOException("Could not flush index updates", e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Drops buffered updates of the repository, used when repository index is removed.
+   */
+  public synchronized void discard(final String repositoryId) {
+    Batch batch = batches.remove(repositoryId);
+    if (batch != null) {
+      pending -= batch.updates.size();
+    }
+  }
+
+  /**
+   * Applies buffered updates and stops the updater thread.
+   */
+  public void shutdown() {
+    try {
+      flush();
+    }
+    catch (IOException e) {
+      log.warn("Could not apply buffered index updates", e);
+    }
+    executor.shutdown();
+    metricRegistry.remove(metricName("pending"));
+  }
+
+  private Future<?> schedule(final Batch batch, final long delayMillis) {
+    return executor.schedule(new Runnable()
+    {
+      @Override
+      public void run() {
+        apply(batch);
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Detaches the batch, if still buffered, and applies it. Runs on the updater thread only, so batches of a
+   * repository are applied in order.
+   */
+  private void apply(final Batch batch) {
+    final List<IndexUpdate> updates;
+    synchronized (this) {
+      if (batches.get(batch.repository.getId()) != batch) {
+        // already applied or discarded
+        return;
+      }
+      batches.remove(batch.repository.getId());
+      updates = new ArrayList<IndexUpdate>(batch.updates.values());
+      pending -= updates.size();
+    }
+
+    final Timer.Context timer = applyTimer.time();
+    try {
+      applier.apply(batch.repository, updates);
+      applied.mark(updates.size());
+    }
+    catch (Exception e) {
+      log.error("Could not apply {} index updates to repository {}", updates.size(), batch.repository.getId(), e);
+    }
+    finally {
+      timer.stop();
+    }
+  }
+}
@@ -300,6 +300,10 @@ class LockingIndexingContext
     return context.isReceivingUpdates();
   }
 
+  Lock getLock() {
+    return lock;
+  }
+
   public IndexingContext getContext() {
     IndexingContext result = context;
     while (result instanceof LockingIndexingContext) {
@@ -0,0 +1,75 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.index;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.maven.index.context.IndexingContext;
+
+/**
+ * Read-only indexing context wrapper that serves a single pinned IndexSearcher. The searcher is acquired while
+ * holding the repository shared lock and is kept alive by Lucene IndexReader reference counting, so searches against
+ * the snapshot do not need the repository lock and are not affected by concurrent reindex or replace of the
+ * underlying index.
+ */
+class SnapshotIndexingContext
+    extends LockingIndexingContext
+{
+  private final IndexSearcher searcher;
+
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  private SnapshotIndexingContext(IndexingContext context, Lock lock, IndexSearcher searcher) {
+    super(context, lock);
+    this.searcher = searcher;
+  }
+
+  /**
+   * Pins current searcher of the context. Caller must hold the shared lock of the context repository.
+   */
+  public static SnapshotIndexingContext snapshot(LockingIndexingContext context)
+      throws IOException
+  {
+    IndexingContext target = context.getContext();
+    return new SnapshotIndexingContext(target, context.getLock(), target.acquireIndexSearcher());
+  }
+
+  @Override
+  public IndexSearcher acquireIndexSearcher()
+      throws IOException
+  {
+    searcher.getIndexReader().incRef();
+    return searcher;
+  }
+
+  @Override
+  public void releaseIndexSearcher(IndexSearcher s)
+      throws IOException
+  {
+    s.getIndexReader().decRef();
+  }
+
+  /**
+   * Releases the pinned searcher. Searchers acquired from this snapshot stay usable until they are released.
+   */
+  public void release()
+      throws IOException
+  {
+    if (released.compareAndSet(false, true)) {
+      searcher.getIndexReader().decRef();
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.sonatype.nexus.index.IndexUpdateBuffer.IndexUpdate;
+import org.sonatype.nexus.proxy.item.RepositoryItemUid;
+import org.sonatype.nexus.proxy.item.StorageItem;
+import org.sonatype.nexus.proxy.repository.Repository;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link IndexUpdateBuffer}.
+ */
+public class IndexUpdateBufferTest
+    extends TestSupport
+{
+  private final List<List<String>> batches = new CopyOnWriteArrayList<List<String>>();
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private Repository repository;
+
+  private IndexUpdateBuffer underTest;
+
+  @Before
+  public void setUp() {
+    repository = mock(Repository.class);
+    when(repository.getId()).thenReturn("releases");
+  }
+
+  @After
+  public void tearDown() {
+    if (underTest != null) {
+      underTest.shutdown();
+    }
+  }
+
+  private IndexUpdateBuffer buffer(final long maxStalenessMillis, final int maxBatchSize) {
+    return new IndexUpdateBuffer(maxStalenessMillis, maxBatchSize, new IndexUpdateBuffer.Applier()
+    {
+      @Override
+      public void apply(final Repository repository, final List<IndexUpdate> updates) throws IOException {
+        List<String> batch = new ArrayList<String>();
+        for (IndexUpdate update : updates) {
+          batch.add((update.remove ? "-" : "+") + update.item.getRepositoryItemUid().getPath());
+        }
+        batches.add(batch);
+      }
+    }, metricRegistry);
+  }
+
+  private StorageItem item(final String path) {
+    RepositoryItemUid uid = mock(RepositoryItemUid.class);
+    when(uid.getPath()).thenReturn(path);
+    StorageItem item = mock(StorageItem.class);
+    when(item.getRepositoryItemUid()).thenReturn(uid);
+    return item;
+  }
+
+  @Test
+  public void updatesOfSamePathAreCoalesced() throws Exception {
+    underTest = buffer(60000, 100);
+
+    underTest.add(repository, item("/a.jar"), false);
+    underTest.add(repository, item("/b.jar"), false);
+    underTest.add(repository, item("/a.jar"), true);
+    assertThat(underTest.getPendingCount(), is(2));
+
+    underTest.flush();
+
+    assertThat(batches, hasSize(1));
+    assertThat(batches.get(0), contains("+/b.jar", "-/a.jar"));
+    assertThat(underTest.getPendingCount(), is(0));
+    assertThat(metricRegistry.getCounters().get(metric("coalesced")).getCount(), is(1L));
+    assertThat(metricRegistry.getMeters().get(metric("applied")).getCount(), is(2L));
+  }
+
+  @Test
+  public void fullBatchIsAppliedBeforeMaxStaleness() throws Exception {
+    underTest = buffer(60000, 2);
+
+    underTest.add(repository, item("/a.jar"), false);
+    underTest.add(repository, item("/b.jar"), false);
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(batches, hasSize(1));
+    assertThat(batches.get(0), contains("+/a.jar", "+/b.jar"));
+  }
+
+  @Test
+  public void staleUpdatesAreApplied() throws Exception {
+    underTest = buffer(50, 100);
+
+    underTest.add(repository, item("/a.jar"), false);
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(batches, hasSize(1));
+    assertThat(metricRegistry.getGauges().get(metric("pending")).getValue(), is((Object) 0));
+  }
+
+  @Test
+  public void discardedUpdatesAreNotApplied() throws Exception {
+    underTest = buffer(60000, 100);
+
+    underTest.add(repository, item("/a.jar"), false);
+    underTest.discard("releases");
+    underTest.flush();
+
+    assertThat(batches, hasSize(0));
+    assertThat(underTest.getPendingCount(), is(0));
+  }
+
+  private String metric(final String name) {
+    return MetricRegistry.name(IndexerManager.class, "updates", name);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.index;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.search.Query;
+import org.apache.maven.index.IteratorSearchResponse;
+import org.apache.maven.index.MAVEN;
+import org.apache.maven.index.SearchType;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Verifies that open search result iterators do not block reindex and that searches stay responsive while
+ * repositories are being reindexed.
+ */
+public class SearchDuringReindexIndexerManagerTest
+    extends AbstractIndexerManagerTest
+{
+  private final Logger log = LoggerFactory.getLogger(SearchDuringReindexIndexerManagerTest.class);
+
+  private ExecutorService executor;
+
+  @Override
+  protected void setUp()
+      throws Exception
+  {
+    super.setUp();
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @Override
+  protected void tearDown()
+      throws Exception
+  {
+    executor.shutdownNow();
+    super.tearDown();
+  }
+
+  @Test
+  public void testOpenIteratorDoesNotBlockReindex()
+      throws Exception
+  {
+    fillInRepo();
+    indexerManager.reindexAllRepositories("/", true);
+
+    Query query = indexerManager.constructQuery(MAVEN.GROUP_ID, "org.sonatype.nexus", SearchType.EXACT);
+    IteratorSearchResponse response = indexerManager.searchQueryIterator(query, null, null, null, null, false, null);
+    try {
+      // slow paging client keeps the iterator open while the repository is reindexed
+      Future<Void> reindex = executor.submit(new Callable<Void>()
+      {
+        @Override
+        public Void call() throws Exception {
+          indexerManager.reindexRepository(null, releases.getId(), true);
+          return null;
+        }
+      });
+      reindex.get(30, TimeUnit.SECONDS);
+
+      // the snapshot still serves the results it was created with
+      int count = 0;
+      while (response.getResults().hasNext()) {
+        response.getResults().next();
+        count++;
+      }
+      assertEquals(10, count);
+    }
+    finally {
+      response.close();
+    }
+
+    searchFor("org.sonatype.nexus", 10);
+  }
+
+  @Test
+  public void testSearchLatencyDuringReindex()
+      throws Exception
+  {
+    fillInRepo();
+    indexerManager.reindexAllRepositories("/", true);
+
+    Future<Void> reindex = executor.submit(new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception {
+        for (int i = 0; i < 5; i++) {
+          indexerManager.reindexRepository(null, releases.getId(), true);
+        }
+        return null;
+      }
+    });
+
+    int searches = 0;
+    long maxNanos = 0;
+    long totalNanos = 0;
+    while (!reindex.isDone()) {
+      long start = System.nanoTime();
+      searchFor("org.sonatype.nexus", 10);
+      long elapsed = System.nanoTime() - start;
+      maxNanos = Math.max(maxNanos, elapsed);
+      totalNanos += elapsed;
+      searches++;
+    }
+    reindex.get();
+
+    log.info("Search latency during reindex: {} searches, avg {} ms, max {} ms", searches,
+        TimeUnit.NANOSECONDS.toMillis(totalNanos / Math.max(searches, 1)), TimeUnit.NANOSECONDS.toMillis(maxNanos));
+  }
+}
@@ -13,18 +13,30 @@
 package org.sonatype.nexus.yum.internal;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
@@ -32,10 +44,10 @@ import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathFactory;
 
-import org.sonatype.nexus.common.hash.Hashes;
 import org.sonatype.nexus.proxy.ResourceStoreRequest;
 import org.sonatype.nexus.proxy.item.ContentLocator;
 import org.sonatype.nexus.proxy.item.DefaultStorageFileItem;
+import org.sonatype.nexus.proxy.item.FileContentLocator;
 import org.sonatype.nexus.proxy.item.PreparedContentLocator;
 import org.sonatype.nexus.proxy.item.StorageFileItem;
 import org.sonatype.nexus.proxy.repository.ProxyRepository;
@@ -43,10 +55,9 @@ import org.sonatype.nexus.proxy.repository.Repository;
 
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
-import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
-import com.google.common.io.CountingInputStream;
-import org.apache.commons.io.IOUtils;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.CountingOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -66,6 +77,10 @@ public class MetadataProcessor
 
   private static final Logger log = LoggerFactory.getLogger(MetadataProcessor.class);
 
+  private static final QName XML_BASE = new QName(XMLConstants.XML_NS_URI, "base");
+
+  private static final QName HREF = new QName("href");
+
   private MetadataProcessor() {
   }
 
@@ -88,29 +103,20 @@ public class MetadataProcessor
         new Processor()
         {
           @Override
-          public boolean process(final Element location) {
-            String xmlBase = location.getAttribute("xml:base");
-            if (xmlBase != null) {
-              String href = location.getAttribute("href");
-              if (!xmlBase.endsWith("/")) {
-                xmlBase += "/";
-              }
-              href = xmlBase + href;
-              for (File memberReposBaseDir : memberRepositoriesBaseDirs) {
-                String memberRepoDirPath = memberReposBaseDir.getPath();
-                int pos = href.indexOf(memberRepoDirPath);
-                if (pos > -1) {
-                  href = href.substring(pos + memberRepoDirPath.length());
-                  if (href.startsWith("/")) {
-                    href = href.substring(1);
-                  }
-                  location.setAttribute("href", href);
-                  location.removeAttribute("xml:base");
-                  return true;
+          public String process(final String xmlBase, final String href) {
+            String location = (xmlBase.endsWith("/") ? xmlBase : xmlBase + "/") + href;
+            for (File memberReposBaseDir : memberRepositoriesBaseDirs) {
+              String memberRepoDirPath = memberReposBaseDir.getPath();
+              int pos = location.indexOf(memberRepoDirPath);
+              if (pos > -1) {
+                location = location.substring(pos + memberRepoDirPath.length());
+                if (location.startsWith("/")) {
+                  location = location.substring(1);
                 }
+                return location;
               }
             }
-            return false;
+            return null;
           }
         }
     );
@@ -133,25 +139,16 @@ public class MetadataProcessor
         new Processor()
         {
           @Override
-          public boolean process(final Element location) {
-            String xmlBase = location.getAttribute("xml:base");
-            if (xmlBase != null) {
-              String href = location.getAttribute("href");
-              if (!xmlBase.endsWith("/")) {
-                xmlBase += "/";
-              }
-              href = xmlBase + href;
-              if (href.startsWith(repositoryUrl)) {
-                href = href.substring(repositoryUrl.length());
-                if (href.startsWith("/")) {
-                  href = href.substring(1);
-                }
-                location.setAttribute("href", href);
-                location.removeAttribute("xml:base");
-                return true;
+          public String process(final String xmlBase, final String href) {
+            String location = (xmlBase.endsWith("/") ? xmlBase : xmlBase + "/") + href;
+            if (location.startsWith(repositoryUrl)) {
+              location = location.substring(repositoryUrl.length());
+              if (location.startsWith("/")) {
+                location = location.substring(1);
               }
+              return location;
             }
-            return false;
+            return null;
           }
         }
     );
@@ -170,8 +167,8 @@ public class MetadataProcessor
   private static boolean processMetadata(final Repository repository, final Processor processor) {
     try {
       Document repoMDDoc = parseRepoMD(repository);
-      String primaryHref = processPrimary(repository, processor, repoMDDoc);
-      boolean changed = updatePrimaryInRepoMD(repository, repoMDDoc, primaryHref);
+      PrimaryContent primary = processPrimary(repository, processor, repoMDDoc);
+      boolean changed = updatePrimaryInRepoMD(repository, repoMDDoc, primary);
       changed = removeSqliteFromRepoMD(repository, repoMDDoc) || changed;
       if (changed) {
         storeRepoMD(repository, repoMDDoc);
@@ -184,106 +181,167 @@ public class MetadataProcessor
   }
 
   /**
-   * Read and process all location entries using provided processor. If there are changes to locations will save the
-   * new primary.xml.
+   * Read and process all location entries using provided processor. primary.xml is streamed (StAX) from storage,
+   * through the processor and gzip, into a temporary file while sha256 and size of both uncompressed and compressed
+   * content are calculated, so neither the document nor its content is ever held in memory. If there are changes to
+   * locations will save the new primary.xml.
    *
    * @param repository repository containing primary.xml
    * @param processor  location processor
    * @param repoMDDoc  parsed repomx.xml
-   * @return path of primary.xml
+   * @return rewritten primary.xml (path and checksums) or {@code null} if there were no changes
    */
-  private static String processPrimary(final Repository repository,
-                                       final Processor processor,
-                                       final Document repoMDDoc)
+  private static PrimaryContent processPrimary(final Repository repository,
+                                               final Processor processor,
+                                               final Document repoMDDoc)
       throws Exception
   {
     XPath xPath = XPathFactory.newInstance().newXPath();
     String primaryHref = xPath.compile("/repomd/data[@type='primary']/location/@href").evaluate(repoMDDoc);
     String primaryChecksum = xPath.compile("/repomd/data[@type='primary']/checksum").evaluate(repoMDDoc);
 
-    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-
     StorageFileItem primaryItem = (StorageFileItem) repository.retrieveItem(
         false, new ResourceStoreRequest("/" + primaryHref)
     );
-    Document doc;
-    boolean changed = false;
-    try (InputStream primaryIn = new GZIPInputStream(new BufferedInputStream(primaryItem.getInputStream()))) {
-      doc = documentBuilder.parse(primaryIn);
-      NodeList locations = doc.getElementsByTagName("location");
-      if (locations != null) {
-        for (int i = 0; i < locations.getLength(); i++) {
-          Element location = (Element) locations.item(i);
-          if (processor.process(location)) {
-            changed = true;
-          }
+    FileContentLocator rewritten = new FileContentLocator("application/x-gzip");
+    try {
+      PrimaryContent primary;
+      try (InputStream primaryIn = new GZIPInputStream(new BufferedInputStream(primaryItem.getInputStream()));
+           CountingOutputStream compressedOut = new CountingOutputStream(
+               new BufferedOutputStream(rewritten.getOutputStream())
+           );
+           HashingOutputStream compressedHashOut = new HashingOutputStream(Hashing.sha256(), compressedOut);
+           GZIPOutputStream gzipOut = new GZIPOutputStream(compressedHashOut);
+           CountingOutputStream openOut = new CountingOutputStream(gzipOut);
+           HashingOutputStream openHashOut = new HashingOutputStream(Hashing.sha256(), openOut)) {
+        if (!rewriteLocations(primaryIn, openHashOut, processor)) {
+          return null;
         }
+        gzipOut.finish();
+        primary = new PrimaryContent(
+            primaryHref,
+            compressedHashOut.hash().toString(), compressedOut.getCount(),
+            openHashOut.hash().toString(), openOut.getCount()
+        );
       }
-    }
-    if (changed) {
       log.debug("Rewriting locations in {}:primary.xml", repository.getId());
-      Transformer transformer = TransformerFactory.newInstance().newTransformer();
-      ByteArrayOutputStream out = new ByteArrayOutputStream();
-      transformer.transform(new DOMSource(doc), new StreamResult(out));
-      byte[] primaryContent = compress(out.toByteArray());
       if (primaryHref.contains(primaryChecksum)) {
         repository.deleteItem(false, new ResourceStoreRequest("/" + primaryHref));
-        primaryHref = primaryHref.replace(
-            primaryChecksum, Hashing.sha256().hashBytes(primaryContent).toString()
-        );
+        primary.path = primaryHref.replace(primaryChecksum, primary.checksum);
       }
-      storeItem(repository, primaryHref, primaryContent, "application/x-gzip");
+      storeItem(repository, primary.path, rewritten);
+      return primary;
+    }
+    finally {
+      rewritten.delete();
     }
-    return primaryHref;
   }
 
   /**
-   * Store primary.xml and update content of repomd.xml accordingly.
+   * Copies primary.xml from provided input to provided output, replacing href (and dropping xml:base) of every
+   * location processor decides to rewrite.
    *
-   * @param repository  repository containing primary.xml/repomd.xml
-   * @param repoMDDoc   parsed repomd.xml
-   * @param primaryPath path of primary.xml
-   * @return true if repomd.xml changed
+   * @param in        uncompressed primary.xml content
+   * @param out       where (uncompressed) processed content is written
+   * @param processor location processor
+   * @return true if any location was rewritten
    */
-  private static boolean updatePrimaryInRepoMD(final Repository repository,
-                                               final Document repoMDDoc,
-                                               final String primaryPath)
-      throws Exception
+  private static boolean rewriteLocations(final InputStream in, final OutputStream out, final Processor processor)
+      throws XMLStreamException
   {
-    XPath xPath = XPathFactory.newInstance().newXPath();
-    String primaryHref = xPath.compile("/repomd/data[@type='primary']/location/@href").evaluate(repoMDDoc);
+    XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+    boolean changed = false;
+    XMLEventReader reader = inputFactory.createXMLEventReader(in);
+    try {
+      XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+      try {
+        while (reader.hasNext()) {
+          XMLEvent event = reader.nextEvent();
+          if (event.isStartElement() && isLocation(event.asStartElement().getName())) {
+            StartElement location = event.asStartElement();
+            String href = processor.process(attribute(location, XML_BASE), attribute(location, HREF));
+            if (href != null) {
+              event = rewriteLocation(eventFactory, location, href);
+              changed = true;
+            }
+          }
+          writer.add(event);
+        }
+        writer.flush();
+      }
+      finally {
+        writer.close();
+      }
+    }
+    finally {
+      reader.close();
+    }
+    return changed;
+  }
 
-    if (!Objects.equals(primaryPath, primaryHref)) {
-      log.debug("Updating 'primary' data entry in {}:repomd.xml", repository.getId());
+  private static boolean isLocation(final QName name) {
+    return "location".equals(name.getLocalPart()) && XMLConstants.DEFAULT_NS_PREFIX.equals(name.getPrefix());
+  }
 
-      Element primaryEl = (Element) xPath.compile("/repomd/data[@type='primary']").evaluate(repoMDDoc, NODE);
+  /**
+   * @return value of attribute or empty string if there is no such attribute (same as DOM)
+   */
+  private static String attribute(final StartElement element, final QName name) {
+    Attribute attribute = element.getAttributeByName(name);
+    return attribute == null ? "" : attribute.getValue();
+  }
 
-      StorageFileItem primaryItem = (StorageFileItem) repository.retrieveItem(
-          false, new ResourceStoreRequest("/" + primaryPath)
-      );
-      try (InputStream in = primaryItem.getInputStream();
-           CountingInputStream cis = new CountingInputStream(new GZIPInputStream(new BufferedInputStream(in)))) {
-        HashCode checksum = Hashes.hash(Hashing.sha256(), cis);
-        primaryEl.getElementsByTagName("open-checksum").item(0).setTextContent(checksum.toString());
-        primaryEl.getElementsByTagName("open-size").item(0).setTextContent(String.valueOf(cis.getCount()));
+  private static StartElement rewriteLocation(final XMLEventFactory eventFactory,
+                                              final StartElement location,
+                                              final String href)
+  {
+    List<Attribute> attributes = Lists.newArrayList();
+    for (Iterator<?> it = location.getAttributes(); it.hasNext(); ) {
+      Attribute attribute = (Attribute) it.next();
+      if (HREF.equals(attribute.getName())) {
+        attributes.add(eventFactory.createAttribute(HREF, href));
       }
-
-      primaryItem = (StorageFileItem) repository.retrieveItem(
-          false, new ResourceStoreRequest("/" + primaryPath)
-      );
-      try (InputStream in = primaryItem.getInputStream();
-           CountingInputStream cis = new CountingInputStream(new BufferedInputStream(in))) {
-        HashCode checksum = Hashes.hash(Hashing.sha256(), cis);
-        primaryEl.getElementsByTagName("checksum").item(0).setTextContent(checksum.toString());
-        primaryEl.getElementsByTagName("size").item(0).setTextContent(String.valueOf(cis.getCount()));
+      else if (!XML_BASE.equals(attribute.getName())) {
+        attributes.add(attribute);
       }
+    }
+    QName name = location.getName();
+    return eventFactory.createStartElement(
+        name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(), attributes.iterator(), location.getNamespaces()
+    );
+  }
 
-      ((Element) primaryEl.getElementsByTagName("location").item(0)).setAttribute("href", primaryPath);
-
-      return true;
+  /**
+   * Update content of repomd.xml accordingly to rewritten primary.xml.
+   *
+   * @param repository repository containing primary.xml/repomd.xml
+   * @param repoMDDoc  parsed repomd.xml
+   * @param primary    rewritten primary.xml, {@code null} if primary.xml was not changed
+   * @return true if repomd.xml changed
+   */
+  private static boolean updatePrimaryInRepoMD(final Repository repository,
+                                               final Document repoMDDoc,
+                                               final PrimaryContent primary)
+      throws Exception
+  {
+    if (primary == null) {
+      return false;
     }
-    return false;
+    log.debug("Updating 'primary' data entry in {}:repomd.xml", repository.getId());
+
+    XPath xPath = XPathFactory.newInstance().newXPath();
+    Element primaryEl = (Element) xPath.compile("/repomd/data[@type='primary']").evaluate(repoMDDoc, NODE);
+
+    primaryEl.getElementsByTagName("open-checksum").item(0).setTextContent(primary.openChecksum);
+    primaryEl.getElementsByTagName("open-size").item(0).setTextContent(String.valueOf(primary.openSize));
+    primaryEl.getElementsByTagName("checksum").item(0).setTextContent(primary.checksum);
+    primaryEl.getElementsByTagName("size").item(0).setTextContent(String.valueOf(primary.size));
+    ((Element) primaryEl.getElementsByTagName("location").item(0)).setAttribute("href", primary.path);
+
+    return true;
   }
 
   /**
@@ -338,35 +396,35 @@ public class MetadataProcessor
                                 final String mimeType)
       throws Exception
   {
-    log.debug("Storing {}:{}", repository.getId(), path);
-    DefaultStorageFileItem item = new DefaultStorageFileItem(
+    storeItem(
         repository,
-        new ResourceStoreRequest("/" + path),
-        true,
-        true,
+        path,
         new PreparedContentLocator(new ByteArrayInputStream(content), mimeType, ContentLocator.UNKNOWN_LENGTH)
     );
-
-    repository.storeItem(false, item);
   }
 
   /**
-   * GZip provided bytes.
+   * Store repository item.
    *
-   * @param bytes to be compressed
-   * @return compressed bytes
+   * @param repository containing item to be stored
+   * @param path       of item to be stored
+   * @param content    of item to be stored
    */
-  private static byte[] compress(final byte[] bytes)
+  private static void storeItem(final Repository repository,
+                                final String path,
+                                final ContentLocator content)
       throws Exception
   {
-    byte[] primaryCompressedBytes;
-    try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-         OutputStream gzos = new GZIPOutputStream(baos)) {
-      IOUtils.copy(new ByteArrayInputStream(bytes), gzos);
-      gzos.close();
-      primaryCompressedBytes = baos.toByteArray();
-    }
-    return primaryCompressedBytes;
+    log.debug("Storing {}:{}", repository.getId(), path);
+    DefaultStorageFileItem item = new DefaultStorageFileItem(
+        repository,
+        new ResourceStoreRequest("/" + path),
+        true,
+        true,
+        content
+    );
+
+    repository.storeItem(false, item);
   }
 
   /**
@@ -393,7 +451,41 @@ public class MetadataProcessor
    */
   private static interface Processor
   {
-    boolean process(Element location);
+    /**
+     * @param xmlBase location xml:base (empty string if not present)
+     * @param href    location href
+     * @return new href (xml:base will be removed) or {@code null} if location should not be changed
+     */
+    String process(String xmlBase, String href);
+  }
+
+  /**
+   * Path and checksums of a rewritten primary.xml, as calculated while streaming.
+   */
+  private static class PrimaryContent
+  {
+    private String path;
+
+    private final String checksum;
+
+    private final long size;
+
+    private final String openChecksum;
+
+    private final long openSize;
+
+    private PrimaryContent(final String path,
+                           final String checksum,
+                           final long size,
+                           final String openChecksum,
+                           final long openSize)
+    {
+      this.path = path;
+      this.checksum = checksum;
+      this.size = size;
+      this.openChecksum = openChecksum;
+      this.openSize = openSize;
+    }
   }
 
 }
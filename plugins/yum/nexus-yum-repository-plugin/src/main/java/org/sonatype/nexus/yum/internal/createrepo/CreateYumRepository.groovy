@@ -34,4 +34,12 @@ extends YumRepositoryWriter
     writeOther(yumPackage)
   }
 
+  /**
+   * Write a pre-rendered yum package metadata.
+   */
+  void write(final YumPackageFragments fragments) {
+    maybeStart()
+    writeFragments(fragments)
+  }
+
 }
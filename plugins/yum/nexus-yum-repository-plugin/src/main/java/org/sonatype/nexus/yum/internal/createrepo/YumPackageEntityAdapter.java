@@ -112,6 +112,12 @@ public class YumPackageEntityAdapter
 
   private static final String P_CHANGES = "changes";
 
+  private static final String P_PRIMARY_XML = "primaryXml";
+
+  private static final String P_FILELISTS_XML = "filelistsXml";
+
+  private static final String P_OTHER_XML = "otherXml";
+
   private final YumPackageEntryEntityAdapter entryEntityAdapter = new YumPackageEntryEntityAdapter();
 
   private final YumPackageFileEntityAdapter fileEntityAdapter = new YumPackageFileEntityAdapter();
@@ -164,6 +170,9 @@ public class YumPackageEntityAdapter
       type.createProperty(P_OBSOLETES, OType.EMBEDDEDLIST, entryType);
       type.createProperty(P_FILES, OType.EMBEDDEDLIST, fileType);
       type.createProperty(P_CHANGES, OType.EMBEDDEDLIST, changeLogType);
+      type.createProperty(P_PRIMARY_XML, OType.STRING);
+      type.createProperty(P_FILELISTS_XML, OType.STRING);
+      type.createProperty(P_OTHER_XML, OType.STRING);
 
       type.createIndex(
           DB_CLASS + "_" + P_REPOSITORY_ID + "_" + P_LOCATION + "idx",
@@ -228,10 +237,17 @@ public class YumPackageEntityAdapter
     document.field(P_OBSOLETES, entryEntityAdapter.create(db, entity.getObsoletes()));
     document.field(P_FILES, fileEntityAdapter.create(db, entity.getFiles()));
     document.field(P_CHANGES, changeLogEntityAdapter.create(db, entity.getChanges()));
+    writeFragments(document, YumRepositoryWriter.render(entity));
 
     return document.save();
   }
 
+  private void writeFragments(final ODocument document, final YumPackageFragments fragments) {
+    document.field(P_PRIMARY_XML, fragments.getPrimary());
+    document.field(P_FILELISTS_XML, fragments.getFilelists());
+    document.field(P_OTHER_XML, fragments.getOther());
+  }
+
   /**
    * Read entity from document.
    */
@@ -274,6 +290,25 @@ public class YumPackageEntityAdapter
     return entity;
   }
 
+  /**
+   * Read pre-rendered xml fragments from document. Documents written before fragments were introduced get them
+   * rendered and saved.
+   */
+  YumPackageFragments readFragments(final ODocument document) {
+    checkNotNull(document);
+
+    String primary = document.field(P_PRIMARY_XML, OType.STRING);
+    String filelists = document.field(P_FILELISTS_XML, OType.STRING);
+    String other = document.field(P_OTHER_XML, OType.STRING);
+    if (primary == null || filelists == null || other == null) {
+      YumPackageFragments fragments = YumRepositoryWriter.render(read(document));
+      writeFragments(document, fragments);
+      document.save();
+      return fragments;
+    }
+    return new YumPackageFragments(document.<String>field(P_LOCATION, OType.STRING), primary, filelists, other);
+  }
+
   /**
    * Get all documents for repository.
    */
@@ -284,6 +319,21 @@ public class YumPackageEntityAdapter
     return db.command(query).execute(repositoryId);
   }
 
+  /**
+   * Get a page of documents for repository, with location after specified location, ordered by location.
+   */
+  List<ODocument> get(final ODatabaseDocumentTx db,
+                      final String repositoryId,
+                      final String afterLocation,
+                      final int limit)
+  {
+    OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>(
+        "SELECT FROM " + DB_CLASS + " WHERE " + P_REPOSITORY_ID + " = ? AND " + P_LOCATION + " > ?"
+            + " ORDER BY " + P_LOCATION + " LIMIT " + limit
+    );
+    return db.command(query).execute(repositoryId, afterLocation);
+  }
+
   /**
    * Get document for repository/location.
    */
@@ -0,0 +1,60 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.yum.internal.createrepo;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Pre-rendered primary.xml/filelists.xml/other.xml content (package element) of a {@link YumPackage}.
+ *
+ * @since 3.0
+ */
+public class YumPackageFragments
+{
+
+  private final String location;
+
+  private final String primary;
+
+  private final String filelists;
+
+  private final String other;
+
+  public YumPackageFragments(final String location,
+                             final String primary,
+                             final String filelists,
+                             final String other)
+  {
+    this.location = checkNotNull(location);
+    this.primary = checkNotNull(primary);
+    this.filelists = checkNotNull(filelists);
+    this.other = checkNotNull(other);
+  }
+
+  public String getLocation() {
+    return location;
+  }
+
+  public String getPrimary() {
+    return primary;
+  }
+
+  public String getFilelists() {
+    return filelists;
+  }
+
+  public String getOther() {
+    return other;
+  }
+
+}
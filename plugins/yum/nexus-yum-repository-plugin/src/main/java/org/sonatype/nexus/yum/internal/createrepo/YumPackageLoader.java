@@ -0,0 +1,163 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.yum.internal.createrepo;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.scheduling.CancelableSupport;
+import org.sonatype.nexus.threads.NexusThreadFactory;
+import org.sonatype.nexus.yum.internal.RpmScanner;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Parses rpms in parallel (on a bounded pool) and stores resulting {@link YumPackage}s in batches.
+ *
+ * Parsing is done by pool threads while storing, progress reporting and cancellation checks are done by calling
+ * thread. Number of parsed packages waiting to be stored is bounded, so memory usage does not depend on number of
+ * rpms.
+ *
+ * @since 3.0
+ */
+public class YumPackageLoader
+    extends ComponentSupport
+{
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final long PROGRESS_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+  private final int threads;
+
+  private final int batchSize;
+
+  /**
+   * @param threads   number of threads used to parse rpms
+   * @param batchSize number of packages stored at once
+   */
+  public YumPackageLoader(final int threads, final int batchSize) {
+    checkArgument(threads > 0, "threads must be > 0");
+    checkArgument(batchSize > 0, "batchSize must be > 0");
+    this.threads = threads;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Parse and store specified rpms. Rpms that do not exist (anymore) are skipped.
+   *
+   * @param rpmDir    directory containing rpms, used to calculate package location
+   * @param rpms      rpm files to be parsed
+   * @param yumStore  where parsed packages are stored
+   * @return number of stored packages
+   */
+  public int load(final File rpmDir, final Collection<File> rpms, final YumStore yumStore)
+      throws InterruptedException
+  {
+    checkNotNull(rpmDir);
+    checkNotNull(rpms);
+    checkNotNull(yumStore);
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(threads, Math.max(rpms.size(), 1)), new NexusThreadFactory("yum-parser", "yum-parser")
+    );
+    try {
+      CompletionService<YumPackage> completionService = new ExecutorCompletionService<>(executor);
+      int maxPending = threads * 2;
+      int submitted = 0;
+      int completed = 0;
+      int stored = 0;
+      long lastProgress = System.currentTimeMillis();
+      List<YumPackage> batch = Lists.newArrayListWithCapacity(batchSize);
+
+      Iterator<File> it = rpms.iterator();
+      while (it.hasNext() || completed < submitted) {
+        if (it.hasNext() && (submitted - completed) < maxPending) {
+          completionService.submit(parser(rpmDir, it.next()));
+          submitted++;
+          continue;
+        }
+        YumPackage yumPackage = get(completionService.take());
+        completed++;
+        if (yumPackage != null) {
+          batch.add(yumPackage);
+        }
+        if (batch.size() >= batchSize) {
+          yumStore.put(batch);
+          stored += batch.size();
+          batch = Lists.newArrayListWithCapacity(batchSize);
+        }
+        if (System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+          log.info("Parsed {}/{} rpms from {}", completed, rpms.size(), rpmDir);
+          lastProgress = System.currentTimeMillis();
+        }
+        CancelableSupport.checkCancellation();
+      }
+      if (!batch.isEmpty()) {
+        yumStore.put(batch);
+        stored += batch.size();
+      }
+
+      log.debug("Parsed {} rpms from {}, stored {} packages", completed, rpmDir, stored);
+      return stored;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Callable<YumPackage> parser(final File rpmDir, final File rpm) {
+    return new Callable<YumPackage>()
+    {
+      @Override
+      public YumPackage call() throws Exception {
+        String location = RpmScanner.getRelativePath(rpmDir, rpm.getAbsoluteFile());
+        try (InputStream in = new BufferedInputStream(new FileInputStream(rpm), BUFFER_SIZE)) {
+          return new YumPackageParser().parse(in, location, rpm.lastModified());
+        }
+        catch (FileNotFoundException e) {
+          log.warn("Could not parse yum metadata for {}", location, e);
+          return null;
+        }
+      }
+    };
+  }
+
+  private YumPackage get(final Future<YumPackage> future) throws InterruptedException {
+    try {
+      return future.get();
+    }
+    catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+}
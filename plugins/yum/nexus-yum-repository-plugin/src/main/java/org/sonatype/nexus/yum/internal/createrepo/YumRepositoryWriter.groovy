@@ -38,9 +38,9 @@ implements Closeable
   private Output po
   private Output fo
   private Output oo
-  protected XMLStreamWriter pw
-  protected XMLStreamWriter fw
-  protected XMLStreamWriter ow
+  protected FragmentXMLStreamWriter pw
+  protected FragmentXMLStreamWriter fw
+  protected FragmentXMLStreamWriter ow
   protected XMLStreamWriter rw
   private boolean open
   private boolean closed
@@ -51,13 +51,13 @@ implements Closeable
     this.groupFile = groupFile
     XMLOutputFactory factory = XMLOutputFactory.newInstance()
     po = new Output(new FileOutputStream(new File(repoDir, 'primary.xml.gz')))
-    pw = new IndentingXMLStreamWriter(factory.createXMLStreamWriter(po.stream, "UTF-8"))
+    pw = new FragmentXMLStreamWriter(factory, new OutputStreamWriter(po.stream, "UTF-8"))
 
     fo = new Output(new FileOutputStream(new File(repoDir, 'filelists.xml.gz')))
-    fw = new IndentingXMLStreamWriter(factory.createXMLStreamWriter(fo.stream, "UTF-8"))
+    fw = new FragmentXMLStreamWriter(factory, new OutputStreamWriter(fo.stream, "UTF-8"))
 
     oo = new Output(new FileOutputStream(new File(repoDir, 'other.xml.gz')))
-    ow = new IndentingXMLStreamWriter(factory.createXMLStreamWriter(oo.stream, "UTF-8"))
+    ow = new FragmentXMLStreamWriter(factory, new OutputStreamWriter(oo.stream, "UTF-8"))
 
     rw = new IndentingXMLStreamWriter(factory.createXMLStreamWriter(new FileOutputStream(new File(repoDir, 'repomd.xml')), "UTF-8"))
   }
@@ -66,17 +66,81 @@ implements Closeable
    * Write a package into primary.xml.
    */
   protected void writePrimary(final YumPackage yumPackage) {
+    writeFragment(pw, renderFragment { XMLStreamWriter writer -> writePrimary(writer, yumPackage) })
+  }
+
+  /**
+   * Write a package into filelists.xml.
+   */
+  protected void writeFileLists(final YumPackage yumPackage) {
+    writeFragment(fw, renderFragment { XMLStreamWriter writer -> writeFileLists(writer, yumPackage) })
+  }
+
+  /**
+   * Write a package into other.xml.
+   */
+  protected void writeOther(final YumPackage yumPackage) {
+    writeFragment(ow, renderFragment { XMLStreamWriter writer -> writeOther(writer, yumPackage) })
+  }
+
+  /**
+   * Write a pre-rendered package into primary/filelists/other xmls.
+   */
+  protected void writeFragments(final YumPackageFragments fragments) {
+    writeFragment(pw, fragments.primary)
+    writeFragment(fw, fragments.filelists)
+    writeFragment(ow, fragments.other)
+  }
+
+  /**
+   * Render primary/filelists/other xml content of a package, to be later written via {@link #writeFragments}.
+   */
+  static YumPackageFragments render(final YumPackage yumPackage) {
+    return new YumPackageFragments(
+        yumPackage.location,
+        renderFragment { XMLStreamWriter writer -> writePrimary(writer, yumPackage) },
+        renderFragment { XMLStreamWriter writer -> writeFileLists(writer, yumPackage) },
+        renderFragment { XMLStreamWriter writer -> writeOther(writer, yumPackage) }
+    )
+  }
+
+  /**
+   * Render a package element. Element is rendered as child of a document element, so it is indented exactly as when
+   * written directly into primary/filelists/other xml.
+   */
+  private static String renderFragment(final Closure closure) {
+    StringWriter out = new StringWriter()
+    XMLStreamWriter writer = new IndentingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(out))
+    writer.writeStartElement('fragment')
+    closure.call(writer)
+    writer.writeEndElement()
+    writer.close()
+    String xml = out.toString()
+    return xml.substring(xml.indexOf('>') + 1, xml.lastIndexOf('<')).trim()
+  }
+
+  /**
+   * Write a rendered package element.
+   */
+  private static void writeFragment(final FragmentXMLStreamWriter writer, final String fragment) {
+    writer.writeFragment(fragment)
+  }
+
+  /**
+   * Write a package element of primary.xml.
+   */
+  protected static void writePrimary(final XMLStreamWriter pw, final YumPackage yumPackage) {
     pw.writeStartElement('package')
     pw.writeAttribute('type', 'rpm')
-    writeBase(yumPackage)
-    writeFormat(yumPackage)
+    writeBase(pw, yumPackage)
+    writeFormat(pw, yumPackage)
     pw.writeEndElement()
   }
 
   /**
-   * Write a package into filelists.xml.
+   * Write a package element of filelists.xml.
    */
-  protected void writeFileLists(final YumPackage yumPackage) {
+  protected static void writeFileLists(final XMLStreamWriter fw, final YumPackage yumPackage) {
     fw.writeStartElement('package')
     fw.writeAttribute('pkgid', yumPackage.pkgId)
     fw.writeAttribute('name', yumPackage.name)
@@ -87,9 +151,9 @@ implements Closeable
   }
 
   /**
-   * Write a package into other.xml.
+   * Write a package element of other.xml.
    */
-  protected void writeOther(final YumPackage yumPackage) {
+  protected static void writeOther(final XMLStreamWriter ow, final YumPackage yumPackage) {
     ow.writeStartElement('package')
     ow.writeAttribute('pkgid', yumPackage.pkgId)
     ow.writeAttribute('name', yumPackage.name)
@@ -103,7 +167,7 @@ implements Closeable
   /**
    * Write base section of a package into primary.xml.
    */
-  private void writeBase(final YumPackage yumPackage) {
+  private static void writeBase(final XMLStreamWriter pw, final YumPackage yumPackage) {
     writeEl(pw, 'name', yumPackage.name)
     writeEl(pw, 'arch', yumPackage.arch)
     writeEl(pw, 'version', ['epoch': yumPackage.epoch, 'ver': yumPackage.version, 'rel': yumPackage.release])
@@ -120,7 +184,7 @@ implements Closeable
   /**
    * Write format section of a package into primary.xml.
    */
-  private void writeFormat(final YumPackage yumPackage) {
+  private static void writeFormat(final XMLStreamWriter pw, final YumPackage yumPackage) {
     pw.writeStartElement('format')
     writeEl(pw, 'rpm:license', yumPackage.rpmLicense)
     writeEl(pw, 'rpm:vendor', yumPackage.rpmVendor)
@@ -128,10 +192,10 @@ implements Closeable
     writeEl(pw, 'rpm:buildhost', yumPackage.rpmBuildHost)
     writeEl(pw, 'rpm:sourcerpm', yumPackage.rpmSourceRpm)
     writeEl(pw, 'rpm:header-range', ['start': yumPackage.rpmHeaderStart, 'end': yumPackage.rpmHeaderEnd])
-    writePCO(yumPackage.provides, 'provides')
-    writePCO(yumPackage.requires, 'requires')
-    writePCO(yumPackage.conflicts, 'conflicts')
-    writePCO(yumPackage.obsoletes, 'obsoletes')
+    writePCO(pw, yumPackage.provides, 'provides')
+    writePCO(pw, yumPackage.requires, 'requires')
+    writePCO(pw, yumPackage.conflicts, 'conflicts')
+    writePCO(pw, yumPackage.obsoletes, 'obsoletes')
     writeFiles(pw, yumPackage, true)
     pw.writeEndElement()
   }
@@ -139,7 +203,7 @@ implements Closeable
   /**
    * Write provides/requires/conflicts/obsoletes entries of a package into primary.xml.
    */
-  private void writePCO(final List<YumPackage.Entry> entries, final String type) {
+  private static void writePCO(final XMLStreamWriter pw, final List<YumPackage.Entry> entries, final String type) {
     if (entries) {
       pw.writeStartElement('rpm:' + type)
       entries.each { entry ->
@@ -157,7 +221,7 @@ implements Closeable
   /**
    * Write files entries of a package into primary.xml or filelists.xml.
    */
-  private void writeFiles(final XMLStreamWriter writer, final YumPackage yumPackage, final boolean primary) {
+  private static void writeFiles(final XMLStreamWriter writer, final YumPackage yumPackage, final boolean primary) {
     def files = yumPackage.files
     if (files) {
       if (primary) {
@@ -178,7 +242,7 @@ implements Closeable
   /**
    * Write an xml element.
    */
-  protected void writeEl(final XMLStreamWriter writer, final String name, final Object text, final Map<String, Object> attributes = null) {
+  protected static void writeEl(final XMLStreamWriter writer, final String name, final Object text, final Map<String, Object> attributes = null) {
     writer.writeStartElement(name)
     attributes?.each { key, value ->
       if (value) {
@@ -194,7 +258,7 @@ implements Closeable
   /**
    * Write an xml element without text.
    */
-  protected void writeEl(final XMLStreamWriter writer, final String name, final Map<String, Object> attributes) {
+  protected static void writeEl(final XMLStreamWriter writer, final String name, final Map<String, Object> attributes) {
     writeEl(writer, name, null, attributes)
   }
 
@@ -305,6 +369,34 @@ implements Closeable
     rw.close()
   }
 
+  /**
+   * Indenting writer which can also write pre-rendered markup. Markup is written to the underlying writer, and is
+   * indented as any other element.
+   */
+  protected static class FragmentXMLStreamWriter
+  extends IndentingXMLStreamWriter
+  {
+    private final Writer out
+
+    FragmentXMLStreamWriter(final XMLOutputFactory factory, final Writer out) {
+      super(factory.createXMLStreamWriter(out))
+      this.out = out
+    }
+
+    void writeFragment(final String fragment) {
+      beforeMarkup()
+      flush()
+      out.write(fragment)
+      afterMarkup()
+    }
+
+    @Override
+    void close() {
+      super.close()
+      out.flush()
+    }
+  }
+
   /**
    * Holder of streams used to get checksum/size of open and gzip xml content.
    */
@@ -25,11 +25,22 @@ public interface YumStore
    */
   void put(YumPackage yumPackage);
 
+  /**
+   * Add/update metadata of multiple packages, in one transaction.
+   */
+  void put(Iterable<YumPackage> yumPackages);
+
   /**
    * Get all existing metadata.
    */
   Iterable<YumPackage> get();
 
+  /**
+   * Get pre-rendered xml of all existing packages, ordered by location. Packages are read lazily (in pages) while
+   * iterating.
+   */
+  Iterable<YumPackageFragments> getFragments();
+
   /**
    * Delete all metadata for packages under specified location.
    * Will delete all metadata for packages location starting with specified location, to easy remove all metadata from
@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.yum.internal.createrepo;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -25,6 +27,7 @@ import org.sonatype.nexus.proxy.events.NexusInitializedEvent;
 import org.sonatype.nexus.proxy.events.NexusStoppingEvent;
 import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Lists;
 import com.google.common.eventbus.Subscribe;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
@@ -44,6 +47,11 @@ public class YumStoreFactoryImpl
     implements YumStoreFactory, EventSubscriber
 {
 
+  /**
+   * Number of packages read at once while iterating pre-rendered xml.
+   */
+  private static final int FRAGMENTS_PAGE_SIZE = 1000;
+
   private final Provider<DatabaseInstance> databaseInstance;
 
   private final YumPackageEntityAdapter entityAdapter;
@@ -89,12 +97,23 @@ public class YumStoreFactoryImpl
     @Override
     public void put(final YumPackage yumPackage) {
       try (ODatabaseDocumentTx db = openDb()) {
-        ODocument existing = entityAdapter.get(db, repositoryId, yumPackage.getLocation());
-        if (existing == null) {
-          entityAdapter.create(db, repositoryId, yumPackage);
+        put(db, yumPackage);
+      }
+    }
+
+    @Override
+    public void put(final Iterable<YumPackage> yumPackages) {
+      try (ODatabaseDocumentTx db = openDb()) {
+        db.begin();
+        try {
+          for (YumPackage yumPackage : yumPackages) {
+            put(db, yumPackage);
+          }
+          db.commit();
         }
-        else {
-          entityAdapter.write(db, existing, repositoryId, yumPackage);
+        catch (RuntimeException e) {
+          db.rollback();
+          throw e;
         }
       }
     }
@@ -113,6 +132,49 @@ public class YumStoreFactoryImpl
       }
     }
 
+    @Override
+    public Iterable<YumPackageFragments> getFragments() {
+      return new Iterable<YumPackageFragments>()
+      {
+        @Override
+        public Iterator<YumPackageFragments> iterator() {
+          return new AbstractIterator<YumPackageFragments>()
+          {
+            private Iterator<YumPackageFragments> page = Collections.emptyIterator();
+
+            private String lastLocation = "";
+
+            private boolean lastPage;
+
+            @Override
+            protected YumPackageFragments computeNext() {
+              if (!page.hasNext() && !lastPage) {
+                List<YumPackageFragments> fragments = getFragments(lastLocation);
+                lastPage = fragments.size() < FRAGMENTS_PAGE_SIZE;
+                page = fragments.iterator();
+              }
+              if (page.hasNext()) {
+                YumPackageFragments fragments = page.next();
+                lastLocation = fragments.getLocation();
+                return fragments;
+              }
+              return endOfData();
+            }
+          };
+        }
+      };
+    }
+
+    private List<YumPackageFragments> getFragments(final String afterLocation) {
+      try (ODatabaseDocumentTx db = openDb()) {
+        List<YumPackageFragments> fragments = Lists.newArrayList();
+        for (ODocument document : entityAdapter.get(db, repositoryId, afterLocation, FRAGMENTS_PAGE_SIZE)) {
+          fragments.add(entityAdapter.readFragments(document));
+        }
+        return fragments;
+      }
+    }
+
     @Override
     public void delete(final String location) {
       try (ODatabaseDocumentTx db = openDb()) {
@@ -127,6 +189,16 @@ public class YumStoreFactoryImpl
       }
     }
 
+    private void put(final ODatabaseDocumentTx db, final YumPackage yumPackage) {
+      ODocument existing = entityAdapter.get(db, repositoryId, yumPackage.getLocation());
+      if (existing == null) {
+        entityAdapter.create(db, repositoryId, yumPackage);
+      }
+      else {
+        entityAdapter.write(db, existing, repositoryId, yumPackage);
+      }
+    }
+
     private ODatabaseDocumentTx openDb() {
       ensureStarted();
       return databaseInstance.get().acquire();
@@ -13,8 +13,6 @@
 package org.sonatype.nexus.yum.internal.task;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
@@ -27,6 +25,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.sonatype.nexus.common.io.DirSupport;
+import org.sonatype.nexus.common.property.SystemPropertiesHelper;
 import org.sonatype.nexus.proxy.NoSuchRepositoryException;
 import org.sonatype.nexus.proxy.access.Action;
 import org.sonatype.nexus.proxy.item.RepositoryItemUid;
@@ -48,8 +47,8 @@ import org.sonatype.nexus.yum.internal.RepositoryUtils;
 import org.sonatype.nexus.yum.internal.RpmScanner;
 import org.sonatype.nexus.yum.internal.YumRepositoryImpl;
 import org.sonatype.nexus.yum.internal.createrepo.CreateYumRepository;
-import org.sonatype.nexus.yum.internal.createrepo.YumPackage;
-import org.sonatype.nexus.yum.internal.createrepo.YumPackageParser;
+import org.sonatype.nexus.yum.internal.createrepo.YumPackageFragments;
+import org.sonatype.nexus.yum.internal.createrepo.YumPackageLoader;
 import org.sonatype.nexus.yum.internal.createrepo.YumStore;
 
 import com.google.common.base.Predicate;
@@ -84,6 +83,20 @@ public class GenerateMetadataTask
 
   private static final Logger LOG = LoggerFactory.getLogger(GenerateMetadataTask.class);
 
+  /**
+   * Number of threads used to parse rpms.
+   */
+  private static final int PARSER_THREADS = SystemPropertiesHelper.getInteger(
+      GenerateMetadataTask.class.getName() + ".parserThreads", Runtime.getRuntime().availableProcessors()
+  );
+
+  /**
+   * Number of parsed packages stored in yum store at once.
+   */
+  private static final int STORE_BATCH_SIZE = SystemPropertiesHelper.getInteger(
+      GenerateMetadataTask.class.getName() + ".storeBatchSize", 500
+  );
+
   public static final String PARAM_RPM_DIR = "rpmDir";
 
   public static final String PARAM_REPO_DIR = "repoDir";
@@ -177,9 +190,10 @@ public class GenerateMetadataTask
         syncYumPackages(yumStore);
         try (CreateYumRepository createRepo = new CreateYumRepository(repoTmpRepodataDir, null, resolveYumGroups())) {
           String version = getVersion();
-          for (YumPackage yumPackage : yumStore.get()) {
-            if (version == null || hasRequiredVersion(version, yumPackage.getLocation())) {
-              createRepo.write(yumPackage);
+          // xml of packages is rendered when they are stored, so here it is only copied
+          for (YumPackageFragments fragments : yumStore.getFragments()) {
+            if (version == null || hasRequiredVersion(version, fragments.getLocation())) {
+              createRepo.write(fragments);
             }
           }
         }
@@ -244,7 +258,7 @@ public class GenerateMetadataTask
     return (segments.length >= 2) && version.equals(segments[segments.length - 2]);
   }
 
-  private void syncYumPackages(final YumStore yumStore) {
+  private void syncYumPackages(final YumStore yumStore) throws InterruptedException {
     Set<File> files = null;
     File rpmDir = new File(getRpmDir());
     if (shouldForceFullScan()) {
@@ -259,18 +273,7 @@ public class GenerateMetadataTask
       }
     }
     if (files != null) {
-      for (File file : files) {
-        String location = RpmScanner.getRelativePath(rpmDir, file.getAbsoluteFile());
-        try {
-          YumPackage yumPackage = new YumPackageParser().parse(
-              new FileInputStream(file), location, file.lastModified()
-          );
-          yumStore.put(yumPackage);
-        }
-        catch (FileNotFoundException e) {
-          log.warn("Could not parse yum metadata for {}", location, e);
-        }
-      }
+      new YumPackageLoader(PARSER_THREADS, STORE_BATCH_SIZE).load(rpmDir, files, yumStore);
     }
 
     String removedPath = getRemovedFile();
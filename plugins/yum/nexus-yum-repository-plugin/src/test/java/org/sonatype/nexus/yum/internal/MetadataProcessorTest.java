@@ -30,6 +30,8 @@ import org.sonatype.sisu.litmus.testsupport.junit.TestDataRule;
 
 import com.google.common.collect.Maps;
 import org.apache.commons.io.IOUtils;
+import org.custommonkey.xmlunit.Diff;
+import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -86,7 +88,7 @@ public class MetadataProcessorTest
 
     // check that primary.xml is stored
     byte[] primaryBytes = storage.get(
-        "/repodata/2fefc2f0541419d2dcf3fc73d2b8db1cc5782d522443b51b954c4e94d5a8c001-primary.xml.gz"
+        "/repodata/5ff8d04d870c49ba3f9b54b107267ca47e73c6ba7b60731481fa56e73b54da5f-primary.xml.gz"
     );
     assertThat(primaryBytes, is(notNullValue()));
 
@@ -98,9 +100,9 @@ public class MetadataProcessorTest
 
     // compare primary.xml content
     try (InputStream primaryIn = new GZIPInputStream(new ByteArrayInputStream(primaryBytes))) {
-      assertThat(
+      assertSimilar(
           IOUtils.toString(primaryIn),
-          is(equalTo(readFileToString(testData.resolveFile("repo3-result/repodata/primary.xml"))))
+          readFileToString(testData.resolveFile("repo3-result/repodata/primary.xml"))
       );
     }
 
@@ -131,7 +133,7 @@ public class MetadataProcessorTest
 
     // check that primary.xml is stored
     byte[] primaryBytes = storage.get(
-        "/repodata/8ef31e4bdca995f6fe5b7a63387ddc60c718175ca6eaec9d4cadbefb81fd5828-primary.xml.gz"
+        "/repodata/38abc8f422a4b5dc2d3413b1b26eb5029fd85712ad2d5fdccf614a4d595d24b1-primary.xml.gz"
     );
     assertThat(primaryBytes, is(notNullValue()));
 
@@ -143,9 +145,9 @@ public class MetadataProcessorTest
 
     // compare primary.xml content
     try (InputStream primaryIn = new GZIPInputStream(new ByteArrayInputStream(primaryBytes))) {
-      assertThat(
+      assertSimilar(
           IOUtils.toString(primaryIn),
-          is(equalTo(readFileToString(testData.resolveFile("repo5-result/repodata/primary.xml"))))
+          readFileToString(testData.resolveFile("repo5-result/repodata/primary.xml"))
       );
     }
 
@@ -156,6 +158,15 @@ public class MetadataProcessorTest
     );
   }
 
+  /**
+   * primary.xml is streamed, so serialization details (attribute order, empty elements) may differ from expected.
+   */
+  private void assertSimilar(final String actual, final String expected) throws Exception {
+    XMLUnit.setIgnoreWhitespace(true);
+    Diff diff = new Diff(expected, actual);
+    assertThat(diff.toString(), diff.similar(), is(true));
+  }
+
   private void mockRepository(final Repository repository, final String repoDir)
       throws Exception
   {
@@ -68,6 +68,44 @@ extends TestSupport
     )
   }
 
+  /**
+   * Create repository out of pre-rendered packages and check that results are same as when packages are written.
+   */
+  @Test
+  void 'create repository from fragments'() {
+    File ant_i386 = util.resolveFile('src/test/ut-resources/rpms/ant/1.7.1-13/ant-1.7.1-13.el6.i686.rpm')
+    File ant_x86 = util.resolveFile('src/test/ut-resources/rpms/ant/1.7.1-13/ant-1.7.1-13.el6.x86_64.rpm')
+    File outputDir = util.createTempDir('repodata')
+    new CreateYumRepository(outputDir, 1422620943).withCloseable { CreateYumRepository writer ->
+      writer.write(YumRepositoryWriter.render(new YumPackageParser().parse(
+          new FileInputStream(ant_i386),
+          'Packages/ant-1.7.1-13.el6.i686.rpm',
+          1422616782
+      )))
+      writer.write(YumRepositoryWriter.render(new YumPackageParser().parse(
+          new FileInputStream(ant_x86),
+          'Packages/ant-1.7.1-13.el6.x86_64.rpm',
+          1309665722
+      )))
+    }
+    assertThat(
+        IOUtils.toString(new GZIPInputStream(new FileInputStream(new File(outputDir, 'primary.xml.gz')))),
+        equalToOnlyDiffs(readFileToString(util.resolveFile('src/test/ut-resources/createrepo/result/repodata/primary.xml')))
+    )
+    assertThat(
+        IOUtils.toString(new GZIPInputStream(new FileInputStream(new File(outputDir, 'filelists.xml.gz')))),
+        equalToOnlyDiffs(readFileToString(util.resolveFile('src/test/ut-resources/createrepo/result/repodata/filelists.xml')))
+    )
+    assertThat(
+        IOUtils.toString(new GZIPInputStream(new FileInputStream(new File(outputDir, 'other.xml.gz')))),
+        equalToOnlyDiffs(readFileToString(util.resolveFile('src/test/ut-resources/createrepo/result/repodata/other.xml')))
+    )
+    assertThat(
+        readFileToString(new File(outputDir, 'repomd.xml')),
+        equalToOnlyDiffs(readFileToString(util.resolveFile('src/test/ut-resources/createrepo/result/repodata/repomd.xml')))
+    )
+  }
+
   @Test
   void 'create repository with grooups'() {
     File ant_i386 = util.resolveFile('src/test/ut-resources/rpms/ant/1.7.1-13/ant-1.7.1-13.el6.i686.rpm')
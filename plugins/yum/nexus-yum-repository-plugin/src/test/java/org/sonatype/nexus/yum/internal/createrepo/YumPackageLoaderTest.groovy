@@ -0,0 +1,131 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.yum.internal.createrepo
+
+import org.junit.Before
+import org.junit.Test
+import org.sonatype.nexus.yum.internal.RpmScanner
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import static groovy.io.FileType.FILES
+import static org.hamcrest.MatcherAssert.assertThat
+import static org.hamcrest.Matchers.containsInAnyOrder
+import static org.hamcrest.Matchers.everyItem
+import static org.hamcrest.Matchers.hasSize
+import static org.hamcrest.Matchers.is
+import static org.hamcrest.Matchers.lessThanOrEqualTo
+
+/**
+ * {@link YumPackageLoader} UTs.
+ * @since 3.0
+ */
+class YumPackageLoaderTest
+extends TestSupport
+{
+
+  private File rpmDir
+
+  private List<File> rpms
+
+  private RecordingYumStore yumStore
+
+  @Before
+  void setUp() {
+    rpmDir = util.resolveFile('src/test/ut-resources/rpms')
+    rpms = []
+    rpmDir.eachFileRecurse(FILES) { File file ->
+      if (file.name.endsWith('.rpm')) {
+        rpms << file
+      }
+    }
+    yumStore = new RecordingYumStore()
+  }
+
+  /**
+   * All rpms are parsed and stored in batches of at most batch size.
+   */
+  @Test
+  void 'parse and store in batches'() {
+    int stored = new YumPackageLoader(3, 2).load(rpmDir, rpms, yumStore)
+
+    assertThat(stored, is(rpms.size()))
+    assertThat(yumStore.batches, hasSize((int) Math.ceil(rpms.size() / 2)))
+    assertThat(yumStore.batches*.size(), everyItem(lessThanOrEqualTo(2)))
+    assertThat(
+        yumStore.get()*.location,
+        containsInAnyOrder(rpms.collect { File rpm -> RpmScanner.getRelativePath(rpmDir, rpm) }.toArray())
+    )
+  }
+
+  /**
+   * Parsed metadata does not depend on number of threads used to parse.
+   */
+  @Test
+  void 'parallel parsing gives same results'() {
+    new YumPackageLoader(1, 100).load(rpmDir, rpms, yumStore)
+    Map<String, String> sequential = yumStore.get().collectEntries { YumPackage p -> [p.location, p.checksum] }
+
+    yumStore = new RecordingYumStore()
+    new YumPackageLoader(4, 100).load(rpmDir, rpms, yumStore)
+    Map<String, String> parallel = yumStore.get().collectEntries { YumPackage p -> [p.location, p.checksum] }
+
+    assertThat(parallel, is(sequential))
+  }
+
+  /**
+   * Rpms that do not exist anymore are skipped.
+   */
+  @Test
+  void 'missing rpms are skipped'() {
+    File missing = new File(rpmDir, 'missing/missing-1.0-1.noarch.rpm')
+    int stored = new YumPackageLoader(2, 10).load(rpmDir, rpms + missing, yumStore)
+
+    assertThat(stored, is(rpms.size()))
+    assertThat(yumStore.get(), hasSize(rpms.size()))
+  }
+
+  private static class RecordingYumStore
+      implements YumStore
+  {
+    List<List<YumPackage>> batches = []
+
+    @Override
+    void put(final YumPackage yumPackage) {
+      batches << [yumPackage]
+    }
+
+    @Override
+    void put(final Iterable<YumPackage> yumPackages) {
+      batches << yumPackages.toList()
+    }
+
+    @Override
+    Iterable<YumPackage> get() {
+      return batches.flatten() as List<YumPackage>
+    }
+
+    @Override
+    Iterable<YumPackageFragments> getFragments() {
+      return get().collect { YumPackage yumPackage -> YumRepositoryWriter.render(yumPackage) }
+    }
+
+    @Override
+    void delete(final String location) {
+    }
+
+    @Override
+    void deleteAll() {
+    }
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.yum.internal.createrepo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.yum.internal.RpmScanner;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Test;
+import org.redline_rpm.Builder;
+
+import static org.redline_rpm.header.Architecture.NOARCH;
+import static org.redline_rpm.header.Os.LINUX;
+import static org.redline_rpm.header.RpmType.BINARY;
+
+/**
+ * Trial of {@link YumPackageLoader} against the former sequential parse/put loop, over a generated set of rpms and a
+ * store that charges a fixed cost per call (as a commit would).
+ */
+public class YumPackageLoaderTrial
+    extends TestSupport
+{
+  private static final int RPMS = 500;
+
+  private static final int PAYLOAD_SIZE = 256 * 1024;
+
+  private static final long STORE_CALL_COST_MILLIS = 2;
+
+  private File rpmDir;
+
+  private List<File> rpms;
+
+  @Before
+  public void generateRpms() throws Exception {
+    rpmDir = util.createTempDir("rpms");
+    File payload = new File(util.createTempDir("payload"), "payload.bin");
+    byte[] bytes = new byte[PAYLOAD_SIZE];
+    new Random(42).nextBytes(bytes);
+    Files.write(bytes, payload);
+
+    rpms = Lists.newArrayList();
+    for (int i = 0; i < RPMS; i++) {
+      Builder builder = new Builder();
+      builder.setPackage("trial-" + i, "1.0", "1");
+      builder.setPlatform(NOARCH, LINUX);
+      builder.setType(BINARY);
+      builder.setSourceRpm("trial-" + i + "-1.0-1.src.rpm");
+      for (int f = 0; f < 20; f++) {
+        builder.addFile("/usr/share/trial-" + i + "/file-" + f + ".bin", payload);
+      }
+      File dir = new File(rpmDir, "trial-" + i);
+      dir.mkdirs();
+      rpms.add(new File(dir, builder.build(dir)));
+    }
+  }
+
+  @Test
+  public void sequentialVersusParallel() throws Exception {
+    // warm up
+    sequential(new CostlyYumStore());
+    new YumPackageLoader(Runtime.getRuntime().availableProcessors(), 100).load(rpmDir, rpms, new CostlyYumStore());
+
+    Stopwatch watch = Stopwatch.createStarted();
+    sequential(new CostlyYumStore());
+    log("sequential: {} rpms in {}", RPMS, watch.stop());
+
+    for (int threads : new int[]{1, 2, 4, Runtime.getRuntime().availableProcessors()}) {
+      watch = Stopwatch.createStarted();
+      new YumPackageLoader(threads, 100).load(rpmDir, rpms, new CostlyYumStore());
+      log("loader, {} threads: {} rpms in {}", threads, RPMS, watch.stop());
+    }
+  }
+
+  /**
+   * Replica of the former loop: unbuffered stream, one store call per package.
+   */
+  private void sequential(final YumStore yumStore) throws Exception {
+    for (File rpm : rpms) {
+      yumStore.put(new YumPackageParser().parse(
+          new FileInputStream(rpm), RpmScanner.getRelativePath(rpmDir, rpm), rpm.lastModified()
+      ));
+    }
+  }
+
+  private static class CostlyYumStore
+      implements YumStore
+  {
+    @Override
+    public void put(final YumPackage yumPackage) {
+      pay();
+    }
+
+    @Override
+    public void put(final Iterable<YumPackage> yumPackages) {
+      pay();
+    }
+
+    @Override
+    public Iterable<YumPackage> get() {
+      return Lists.newArrayList();
+    }
+
+    @Override
+    public Iterable<YumPackageFragments> getFragments() {
+      return Lists.newArrayList();
+    }
+
+    @Override
+    public void delete(final String location) {
+    }
+
+    @Override
+    public void deleteAll() {
+    }
+
+    private void pay() {
+      try {
+        TimeUnit.MILLISECONDS.sleep(STORE_CALL_COST_MILLIS);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
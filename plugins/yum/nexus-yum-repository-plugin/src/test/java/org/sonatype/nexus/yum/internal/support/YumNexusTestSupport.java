@@ -39,6 +39,7 @@ import org.sonatype.nexus.proxy.repository.HostedRepository;
 import org.sonatype.nexus.proxy.repository.Repository;
 import org.sonatype.nexus.proxy.repository.RepositoryKind;
 import org.sonatype.nexus.yum.internal.createrepo.YumPackage;
+import org.sonatype.nexus.yum.internal.createrepo.YumPackageFragments;
 import org.sonatype.nexus.yum.internal.createrepo.YumStore;
 import org.sonatype.nexus.yum.internal.createrepo.YumStoreFactory;
 import org.sonatype.sisu.litmus.testsupport.TestTracer;
@@ -153,6 +154,7 @@ public class YumNexusTestSupport
     final YumStoreFactory factory = mock(YumStoreFactory.class);
     when(factory.create(Mockito.anyString())).thenReturn(store);
     when(store.get()).thenReturn(Collections.<YumPackage>emptyList());
+    when(store.getFragments()).thenReturn(Collections.<YumPackageFragments>emptyList());
     modules.add(new Module()
     {
       @Override